@@ -0,0 +1,304 @@
+package com.landryjoias.crm.arquivo;
+
+import com.landryjoias.crm.entity.LogEntity;
+import com.landryjoias.crm.entity.UsuarioEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// --- SEGMENTO DE LOGS ARQUIVADOS ---
+// Arquivo escrito uma única vez e nunca alterado. Os registros vão em ordem de (data, idLog),
+// agrupados em blocos de REGISTROS_POR_BLOCO comprimidos com Deflate. No fim fica o índice
+// esparso (primeiro/último segundo de cada bloco e onde ele está) e um rodapé fixo:
+//
+//   [bloco 0][bloco 1]...[índice: N x (long primeiro, long ultimo, long offset, int comprimido, int original, int qtd)]
+//   [rodapé: long offsetIndice, int quantidadeBlocos, int versao, int MAGICO]
+//
+// A leitura mapeia o arquivo inteiro em memória (só leitura) e descomprime apenas os blocos
+// cujo intervalo de tempo interessa à consulta.
+public final class SegmentoLog {
+    private static final int MAGICO = 0x4C4F4753; // "LOGS"
+    private static final int VERSAO = 1;
+    private static final int RODAPE = 8 + 4 + 4 + 4;
+    private static final int ENTRADA_INDICE = 8 + 8 + 8 + 4 + 4 + 4;
+    static final int REGISTROS_POR_BLOCO = 256;
+
+    // Uma linha de Logs como fica no arquivo (o usuário vai só com id e e-mail)
+    public record RegistroLog(int idLog, LocalDateTime data, int tipoDeAtividade, Integer idUsuario, String email,
+            String titulo, String assunto, String descricao) {
+
+        public LogEntity paraEntidade() {
+            LogEntity log = new LogEntity();
+            log.setIdLog(idLog);
+            log.setData(data);
+            log.setTipoDeAtividade(tipoDeAtividade);
+            log.setTitulo(titulo);
+            log.setAssunto(assunto);
+            log.setDescricao(descricao);
+            if (idUsuario != null) {
+                UsuarioEntity usuario = new UsuarioEntity();
+                usuario.setIdUsuario(idUsuario);
+                usuario.setEmail(email);
+                log.setUsuario(usuario);
+            }
+            return log;
+        }
+    }
+
+    private final Path arquivo;
+    private final MappedByteBuffer mapa;
+    private final long[] primeiroSegundo;
+    private final long[] ultimoSegundo;
+    private final long[] offset;
+    private final int[] comprimido;
+    private final int[] original;
+    private final int[] quantidade;
+    private final long totalRegistros;
+
+    private SegmentoLog(Path arquivo, MappedByteBuffer mapa, int blocos) {
+        this.arquivo = arquivo;
+        this.mapa = mapa;
+        this.primeiroSegundo = new long[blocos];
+        this.ultimoSegundo = new long[blocos];
+        this.offset = new long[blocos];
+        this.comprimido = new int[blocos];
+        this.original = new int[blocos];
+        this.quantidade = new int[blocos];
+        long total = 0;
+        int inicioIndice = (int) mapa.getLong(mapa.capacity() - RODAPE);
+        for (int i = 0; i < blocos; i++) {
+            int p = inicioIndice + i * ENTRADA_INDICE;
+            primeiroSegundo[i] = mapa.getLong(p);
+            ultimoSegundo[i] = mapa.getLong(p + 8);
+            offset[i] = mapa.getLong(p + 16);
+            comprimido[i] = mapa.getInt(p + 24);
+            original[i] = mapa.getInt(p + 28);
+            quantidade[i] = mapa.getInt(p + 32);
+            total += quantidade[i];
+        }
+        this.totalRegistros = total;
+    }
+
+    // --- LEITURA ---
+    public static SegmentoLog abrir(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            if (tamanho < RODAPE || tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Segmento de log inválido: " + arquivo);
+            }
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+            int fim = (int) tamanho;
+            if (mapa.getInt(fim - 4) != MAGICO || mapa.getInt(fim - 8) != VERSAO) {
+                throw new IOException("Segmento de log inválido: " + arquivo);
+            }
+            return new SegmentoLog(arquivo, mapa, mapa.getInt(fim - 12));
+        }
+    }
+
+    public Path getArquivo() {
+        return arquivo;
+    }
+
+    public long getTotalRegistros() {
+        return totalRegistros;
+    }
+
+    public LocalDateTime getPrimeiraData() {
+        return primeiroSegundo.length == 0 ? null : deSegundo(primeiroSegundo[0]);
+    }
+
+    public LocalDateTime getUltimaData() {
+        return ultimoSegundo.length == 0 ? null : deSegundo(ultimoSegundo[ultimoSegundo.length - 1] + 1);
+    }
+
+    // Do mais novo para o mais antigo, só nos blocos que cruzam [de, ate] (null = sem limite).
+    // O predicado devolve false para parar.
+    public void percorrerDecrescente(LocalDateTime de, LocalDateTime ate, Predicate<RegistroLog> continuar) throws IOException {
+        long piso = de == null ? Long.MIN_VALUE : segundo(de);
+        long teto = ate == null ? Long.MAX_VALUE : segundo(ate);
+        for (int b = quantidade.length - 1; b >= 0; b--) {
+            if (ultimoSegundo[b] < piso) {
+                return; // blocos anteriores são ainda mais antigos
+            }
+            if (primeiroSegundo[b] > teto) {
+                continue;
+            }
+            List<RegistroLog> registros = lerBloco(b);
+            for (int i = registros.size() - 1; i >= 0; i--) {
+                if (!continuar.test(registros.get(i))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Todos os registros, em ordem (usado para reconstruir índices em memória)
+    public void percorrer(Predicate<RegistroLog> continuar) throws IOException {
+        for (int b = 0; b < quantidade.length; b++) {
+            for (RegistroLog registro : lerBloco(b)) {
+                if (!continuar.test(registro)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private List<RegistroLog> lerBloco(int b) throws IOException {
+        ByteBuffer fatia = mapa.duplicate();
+        fatia.position((int) offset[b]).limit((int) offset[b] + comprimido[b]);
+        byte[] bytes = new byte[original[b]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(fatia);
+            int lidos = 0;
+            while (lidos < bytes.length && !inflater.finished()) {
+                lidos += inflater.inflate(bytes, lidos, bytes.length - lidos);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco corrompido em " + arquivo + " (#" + b + ")", e);
+        } finally {
+            inflater.end();
+        }
+
+        DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(bytes));
+        List<RegistroLog> registros = new ArrayList<>(quantidade[b]);
+        for (int i = 0; i < quantidade[b]; i++) {
+            int idLog = entrada.readInt();
+            long segundos = entrada.readLong();
+            int nanos = entrada.readInt();
+            int tipo = entrada.readInt();
+            int idUsuario = entrada.readInt();
+            registros.add(new RegistroLog(idLog, LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC), tipo,
+                    idUsuario < 0 ? null : idUsuario, lerTexto(entrada), lerTexto(entrada), lerTexto(entrada),
+                    lerTexto(entrada)));
+        }
+        return registros;
+    }
+
+    // --- ESCRITA ---
+    // Grava num temporário, força para o disco e só então renomeia: ou o segmento existe inteiro
+    // ou não existe. "registros" já deve vir ordenado por (data, idLog).
+    public static Path escrever(Path diretorio, List<RegistroLog> registros) throws IOException {
+        RegistroLog primeiro = registros.get(0);
+        Path destino = diretorio.resolve(String.format("logs-%019d-%010d.seg", segundo(primeiro.data()), primeiro.idLog()));
+        Path temporario = diretorio.resolve(destino.getFileName() + ".tmp");
+
+        ByteArrayOutputStream indice = new ByteArrayOutputStream();
+        DataOutputStream saidaIndice = new DataOutputStream(indice);
+        int blocos = 0;
+        long posicao = 0;
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                for (int inicio = 0; inicio < registros.size(); inicio += REGISTROS_POR_BLOCO) {
+                    List<RegistroLog> bloco = registros.subList(inicio, Math.min(inicio + REGISTROS_POR_BLOCO, registros.size()));
+                    byte[] cru = serializar(bloco);
+                    byte[] compactado = comprimir(deflater, cru);
+                    escreverTudo(canal, ByteBuffer.wrap(compactado));
+
+                    saidaIndice.writeLong(segundo(bloco.get(0).data()));
+                    saidaIndice.writeLong(segundo(bloco.get(bloco.size() - 1).data()));
+                    saidaIndice.writeLong(posicao);
+                    saidaIndice.writeInt(compactado.length);
+                    saidaIndice.writeInt(cru.length);
+                    saidaIndice.writeInt(bloco.size());
+                    posicao += compactado.length;
+                    blocos++;
+                }
+            } finally {
+                deflater.end();
+            }
+            ByteBuffer rodape = ByteBuffer.allocate(RODAPE);
+            rodape.putLong(posicao).putInt(blocos).putInt(VERSAO).putInt(MAGICO).flip();
+            escreverTudo(canal, ByteBuffer.wrap(indice.toByteArray()));
+            escreverTudo(canal, rodape);
+            canal.force(true);
+        }
+        return Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] serializar(List<RegistroLog> bloco) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        for (RegistroLog r : bloco) {
+            saida.writeInt(r.idLog());
+            saida.writeLong(segundo(r.data()));
+            saida.writeInt(r.data().getNano());
+            saida.writeInt(r.tipoDeAtividade());
+            saida.writeInt(r.idUsuario() == null ? -1 : r.idUsuario());
+            escreverTexto(saida, r.email());
+            escreverTexto(saida, r.titulo());
+            escreverTexto(saida, r.assunto());
+            escreverTexto(saida, r.descricao());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] comprimir(Deflater deflater, byte[] cru) {
+        deflater.reset();
+        deflater.setInput(cru);
+        deflater.finish();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(64, cru.length / 4));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            saida.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return saida.toByteArray();
+    }
+
+    private static void escreverTudo(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    // Texto com tamanho na frente (-1 = null); writeUTF não serve porque a descrição passa de 64 KB
+    private static void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+        if (texto == null) {
+            saida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+
+    private static String lerTexto(DataInputStream entrada) throws IOException {
+        int tamanho = entrada.readInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // A data vira um número só para ordenar e comparar (o fuso é irrelevante aqui)
+    private static long segundo(LocalDateTime data) {
+        return data.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime deSegundo(long segundo) {
+        return LocalDateTime.ofEpochSecond(segundo, 0, ZoneOffset.UTC);
+    }
+}
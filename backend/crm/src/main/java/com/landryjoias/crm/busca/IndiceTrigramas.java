@@ -0,0 +1,192 @@
+package com.landryjoias.crm.busca;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Índice de trechos para busca "enquanto digita": cada palavra de cada campo entra pelos seus
+// trigramas ("joao" -> joa, oao) e pelos prefixos de 1 e 2 letras. Um termo com 3+ letras pega os
+// candidatos pela interseção dos trigramas dele; com 1 ou 2 letras, pelo prefixo. Os candidatos
+// são conferidos no texto (trigrama dá falso positivo) e pontuados: palavra inteira > começo de
+// palavra > meio de palavra, vezes o peso do campo. Todos os termos precisam aparecer.
+//
+// Não é thread-safe: quem usa guarda com uma trava de leitura/escrita.
+public final class IndiceTrigramas {
+
+    // Campo indexado: texto já normalizado (ver Tokenizador.normalizar) e peso na nota
+    public record Campo(String texto, int peso) {
+    }
+
+    // O que o índice devolve; "dados" é o que o dono guardou junto (título, detalhe...)
+    public record Documento<T>(String chave, List<Campo> campos, T dados) {
+    }
+
+    public record Acerto<T>(Documento<T> documento, double nota) {
+    }
+
+    private final List<Documento<?>> documentos = new ArrayList<>();
+    private final ArrayDeque<Integer> livres = new ArrayDeque<>(); // posições de documentos removidos
+    private final Map<String, Integer> numeroPorChave = new HashMap<>();
+    private final Map<String, Set<Integer>> trigramas = new HashMap<>();
+    private final Map<String, Set<Integer>> prefixos = new HashMap<>();
+
+    public int tamanho() {
+        return numeroPorChave.size();
+    }
+
+    // Inclui ou substitui o documento com a mesma chave
+    public <T> void colocar(String chave, List<Campo> campos, T dados) {
+        remover(chave);
+        // Reaproveita a posição de um removido (a de uma substituição volta na hora), senão a lista
+        // só cresceria com buracos a cada edição
+        Documento<T> documento = new Documento<>(chave, campos, dados);
+        Integer livre = livres.pollFirst();
+        int numero;
+        if (livre != null) {
+            numero = livre;
+            documentos.set(numero, documento);
+        } else {
+            numero = documentos.size();
+            documentos.add(documento);
+        }
+        numeroPorChave.put(chave, numero);
+        for (String grama : gramas(documento, true)) {
+            trigramas.computeIfAbsent(grama, g -> new HashSet<>()).add(numero);
+        }
+        for (String prefixo : gramas(documento, false)) {
+            prefixos.computeIfAbsent(prefixo, p -> new HashSet<>()).add(numero);
+        }
+    }
+
+    public void remover(String chave) {
+        Integer numero = numeroPorChave.remove(chave);
+        if (numero == null) {
+            return;
+        }
+        Documento<?> documento = documentos.set(numero, null);
+        retirar(trigramas, gramas(documento, true), numero);
+        retirar(prefixos, gramas(documento, false), numero);
+        livres.addFirst(numero);
+    }
+
+    // Os "quantos" melhores documentos que contêm todos os termos (e passam no filtro)
+    @SuppressWarnings("unchecked")
+    public <T> List<Acerto<T>> buscar(List<String> termos, int quantos, Predicate<Documento<T>> filtro) {
+        if (termos.isEmpty()) {
+            return List.of();
+        }
+        Set<Integer> candidatos = null;
+        for (String termo : termos) {
+            Set<Integer> doTermo = candidatos(termo);
+            if (candidatos == null) {
+                candidatos = new HashSet<>(doTermo);
+            } else {
+                candidatos.retainAll(doTermo);
+            }
+            if (candidatos.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        Comparator<Acerto<T>> piorPrimeiro = Comparator.<Acerto<T>>comparingDouble(Acerto::nota)
+                .thenComparing(a -> a.documento().chave(), Comparator.reverseOrder());
+        PriorityQueue<Acerto<T>> melhores = new PriorityQueue<>(piorPrimeiro);
+        for (Integer numero : candidatos) {
+            Documento<T> documento = (Documento<T>) documentos.get(numero);
+            if (documento == null || !filtro.test(documento)) {
+                continue;
+            }
+            double nota = 0;
+            for (String termo : termos) {
+                double melhor = 0;
+                for (Campo campo : documento.campos()) {
+                    melhor = Math.max(melhor, campo.peso() * qualidade(campo.texto(), termo));
+                }
+                if (melhor == 0) {
+                    nota = 0;
+                    break;
+                }
+                nota += melhor;
+            }
+            if (nota > 0) {
+                melhores.add(new Acerto<>(documento, nota));
+                if (melhores.size() > quantos) {
+                    melhores.poll();
+                }
+            }
+        }
+        List<Acerto<T>> resultado = new ArrayList<>(melhores);
+        resultado.sort(piorPrimeiro.reversed());
+        return resultado;
+    }
+
+    private Set<Integer> candidatos(String termo) {
+        if (termo.length() < 3) {
+            return prefixos.getOrDefault(termo, Set.of());
+        }
+        Set<Integer> resultado = null;
+        for (int i = 0; i + 3 <= termo.length(); i++) {
+            Set<Integer> comGrama = trigramas.getOrDefault(termo.substring(i, i + 3), Set.of());
+            if (resultado == null) {
+                resultado = new HashSet<>(comGrama);
+            } else {
+                resultado.retainAll(comGrama);
+            }
+            if (resultado.isEmpty()) {
+                break;
+            }
+        }
+        return resultado;
+    }
+
+    // 3 = palavra inteira, 2 = começo de palavra, 1 = meio de palavra, 0 = não contém
+    static int qualidade(String texto, String termo) {
+        int melhor = 0;
+        for (int i = texto.indexOf(termo); i >= 0 && melhor < 3; i = texto.indexOf(termo, i + 1)) {
+            boolean inicio = i == 0 || texto.charAt(i - 1) == ' ';
+            int fimTermo = i + termo.length();
+            boolean fim = fimTermo == texto.length() || texto.charAt(fimTermo) == ' ';
+            melhor = Math.max(melhor, inicio && fim ? 3 : inicio ? 2 : 1);
+        }
+        return melhor;
+    }
+
+    // Trigramas (ou prefixos de 1 e 2 letras) de todas as palavras do documento
+    private static Set<String> gramas(Documento<?> documento, boolean trigrama) {
+        Set<String> gramas = new HashSet<>();
+        for (Campo campo : documento.campos()) {
+            for (String palavra : campo.texto().split(" ")) {
+                if (trigrama) {
+                    for (int i = 0; i + 3 <= palavra.length(); i++) {
+                        gramas.add(palavra.substring(i, i + 3));
+                    }
+                } else if (!palavra.isEmpty()) {
+                    gramas.add(palavra.substring(0, 1));
+                    if (palavra.length() >= 2) {
+                        gramas.add(palavra.substring(0, 2));
+                    }
+                }
+            }
+        }
+        return gramas;
+    }
+
+    private static void retirar(Map<String, Set<Integer>> mapa, Set<String> gramas, Integer numero) {
+        for (String grama : gramas) {
+            Set<Integer> numeros = mapa.get(grama);
+            if (numeros != null) {
+                numeros.remove(numero);
+                if (numeros.isEmpty()) {
+                    mapa.remove(grama);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.landryjoias.crm.busca;
+
+import java.util.Arrays;
+
+// Documentos em que um termo aparece, em ordem crescente, guardados como pares
+// (diferença para o documento anterior, frequência) em varint: a maioria cabe em 1 byte cada,
+// contra 8 bytes de dois int. Só cresce no fim, então o documento novo precisa ser o maior.
+public final class ListaPostings {
+    private byte[] dados = new byte[8];
+    private int tamanho;
+    private int ultimoDocumento = -1;
+    private int quantidade;
+
+    public void adicionar(int documento, int frequencia) {
+        if (documento <= ultimoDocumento) {
+            throw new IllegalArgumentException("Documento fora de ordem: " + documento + " <= " + ultimoDocumento);
+        }
+        escreverVarint(ultimoDocumento < 0 ? documento : documento - ultimoDocumento);
+        escreverVarint(frequencia);
+        ultimoDocumento = documento;
+        quantidade++;
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public int getBytes() {
+        return tamanho;
+    }
+
+    public Leitor leitor() {
+        return new Leitor(dados, tamanho);
+    }
+
+    private void escreverVarint(int valor) {
+        if (tamanho + 5 > dados.length) {
+            dados = Arrays.copyOf(dados, dados.length * 2);
+        }
+        while ((valor & ~0x7F) != 0) {
+            dados[tamanho++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        dados[tamanho++] = (byte) valor;
+    }
+
+    // Percorre a lista do começo; "documento" é -1 antes do primeiro proximo() e depois do fim.
+    // Lê uma cópia do tamanho do momento, então a escrita pode continuar enquanto alguém lê.
+    public static final class Leitor {
+        private final byte[] dados;
+        private final int fim;
+        private int posicao;
+        private int documento = -1;
+        private int frequencia;
+        private boolean acabou;
+
+        private Leitor(byte[] dados, int fim) {
+            this.dados = dados;
+            this.fim = fim;
+        }
+
+        public boolean proximo() {
+            if (posicao >= fim) {
+                acabou = true;
+                documento = -1;
+                return false;
+            }
+            int delta = lerVarint();
+            documento = documento < 0 ? delta : documento + delta;
+            frequencia = lerVarint();
+            return true;
+        }
+
+        // Avança até o primeiro documento >= alvo
+        public boolean avancarAte(int alvo) {
+            while (!acabou && (documento < 0 || documento < alvo)) {
+                if (!proximo()) {
+                    return false;
+                }
+            }
+            return !acabou;
+        }
+
+        public int documento() {
+            return documento;
+        }
+
+        public int frequencia() {
+            return frequencia;
+        }
+
+        private int lerVarint() {
+            int valor = 0;
+            int deslocamento = 0;
+            byte b;
+            do {
+                b = dados[posicao++];
+                valor |= (b & 0x7F) << deslocamento;
+                deslocamento += 7;
+            } while ((b & 0x80) != 0);
+            return valor;
+        }
+    }
+}
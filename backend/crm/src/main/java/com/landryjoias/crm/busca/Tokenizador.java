@@ -0,0 +1,48 @@
+package com.landryjoias.crm.busca;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Quebra texto em termos de busca: sem acento ("descrição" = "descricao"), minúsculo, só letras e
+// dígitos ("Pedido #1234" -> pedido, 1234). Palavras muito comuns do português ficam de fora.
+public final class Tokenizador {
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    private static final int TAMANHO_MAXIMO = 40;
+
+    private static final Set<String> PARADAS = Set.of(
+            "a", "o", "as", "os", "ao", "aos", "de", "da", "do", "das", "dos", "e", "em", "na", "no", "nas", "nos",
+            "um", "uma", "uns", "umas", "para", "pra", "por", "pelo", "pela", "com", "sem", "que", "se", "ou");
+
+    private Tokenizador() {
+    }
+
+    public static String normalizar(String texto) {
+        return ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // Texto inteiro normalizado, com as palavras separadas por um espaço ("Av. São João" -> "av sao joao")
+    public static String texto(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return SEPARADORES.matcher(normalizar(texto)).replaceAll(" ").trim();
+    }
+
+    public static List<String> termos(String texto) {
+        List<String> termos = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return termos;
+        }
+        for (String termo : SEPARADORES.split(normalizar(texto))) {
+            if (!termo.isEmpty() && termo.length() <= TAMANHO_MAXIMO && !PARADAS.contains(termo)) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+}
@@ -0,0 +1,180 @@
+package com.landryjoias.crm.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Cache em memória com limite de tamanho e validade (TTL) por entrada.
+// Quando passa do limite, remove primeiro os vencidos e depois os menos usados recentemente
+// (em bloco de 10%, para não varrer o mapa a cada inserção).
+// As estatísticas seguem os nomes padrão do Micrometer (cache.gets, cache.evictions, ...),
+// então aparecem em /actuator/metrics com a tag cache=<nome>.
+public class CacheComTTL<K, V> {
+
+    private final String nome;
+    private final int capacidade;
+    private final long ttlMillis;
+    private final Map<K, Entrada<V>> mapa = new ConcurrentHashMap<>();
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    private final LongAdder cargas = new LongAdder();
+    private final LongAdder tempoCargaNanos = new LongAdder();
+
+    public CacheComTTL(String nome, int capacidade, long ttl, TimeUnit unidade) {
+        this.nome = nome;
+        this.capacidade = capacidade;
+        this.ttlMillis = unidade.toMillis(ttl);
+    }
+
+    // Read-through: devolve do cache ou chama o carregador. Resultado null não é guardado.
+    public V buscar(K chave, Function<K, V> carregador) {
+        V valor = getSePresente(chave);
+        if (valor != null) {
+            return valor;
+        }
+        long inicio = System.nanoTime();
+        valor = carregador.apply(chave);
+        cargas.increment();
+        tempoCargaNanos.add(System.nanoTime() - inicio);
+        if (valor != null) {
+            guardar(chave, valor);
+        }
+        return valor;
+    }
+
+    // Read-through em lote: acertos saem do cache e as faltas vão numa carga só
+    public Map<K, V> buscarVarios(Collection<K> chaves, Function<Collection<K>, Map<K, V>> carregador) {
+        Map<K, V> encontrados = new HashMap<>();
+        List<K> faltando = new ArrayList<>();
+        for (K chave : chaves) {
+            V valor = getSePresente(chave);
+            if (valor != null) {
+                encontrados.put(chave, valor);
+            } else {
+                faltando.add(chave);
+            }
+        }
+        if (!faltando.isEmpty()) {
+            long inicio = System.nanoTime();
+            Map<K, V> carregados = carregador.apply(faltando);
+            cargas.increment();
+            tempoCargaNanos.add(System.nanoTime() - inicio);
+            carregados.forEach((chave, valor) -> {
+                if (valor != null) {
+                    guardar(chave, valor);
+                    encontrados.put(chave, valor);
+                }
+            });
+        }
+        return encontrados;
+    }
+
+    public V getSePresente(K chave) {
+        Entrada<V> entrada = mapa.get(chave);
+        long agora = System.currentTimeMillis();
+        if (entrada == null || entrada.expiraEm <= agora) {
+            if (entrada != null) {
+                mapa.remove(chave, entrada);
+            }
+            falhas.increment();
+            return null;
+        }
+        entrada.ultimoAcesso = agora;
+        acertos.increment();
+        return entrada.valor;
+    }
+
+    public void guardar(K chave, V valor) {
+        guardar(chave, valor, System.currentTimeMillis() + ttlMillis);
+    }
+
+    // Permite validade própria por entrada (ex.: expiração de um token), limitada ao TTL do cache
+    public void guardar(K chave, V valor, long expiraEmMillis) {
+        long agora = System.currentTimeMillis();
+        long expiraEm = Math.min(expiraEmMillis, agora + ttlMillis);
+        if (expiraEm <= agora) {
+            return;
+        }
+        mapa.put(chave, new Entrada<>(valor, expiraEm, agora));
+        if (mapa.size() > capacidade) {
+            despejar(agora);
+        }
+    }
+
+    public void invalidar(K chave) {
+        mapa.remove(chave);
+    }
+
+    public void invalidarTudo() {
+        mapa.clear();
+    }
+
+    public int tamanho() {
+        return mapa.size();
+    }
+
+    private synchronized void despejar(long agora) {
+        if (mapa.size() <= capacidade) {
+            return;
+        }
+        mapa.entrySet().removeIf(e -> {
+            boolean vencido = e.getValue().expiraEm <= agora;
+            if (vencido) {
+                despejos.increment();
+            }
+            return vencido;
+        });
+        int excesso = mapa.size() - (int) (capacidade * 0.9);
+        if (excesso <= 0) {
+            return;
+        }
+        List<Map.Entry<K, Entrada<V>>> entradas = new ArrayList<>(mapa.entrySet());
+        entradas.sort(Comparator.comparingLong(e -> e.getValue().ultimoAcesso));
+        for (int i = 0; i < excesso && i < entradas.size(); i++) {
+            if (mapa.remove(entradas.get(i).getKey(), entradas.get(i).getValue())) {
+                despejos.increment();
+            }
+        }
+    }
+
+    public void registrarMetricas(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", acertos, LongAdder::sum)
+                .tag("cache", nome).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", falhas, LongAdder::sum)
+                .tag("cache", nome).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", despejos, LongAdder::sum)
+                .tag("cache", nome).register(registry);
+        FunctionCounter.builder("cache.loads", cargas, LongAdder::sum)
+                .tag("cache", nome).register(registry);
+        TimeGauge.builder("cache.load.duration", tempoCargaNanos, TimeUnit.NANOSECONDS, LongAdder::sum)
+                .tag("cache", nome).register(registry);
+        Gauge.builder("cache.size", mapa, Map::size)
+                .tag("cache", nome).register(registry);
+    }
+
+    private static final class Entrada<V> {
+        final V valor;
+        final long expiraEm;
+        volatile long ultimoAcesso;
+
+        Entrada(V valor, long expiraEm, long ultimoAcesso) {
+            this.valor = valor;
+            this.expiraEm = expiraEm;
+            this.ultimoAcesso = ultimoAcesso;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.landryjoias.crm.cache;
+
+import com.landryjoias.crm.entity.Material;
+import com.landryjoias.crm.entity.ProdutosEntity;
+import com.landryjoias.crm.entity.Tamanho;
+import com.landryjoias.crm.entity.TipoPedra;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// --- ÍNDICE DO CATÁLOGO (IMUTÁVEL) ---
+// Cada produto ocupa uma posição (slot). Para cada valor de material, pedra, tamanho e tipo
+// existe um BitSet com os slots que têm aquele valor; a faixa de preço sai de uma busca binária
+// num array de preços ordenado. Filtro combinado = AND dos BitSets.
+// Facetas: a contagem de cada dimensão ignora o filtro da própria dimensão, para a tela mostrar
+// quantos itens cada outra opção traria.
+public final class IndiceCatalogo {
+    public static final String FACETA_MATERIAL = "material";
+    public static final String FACETA_TIPO_PEDRA = "tipoPedra";
+    public static final String FACETA_TAMANHO = "tamanho";
+    public static final String FACETA_TIPO = "tipo";
+    public static final String FACETA_ESTOQUE = "emEstoque";
+
+    public record Filtro(Float precoMin, Float precoMax, Material material, TipoPedra tipoPedra,
+            Tamanho tamanho, String tipo, Boolean emEstoque) {
+    }
+
+    public record Resultado(List<ProdutosEntity> itens, int total, Map<String, Map<String, Integer>> facetas) {
+    }
+
+    private final ProdutosEntity[] produtos;
+    private final float[] precosOrdenados;
+    private final int[] slotPorPreco;
+    private final Map<Material, BitSet> porMaterial = new EnumMap<>(Material.class);
+    private final Map<TipoPedra, BitSet> porTipoPedra = new EnumMap<>(TipoPedra.class);
+    private final Map<Tamanho, BitSet> porTamanho = new EnumMap<>(Tamanho.class);
+    private final Map<String, BitSet> porTipo = new TreeMap<>();
+    private final BitSet emEstoque = new BitSet();
+    private final BitSet semEstoque = new BitSet();
+
+    public static IndiceCatalogo montar(Collection<ProdutosEntity> catalogo) {
+        return new IndiceCatalogo(catalogo);
+    }
+
+    private IndiceCatalogo(Collection<ProdutosEntity> catalogo) {
+        produtos = catalogo.toArray(new ProdutosEntity[0]);
+
+        Integer[] ordem = new Integer[produtos.length];
+        for (int slot = 0; slot < produtos.length; slot++) {
+            ordem[slot] = slot;
+            ProdutosEntity p = produtos[slot];
+            marcar(porMaterial, p.getMaterial(), slot);
+            marcar(porTipoPedra, p.getTipoPedra(), slot);
+            marcar(porTamanho, p.getTamanho(), slot);
+            marcar(porTipo, normalizarTipo(p.getTipo()), slot);
+            (p.getQuantidadeEstoque() > 0 ? emEstoque : semEstoque).set(slot);
+        }
+        Arrays.sort(ordem, Comparator.comparingDouble(slot -> produtos[slot].getValor()));
+
+        precosOrdenados = new float[produtos.length];
+        slotPorPreco = new int[produtos.length];
+        for (int i = 0; i < ordem.length; i++) {
+            slotPorPreco[i] = ordem[i];
+            precosOrdenados[i] = produtos[ordem[i]].getValor();
+        }
+    }
+
+    public int tamanho() {
+        return produtos.length;
+    }
+
+    // Resultado ordenado por preço (crescente), paginado
+    public Resultado buscar(Filtro filtro, int pagina, int limite) {
+        BitSet preco = faixaDePreco(filtro.precoMin(), filtro.precoMax());
+        Map<String, BitSet> restricoes = new LinkedHashMap<>();
+        restricoes.put(FACETA_MATERIAL, filtro.material() == null ? null : postagem(porMaterial, filtro.material()));
+        restricoes.put(FACETA_TIPO_PEDRA, filtro.tipoPedra() == null ? null : postagem(porTipoPedra, filtro.tipoPedra()));
+        restricoes.put(FACETA_TAMANHO, filtro.tamanho() == null ? null : postagem(porTamanho, filtro.tamanho()));
+        String tipo = normalizarTipo(filtro.tipo());
+        restricoes.put(FACETA_TIPO, tipo == null ? null : postagem(porTipo, tipo));
+        restricoes.put(FACETA_ESTOQUE, filtro.emEstoque() == null ? null : (filtro.emEstoque() ? emEstoque : semEstoque));
+
+        BitSet resultado = combinar(preco, restricoes, null);
+
+        List<ProdutosEntity> itens = new ArrayList<>(Math.min(limite, resultado.cardinality()));
+        long pular = (long) pagina * limite; // em long: página alta com limite alto estouraria o int
+        for (int i = 0; i < slotPorPreco.length && itens.size() < limite; i++) {
+            if (resultado.get(slotPorPreco[i]) && pular-- <= 0) {
+                itens.add(produtos[slotPorPreco[i]]);
+            }
+        }
+
+        Map<String, Map<String, Integer>> facetas = new LinkedHashMap<>();
+        facetas.put(FACETA_MATERIAL, contar(porMaterial, combinar(preco, restricoes, FACETA_MATERIAL)));
+        facetas.put(FACETA_TIPO_PEDRA, contar(porTipoPedra, combinar(preco, restricoes, FACETA_TIPO_PEDRA)));
+        facetas.put(FACETA_TAMANHO, contar(porTamanho, combinar(preco, restricoes, FACETA_TAMANHO)));
+        facetas.put(FACETA_TIPO, contar(porTipo, combinar(preco, restricoes, FACETA_TIPO)));
+        BitSet baseEstoque = combinar(preco, restricoes, FACETA_ESTOQUE);
+        Map<String, Integer> estoque = new LinkedHashMap<>();
+        estoque.put("true", intersecao(baseEstoque, emEstoque));
+        estoque.put("false", intersecao(baseEstoque, semEstoque));
+        facetas.put(FACETA_ESTOQUE, estoque);
+
+        return new Resultado(itens, resultado.cardinality(), facetas);
+    }
+
+    // Slots com preço em [min, max], via busca binária no array ordenado
+    private BitSet faixaDePreco(Float min, Float max) {
+        int de = min == null ? 0 : primeiroIndice(min, false);
+        int ate = max == null ? precosOrdenados.length : primeiroIndice(max, true);
+        BitSet faixa = new BitSet(produtos.length);
+        for (int i = de; i < ate; i++) {
+            faixa.set(slotPorPreco[i]);
+        }
+        return faixa;
+    }
+
+    // Primeiro índice com preço >= valor (ou > valor, se "depois" for true)
+    private int primeiroIndice(float valor, boolean depois) {
+        int baixo = 0;
+        int alto = precosOrdenados.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            boolean antes = depois ? precosOrdenados[meio] <= valor : precosOrdenados[meio] < valor;
+            if (antes) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private static BitSet combinar(BitSet preco, Map<String, BitSet> restricoes, String ignorar) {
+        BitSet resultado = (BitSet) preco.clone();
+        restricoes.forEach((dimensao, bits) -> {
+            if (bits != null && !dimensao.equals(ignorar)) {
+                resultado.and(bits);
+            }
+        });
+        return resultado;
+    }
+
+    private static <K> Map<String, Integer> contar(Map<K, BitSet> postagens, BitSet base) {
+        Map<String, Integer> contagem = new LinkedHashMap<>();
+        postagens.forEach((valor, bits) -> contagem.put(valor.toString(), intersecao(base, bits)));
+        return contagem;
+    }
+
+    private static int intersecao(BitSet a, BitSet b) {
+        BitSet copia = (BitSet) a.clone();
+        copia.and(b);
+        return copia.cardinality();
+    }
+
+    private static <K> BitSet postagem(Map<K, BitSet> postagens, K valor) {
+        return postagens.getOrDefault(valor, new BitSet());
+    }
+
+    private static <K> void marcar(Map<K, BitSet> postagens, K valor, int slot) {
+        if (valor != null) {
+            postagens.computeIfAbsent(valor, v -> new BitSet()).set(slot);
+        }
+    }
+
+    private static String normalizarTipo(String tipo) {
+        return tipo == null || tipo.isBlank() ? null : tipo.trim().toLowerCase(Locale.ROOT);
+    }
+}
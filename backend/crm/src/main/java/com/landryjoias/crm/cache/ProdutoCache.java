@@ -0,0 +1,56 @@
+package com.landryjoias.crm.cache;
+
+import com.landryjoias.crm.entity.ProdutosEntity;
+import com.landryjoias.crm.repository.ProdutosRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Produtos por id, para quem monta pedidos sem ir ao banco a cada item.
+// ProdutosService e a procedure de itens chamam invalidar(); o TTL cobre o que muda direto
+// no banco (triggers). Métricas em /actuator/metrics/cache.gets?tag=cache:produto
+@Component
+public class ProdutoCache {
+    private static final int CAPACIDADE = 5_000;
+    private static final long TTL_MINUTOS = 10;
+
+    private final ProdutosRepository produtosRepository;
+    private final CacheComTTL<Integer, ProdutosEntity> cache =
+            new CacheComTTL<>("produto", CAPACIDADE, TTL_MINUTOS, TimeUnit.MINUTES);
+
+    public ProdutoCache(ProdutosRepository produtosRepository, MeterRegistry registry) {
+        this.produtosRepository = produtosRepository;
+        cache.registrarMetricas(registry);
+    }
+
+    public ProdutosEntity buscar(Integer idProduto) {
+        return cache.buscar(idProduto, id -> produtosRepository.findById(id).orElse(null));
+    }
+
+    // Ids que não existem simplesmente não aparecem no mapa
+    public Map<Integer, ProdutosEntity> buscarVarios(Collection<Integer> ids) {
+        return cache.buscarVarios(ids, faltando -> produtosRepository.findAllById(faltando).stream()
+                .collect(Collectors.toMap(ProdutosEntity::getIdProduto, Function.identity())));
+    }
+
+    // Remove já e de novo depois do commit: uma leitura concorrente entre os dois momentos
+    // poderia trazer a versão antiga de volta para o cache.
+    public void invalidar(Integer idProduto) {
+        cache.invalidar(idProduto);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidar(idProduto);
+                }
+            });
+        }
+    }
+}
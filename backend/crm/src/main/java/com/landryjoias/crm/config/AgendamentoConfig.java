@@ -0,0 +1,10 @@
+package com.landryjoias.crm.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Liga os @Scheduled (heartbeat do SSE, tarefas periódicas)
+@Configuration
+@EnableScheduling
+public class AgendamentoConfig {
+}
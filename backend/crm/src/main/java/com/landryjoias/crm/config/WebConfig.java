@@ -1,16 +1,42 @@
 package com.landryjoias.crm.config;
 
+import java.util.concurrent.Callable;
+
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
+    // Timeout (ms) de uma resposta assíncrona específica, posto como atributo da requisição pelo controller
+    public static final String ATRIBUTO_TIMEOUT_ASYNC = WebConfig.class.getName() + ".timeoutAsync";
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**") // Libera para todas as rotas
                 .allowedOrigins("http://localhost:5173") // O endereço do seu Front-end (Vite)
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD", "TRACE", "CONNECT");
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD", "TRACE", "CONNECT");
+    }
+
+    // O timeout padrão continua valendo para todo mundo; quem precisa de mais (ex.: /export e as
+    // listagens em fluxo, que escrevem por vários minutos) pede pelo atributo, lido antes de a
+    // resposta virar assíncrona.
+    // O SSE tem timeout próprio.
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object timeout = request.getAttribute(ATRIBUTO_TIMEOUT_ASYNC, RequestAttributes.SCOPE_REQUEST);
+                if (timeout instanceof Long ms && request instanceof AsyncWebRequest async) {
+                    async.setTimeout(ms);
+                }
+            }
+        });
     }
-}
\ No newline at end of file
+}
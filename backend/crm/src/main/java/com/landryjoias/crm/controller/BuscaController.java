@@ -0,0 +1,27 @@
+package com.landryjoias.crm.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import com.landryjoias.crm.dto.ResultadoBuscaDTO;
+import com.landryjoias.crm.services.BuscaGlobalService;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/busca")
+public class BuscaController {
+    private final BuscaGlobalService buscaGlobalService;
+
+    // Barra de busca: GET /busca?q=joao 1234&tipos=clientes,pedidos&limite=10
+    @GetMapping
+    public ResponseEntity<List<ResultadoBuscaDTO>> buscar(@RequestParam String q,
+            @RequestParam(required = false) List<String> tipos,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(buscaGlobalService.buscar(q, tipos, limite));
+    }
+}
@@ -1,26 +1,33 @@
 package com.landryjoias.crm.controller;
 
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.RequiredArgsConstructor;
 import com.landryjoias.crm.entity.ClienteEntity;
 import com.landryjoias.crm.services.ClienteService;
+import com.landryjoias.crm.services.FluxoJsonService;
 
 @RestController
 @RequiredArgsConstructor // colocando isso não precisa colocar @Autowired no atributo
 @RequestMapping(value = "/clientes")
 public class ClienteController {
     private final ClienteService clienteService;
+    private final FluxoJsonService fluxoJsonService;
 
     @GetMapping
     public ResponseEntity<List<ClienteEntity>> listarTodos() {
@@ -28,6 +35,19 @@ public class ClienteController {
         return ResponseEntity.ok().body(lista);
     }
 
+    // Mesma lista, escrita registro a registro: GET /clientes?stream=true (array JSON)
+    // ou Accept: application/x-ndjson (um objeto por linha)
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> listarTodosEmFluxo(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return fluxoJsonService.responder(clienteService::listarTodosEmFluxo, FluxoJsonService.pedeNdjson(accept));
+    }
+
+    @GetMapping(produces = FluxoJsonService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> listarTodosNdjson() {
+        return fluxoJsonService.responder(clienteService::listarTodosEmFluxo, true);
+    }
+
     @PostMapping
     public ResponseEntity<ClienteEntity> incluir(@RequestBody ClienteEntity cliente) {
         ClienteEntity novo = clienteService.incluir(cliente);
@@ -38,6 +58,16 @@ public class ClienteController {
         }
     }
 
+    // Alteração parcial: só os campos enviados, ex. {"email": "novo@loja.com"}, com o cabeçalho If-Match = etag lida.
+    // 204 + nova ETag; 412 se outra pessoa gravou antes; 428 sem If-Match.
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> atualizarParcial(@PathVariable int id,
+            @RequestBody Map<String, Object> campos,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String etag = clienteService.atualizarParcial(id, campos, ifMatch);
+        return ResponseEntity.noContent().eTag(etag).build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ClienteEntity> editar(@PathVariable int id,
                                                 @RequestBody ClienteEntity cliente) {
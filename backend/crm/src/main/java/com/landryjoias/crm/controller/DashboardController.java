@@ -1,14 +1,25 @@
 package com.landryjoias.crm.controller;
 
-import com.landryjoias.crm.repository.DashboardChartData; // Importe a nova interface
+import com.landryjoias.crm.dto.PontoReceitaDTO;
+import com.landryjoias.crm.dto.SecaoDashboardDTO;
+import com.landryjoias.crm.services.DashboardCompletoService;
 import com.landryjoias.crm.repository.DashboardRepository;
 import com.landryjoias.crm.repository.DashboardSummary;
+import com.landryjoias.crm.services.ReceitaService;
+import com.landryjoias.crm.services.ResumoDashboardService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,10 +30,17 @@ import java.util.Map;
 public class DashboardController {
 
     private final DashboardRepository dashboardRepository;
+    private final ResumoDashboardService resumoDashboardService;
+    private final ReceitaService receitaService;
+    private final DashboardCompletoService dashboardCompletoService;
 
     @GetMapping("/resumo")
     public ResponseEntity<Map<String, Object>> getResumo() {
-        DashboardSummary resumo = dashboardRepository.getResumo();
+        // Fotografia mantida em memória (ver ResumoDashboardService); só cai na view se ainda não montou
+        DashboardSummary resumo = resumoDashboardService.getResumo();
+        if (resumo == null) {
+            resumo = dashboardRepository.getResumo();
+        }
         
         Map<String, Object> response = new HashMap<>();
         
@@ -44,9 +62,37 @@ public class DashboardController {
     }
 
     // --- NOVO ENDPOINT QUE VAI ALIMENTAR O GRÁFICO ---
+    // Mesmo formato de antes ({mes, valor}), agora somado a partir de Receita_Diaria
     @GetMapping("/grafico")
-    public ResponseEntity<List<DashboardChartData>> getGrafico() {
-        List<DashboardChartData> dados = dashboardRepository.getDadosGrafico();
+    public ResponseEntity<List<Map<String, Object>>> getGrafico() {
+        List<Map<String, Object>> dados = new ArrayList<>();
+        for (PontoReceitaDTO ponto : receitaService.seriePorMesCompleta()) {
+            Map<String, Object> mes = new HashMap<>();
+            mes.put("mes", ponto.getInicio().toString().substring(0, 7)); // "2024-11"
+            mes.put("valor", (double) ponto.getValor());
+            dados.add(mes);
+        }
         return ResponseEntity.ok(dados);
     }
-}
\ No newline at end of file
+
+    // Série de receita: GET /dashboard/receita?de=2025-01-01&ate=2025-03-31&granularidade=semana
+    @GetMapping("/receita")
+    public ResponseEntity<List<PontoReceitaDTO>> getReceita(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(defaultValue = "mes") String granularidade) {
+        ReceitaService.Granularidade g;
+        try {
+            g = ReceitaService.Granularidade.valueOf(granularidade.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Granularidade inválida: use dia, semana ou mes.");
+        }
+        return ResponseEntity.ok(receitaService.serie(de, ate, g));
+    }
+
+    // Tudo o que a tela inicial precisa numa chamada só; cada seção traz o próprio status
+    @GetMapping("/completo")
+    public ResponseEntity<Map<String, SecaoDashboardDTO>> getCompleto() {
+        return ResponseEntity.ok(dashboardCompletoService.montar());
+    }
+}
@@ -0,0 +1,24 @@
+package com.landryjoias.crm.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import lombok.RequiredArgsConstructor;
+import com.landryjoias.crm.services.EventosService;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/eventos")
+public class EventosController {
+    private final EventosService eventosService;
+
+    // Eventos "alteracao" com {versao, entidade, id, operacao}; o id do evento SSE é "<epoca>-<versao>".
+    // Um evento "recarregar" avisa que o cliente perdeu eventos (ou o servidor reiniciou) e deve chamar GET /sync.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(name = "Last-Event-ID", required = false) String ultimoId) {
+        return eventosService.assinar(ultimoId);
+    }
+}
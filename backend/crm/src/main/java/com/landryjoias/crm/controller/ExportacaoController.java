@@ -0,0 +1,47 @@
+package com.landryjoias.crm.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import com.landryjoias.crm.config.WebConfig;
+import com.landryjoias.crm.services.ExportacaoService;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/export")
+public class ExportacaoController {
+    // Exportações grandes escrevem por vários minutos; só estas rotas ganham o timeout longo
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final ExportacaoService exportacaoService;
+
+    // GET /export/pedidos?formato=xlsx&colunas=idPedido,data,status,produto,quantidade&status=PAGO&de=2025-01-01
+    // Entidades: clientes, pedidos (uma linha por item), produtos, logs. Sem "colunas", vão todas.
+    @GetMapping("/{entidade}")
+    public ResponseEntity<StreamingResponseBody> exportar(@PathVariable String entidade,
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) List<String> colunas,
+            @RequestParam Map<String, String> parametros,
+            HttpServletRequest request) {
+        ExportacaoService.Exportacao exportacao = exportacaoService.preparar(entidade, formato, colunas, parametros);
+        request.setAttribute(WebConfig.ATRIBUTO_TIMEOUT_ASYNC, TIMEOUT_MS);
+        StreamingResponseBody corpo = saida -> exportacaoService.escrever(exportacao, saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportacao.formato().contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(exportacao.nomeArquivo()).build().toString())
+                .body(corpo);
+    }
+}
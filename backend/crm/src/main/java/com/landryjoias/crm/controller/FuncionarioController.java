@@ -1,15 +1,19 @@
 package com.landryjoias.crm.controller;
 
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import lombok.RequiredArgsConstructor;
@@ -38,6 +42,16 @@ public class FuncionarioController {
         }
     }
 
+    // Alteração parcial: só os campos enviados, ex. {"cargo": "POLIMENTO"}, com o cabeçalho If-Match = etag lida.
+    // 204 + nova ETag; 412 se outra pessoa gravou antes; 428 sem If-Match.
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> atualizarParcial(@PathVariable int id,
+            @RequestBody Map<String, Object> campos,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String etag = funcionarioService.atualizarParcial(id, campos, ifMatch);
+        return ResponseEntity.noContent().eTag(etag).build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<FuncionarioEntity> editar(@PathVariable int id,
             @RequestBody FuncionarioEntity funcionario) {
@@ -1,7 +1,9 @@
 package com.landryjoias.crm.controller;
 
-import java.util.List;
+import java.time.LocalDate;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -10,10 +12,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.RequiredArgsConstructor;
+import com.landryjoias.crm.dto.LogEncontradoDTO;
+import com.landryjoias.crm.dto.PaginaCursorDTO;
 import com.landryjoias.crm.entity.LogEntity;
+import com.landryjoias.crm.services.FluxoJsonService;
+import com.landryjoias.crm.services.IndiceLogService;
 import com.landryjoias.crm.services.LogService;
 
 @RestController
@@ -21,11 +30,45 @@ import com.landryjoias.crm.services.LogService;
 @RequestMapping(value = "/logs")
 public class LogController {
     private final LogService logService;
+    private final FluxoJsonService fluxoJsonService;
+    private final IndiceLogService indiceLogService;
 
+    // Sempre paginado: GET /logs?de=2025-01-01&ate=2025-01-31&usuario=3&assunto=Pedidos
+    //                   &tipoDeAtividade=4&titulo=Exclu&limite=50&cursor=...
+    // Sem "limite" vêm 50 por página. Para a tabela inteira, use ?stream=true.
     @GetMapping
-    public ResponseEntity<List<LogEntity>> listarTodos() {
-        List<LogEntity> lista = logService.listarTodos();
-        return ResponseEntity.ok().body(lista);
+    public ResponseEntity<PaginaCursorDTO<LogEntity>> listarPagina(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(required = false) Integer usuario,
+            @RequestParam(required = false) String assunto,
+            @RequestParam(required = false) Integer tipoDeAtividade,
+            @RequestParam(required = false) String titulo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(logService.listarPagina(de, ate, usuario, assunto, tipoDeAtividade, titulo, cursor, limite));
+    }
+
+    // Mesma lista, escrita registro a registro: GET /logs?stream=true (array JSON)
+    // ou Accept: application/x-ndjson (um objeto por linha)
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> listarTodosEmFluxo(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return fluxoJsonService.responder(logService::listarTodosEmFluxo, FluxoJsonService.pedeNdjson(accept));
+    }
+
+    @GetMapping(produces = FluxoJsonService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> listarTodosNdjson() {
+        return fluxoJsonService.responder(logService::listarTodosEmFluxo, true);
+    }
+
+    // Busca por palavras no título e na descrição, da mais relevante para a menos:
+    // GET /logs/busca?q=pedido 1234&limite=20&cursor=...
+    @GetMapping("/busca")
+    public ResponseEntity<PaginaCursorDTO<LogEncontradoDTO>> buscar(@RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(indiceLogService.buscar(q, cursor, limite));
     }
 
     @PostMapping
@@ -1,18 +1,24 @@
 package com.landryjoias.crm.controller;
 
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import lombok.RequiredArgsConstructor;
+import com.landryjoias.crm.dto.ResultadoTransicaoDTO;
+import com.landryjoias.crm.dto.TransicaoLoteDTO;
 import com.landryjoias.crm.entity.OportunidadesEntity;
 import com.landryjoias.crm.services.OportunidadesService;
 
@@ -38,6 +44,23 @@ public class OportunidadesController {
         }
     }
 
+    // Mudança de estágio em lote: {"ids": [1, 2, 3], "destino": "PROPOSTA"}.
+    // Sempre 200, com o resultado de cada id (alterado, inalterado, transicao_invalida, ...).
+    @PatchMapping("/estagio")
+    public ResponseEntity<List<ResultadoTransicaoDTO>> alterarEstagioEmLote(@RequestBody TransicaoLoteDTO dto) {
+        return ResponseEntity.ok(oportunidadesService.alterarEstagioEmLote(dto));
+    }
+
+    // Alteração parcial: só os campos enviados, ex. {"estagioFunil": "NEGOCIACAO"}, com o cabeçalho If-Match = etag lida.
+    // 204 + nova ETag; 412 se outra pessoa gravou antes; 428 sem If-Match.
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> atualizarParcial(@PathVariable int id,
+            @RequestBody Map<String, Object> campos,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String etag = oportunidadesService.atualizarParcial(id, campos, ifMatch);
+        return ResponseEntity.noContent().eTag(etag).build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<OportunidadesEntity> editar(@PathVariable int id,
                                                       @RequestBody OportunidadesEntity oportunidades) {
@@ -1,19 +1,29 @@
 package com.landryjoias.crm.controller;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import lombok.RequiredArgsConstructor;
 
+import com.landryjoias.crm.dto.PaginaCursorDTO;
 import com.landryjoias.crm.dto.PedidoDTO;
+import com.landryjoias.crm.dto.PedidoResumoDTO;
+import com.landryjoias.crm.dto.ResultadoTransicaoDTO;
+import com.landryjoias.crm.dto.TransicaoLoteDTO;
 import com.landryjoias.crm.entity.PedidosEntity;
 import com.landryjoias.crm.entity.ProdutoPedidoEntity; // Nome Singular (conforme sua classe)
 import com.landryjoias.crm.entity.ProdutoPedidoId;     // A Classe ID que você mandou agora
+import com.landryjoias.crm.entity.StatusPedido;
+import com.landryjoias.crm.services.FluxoJsonService;
 import com.landryjoias.crm.services.PedidosService;
-import com.landryjoias.crm.repository.PedidosRepository;
 import com.landryjoias.crm.repository.Produto_pedidoRepository;
 
 @RestController
@@ -23,12 +33,37 @@ public class PedidosController {
     
     private final PedidosService pedidosService;
     private final Produto_pedidoRepository itensRepository;
-    private final PedidosRepository pedidosRepository;
+    private final FluxoJsonService fluxoJsonService;
     @GetMapping
     public ResponseEntity<List<PedidosEntity>> listarTodos() {
         return ResponseEntity.ok(pedidosService.listarTodos());
     }
 
+    // Mesma lista, escrita registro a registro: GET /pedidos?stream=true (array JSON)
+    // ou Accept: application/x-ndjson (um objeto por linha)
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> listarTodosEmFluxo(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return fluxoJsonService.responder(pedidosService::listarTodosEmFluxo, FluxoJsonService.pedeNdjson(accept));
+    }
+
+    @GetMapping(produces = FluxoJsonService.NDJSON)
+    public ResponseEntity<StreamingResponseBody> listarTodosNdjson() {
+        return fluxoJsonService.responder(pedidosService::listarTodosEmFluxo, true);
+    }
+
+    // Listagem leve e paginada: GET /pedidos/pagina?status=PAGO&de=2025-01-01&limite=50&cursor=...
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaCursorDTO<PedidoResumoDTO>> listarPagina(
+            @RequestParam(required = false) StatusPedido status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(required = false) Integer idCliente,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(pedidosService.listarPagina(status, de, ate, idCliente, cursor, limite));
+    }
+
     @PostMapping
     public ResponseEntity<Object> incluir(@RequestBody PedidoDTO pedidoDto) {
         try {
@@ -38,6 +73,33 @@ public class PedidosController {
         }
     }
 
+    // Criação de vários pedidos numa única transação (pedidos de atacado)
+    @PostMapping("/lote")
+    public ResponseEntity<Object> incluirLote(@RequestBody List<PedidoDTO> pedidosDto) {
+        try {
+            return new ResponseEntity<>(pedidosService.incluirLote(pedidosDto), HttpStatus.CREATED);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao salvar lote: " + e.getMessage());
+        }
+    }
+
+    // Mudança de status em lote: {"ids": [1, 2, 3], "destino": "PRODUCAO"}.
+    // Sempre 200, com o resultado de cada id (alterado, inalterado, transicao_invalida, ...).
+    @PatchMapping("/status")
+    public ResponseEntity<List<ResultadoTransicaoDTO>> alterarStatusEmLote(@RequestBody TransicaoLoteDTO dto) {
+        return ResponseEntity.ok(pedidosService.alterarStatusEmLote(dto));
+    }
+
+    // Alteração parcial: só os campos enviados, ex. {"status": "ENTREGUE"}, com o cabeçalho If-Match = etag lida.
+    // 204 + nova ETag; 412 se outra pessoa gravou antes; 428 sem If-Match.
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> atualizarParcial(@PathVariable int id,
+            @RequestBody Map<String, Object> campos,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String etag = pedidosService.atualizarParcial(id, campos, ifMatch);
+        return ResponseEntity.noContent().eTag(etag).build();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<PedidosEntity> editar(@PathVariable int id, @RequestBody PedidosEntity pedidos) {
         PedidosEntity atualizado = pedidosService.editar(id, pedidos);
@@ -85,6 +147,15 @@ public class PedidosController {
         }
         
     }
+    // Mesmo efeito da procedure, mas o estoque é reservado em memória (produtos disputados)
+    // Body: {"idProduto": 10, "quantidade": 2}. 409 = estoque insuficiente.
+    @PostMapping("/{id}/itens-reservados")
+    public ResponseEntity<Void> adicionarItemComReserva(@PathVariable Integer id,
+            @RequestBody java.util.Map<String, Integer> dados) {
+        pedidosService.adicionarItemComReserva(id, dados.get("idProduto"), dados.get("quantidade"));
+        return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+
     @PostMapping("/{id}/adicionar-procedure")
     public ResponseEntity<String> adicionarItemProcedure(
             @PathVariable Integer id, 
@@ -94,8 +165,8 @@ public class PedidosController {
             Integer idProduto = dados.get("idProduto");
             Integer quantidade = dados.get("quantidade");
 
-            // Chama o método do Repository que roda o EXEC SQL
-            pedidosRepository.adicionarItemViaProcedure(id, idProduto, quantidade);
+            // Roda o EXEC SQL e registra o movimento de estoque numa transação só
+            pedidosService.adicionarItemViaProcedure(id, idProduto, quantidade);
 
             return ResponseEntity.ok("Sucesso! Item adicionado, estoque baixado e total atualizado via Procedure.");
 
@@ -1,13 +1,19 @@
 package com.landryjoias.crm.controller;
 import java.util.List;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.landryjoias.crm.dto.PaginaCursorDTO;
 import com.landryjoias.crm.entity.PerformanceCliente;
-import com.landryjoias.crm.repository.PerformanceClienteRepository;
+import com.landryjoias.crm.services.PerformanceClienteService;
+import com.landryjoias.crm.services.PerformanceClienteService.Foto;
+import com.landryjoias.crm.services.PerformanceClienteService.Ordem;
 
 import lombok.RequiredArgsConstructor;
 
@@ -16,10 +22,40 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class PerformanceClienteController {
 
-    private final PerformanceClienteRepository repository;
+    private final PerformanceClienteService service;
 
+    // Ex.: /relatorios/performance-clientes?ordem=ticketMedio&direcao=asc&limite=100&cursor=100
+    // Last-Modified diz de quando é a foto da view que respondeu
     @GetMapping("/performance-clientes")
-    public ResponseEntity<List<PerformanceCliente>> getRelatorioGeral() {
-        return ResponseEntity.ok(repository.findAll());
+    public ResponseEntity<PaginaCursorDTO<PerformanceCliente>> getRelatorioGeral(
+            @RequestParam(required = false) String ordem,
+            @RequestParam(required = false) String direcao,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        Foto foto = service.getFoto();
+        return ResponseEntity.ok()
+                .lastModified(foto.geradaEm())
+                .body(service.listarPagina(foto, Ordem.de(ordem), crescente(direcao), cursor, limite));
     }
-}
\ No newline at end of file
+
+    // Os N maiores pelo critério escolhido
+    @GetMapping("/performance-clientes/top")
+    public ResponseEntity<List<PerformanceCliente>> getTop(
+            @RequestParam(required = false) String ordem,
+            @RequestParam(defaultValue = "10") int n) {
+        Foto foto = service.getFoto();
+        return ResponseEntity.ok()
+                .lastModified(foto.geradaEm())
+                .body(service.top(foto, Ordem.de(ordem), n));
+    }
+
+    private static boolean crescente(String direcao) {
+        if (direcao == null || direcao.equalsIgnoreCase("desc")) {
+            return false;
+        }
+        if (direcao.equalsIgnoreCase("asc")) {
+            return true;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Direção inválida: use asc ou desc");
+    }
+}
@@ -1,28 +1,43 @@
 package com.landryjoias.crm.controller;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.math.BigDecimal;   
+import java.time.LocalDateTime;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import lombok.RequiredArgsConstructor;
+import com.landryjoias.crm.cache.IndiceCatalogo;
+import com.landryjoias.crm.dto.PaginaCursorDTO;
+import com.landryjoias.crm.dto.ProdutoRecomendadoDTO;
+import com.landryjoias.crm.entity.Material;
+import com.landryjoias.crm.entity.MovimentoEstoqueEntity;
 import com.landryjoias.crm.entity.ProdutosEntity;
+import com.landryjoias.crm.entity.Tamanho;
+import com.landryjoias.crm.entity.TipoPedra;
 import com.landryjoias.crm.services.ProdutosService;
+import com.landryjoias.crm.services.RecomendacaoService;
 
 @RestController
 @RequiredArgsConstructor // colocando isso não precisa colocar @Autowired no atributo
 @RequestMapping(value = "/produtos")
 public class ProdutosController {
     private final ProdutosService produtosService;
+    private final RecomendacaoService recomendacaoService;
 
     @GetMapping
     public ResponseEntity<List<ProdutosEntity>> listarTodos() {
@@ -41,18 +56,67 @@ public class ProdutosController {
         }
  
     }
-    // No ProdutosController.java
+    // Busca facetada no catálogo em memória:
+    // GET /produtos/busca?precoMin=50&precoMax=200&tipoPedra=ZIRCONIA&tamanho=ARO_16&emEstoque=true
+    @GetMapping("/busca")
+    public ResponseEntity<IndiceCatalogo.Resultado> buscar(
+            @RequestParam(required = false) Float precoMin,
+            @RequestParam(required = false) Float precoMax,
+            @RequestParam(required = false) Material material,
+            @RequestParam(required = false) TipoPedra tipoPedra,
+            @RequestParam(required = false) Tamanho tamanho,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) Boolean emEstoque,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "50") int limite) {
+        IndiceCatalogo.Filtro filtro = new IndiceCatalogo.Filtro(precoMin, precoMax, material, tipoPedra, tamanho, tipo, emEstoque);
+        return ResponseEntity.ok(produtosService.buscar(filtro, Math.max(0, pagina), Math.max(1, Math.min(limite, 500))));
+    }
 
-@GetMapping("/filtro-avancado")
-public ResponseEntity<List<Map<String, Object>>> filtrarPorPreco(
-        @RequestParam BigDecimal min, 
-        @RequestParam BigDecimal max) {
-    
-    // Chama o Service, que chama o Repository, que chama a FUNCTION do SQL
-    List<Map<String, Object>> resultado = produtosService.buscarAvancadaPorPreco(min, max);
-    
-    return ResponseEntity.ok(resultado);
-}
+    // Faixa de preço (antes ia à fn_BuscarProdutosPorFaixaPreco; agora sai do índice em memória)
+    @GetMapping("/filtro-avancado")
+    public ResponseEntity<List<ProdutosEntity>> filtrarPorPreco(
+            @RequestParam BigDecimal min,
+            @RequestParam BigDecimal max) {
+        IndiceCatalogo.Filtro filtro = new IndiceCatalogo.Filtro(min.floatValue(), max.floatValue(), null, null, null, null, null);
+        return ResponseEntity.ok(produtosService.buscar(filtro, 0, Integer.MAX_VALUE).itens());
+    }
+
+    // Saldo pelo livro-razão: GET /produtos/10/estoque  ou  /produtos/10/estoque?em=2025-01-31T23:59:59
+    @GetMapping("/{id}/estoque")
+    public ResponseEntity<Map<String, Object>> saldoEstoque(@PathVariable Integer id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime em) {
+        Map<String, Object> saldo = new LinkedHashMap<>();
+        saldo.put("idProduto", id);
+        saldo.put("em", em);
+        saldo.put("quantidade", produtosService.saldoEstoque(id, em));
+        return ResponseEntity.ok(saldo);
+    }
+
+    // Movimentos do produto, do mais recente para o mais antigo (cursor = proximoCursor da página anterior)
+    @GetMapping("/{id}/movimentos")
+    public ResponseEntity<PaginaCursorDTO<MovimentoEstoqueEntity>> movimentos(@PathVariable Integer id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite) {
+        return ResponseEntity.ok(produtosService.movimentos(id, cursor, limite));
+    }
+
+    // Quem comprou este produto também comprou: GET /produtos/10/recomendados?quantos=5 (maior lift primeiro)
+    @GetMapping("/{id}/recomendados")
+    public ResponseEntity<List<ProdutoRecomendadoDTO>> recomendados(@PathVariable Integer id,
+            @RequestParam(required = false) Integer quantos) {
+        return ResponseEntity.ok(recomendacaoService.recomendados(id, quantos));
+    }
+
+    // Alteração parcial: só os campos enviados, ex. {"valor": 129.9}, com o cabeçalho If-Match = etag lida.
+    // 204 + nova ETag; 412 se outra pessoa gravou antes; 428 sem If-Match.
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> atualizarParcial(@PathVariable int id,
+            @RequestBody Map<String, Object> campos,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String etag = produtosService.atualizarParcial(id, campos, ifMatch);
+        return ResponseEntity.noContent().eTag(etag).build();
+    }
 
     @PutMapping("/{id}")
     public ResponseEntity<ProdutosEntity> editar(@PathVariable int id,
@@ -0,0 +1,46 @@
+package com.landryjoias.crm.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.landryjoias.crm.dto.PaginaCursorDTO;
+import com.landryjoias.crm.entity.SegmentoClienteEntity;
+import com.landryjoias.crm.entity.SegmentoRfm;
+import com.landryjoias.crm.services.SegmentacaoRfmService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/relatorios/segmentos")
+@RequiredArgsConstructor
+public class SegmentacaoController {
+
+    private final SegmentacaoRfmService service;
+
+    // Ex.: /relatorios/segmentos?segmento=EM_RISCO&limite=100&cursor=4512
+    @GetMapping
+    public ResponseEntity<PaginaCursorDTO<SegmentoClienteEntity>> listar(
+            @RequestParam(required = false) String segmento,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(service.listarPagina(segmento, cursor, limite));
+    }
+
+    @GetMapping("/resumo")
+    public ResponseEntity<Map<SegmentoRfm, Long>> resumo() {
+        return ResponseEntity.ok(service.resumo());
+    }
+
+    // Força um recálculo sem esperar o agendamento (POST exige token; só o GET de /relatorios é livre)
+    @PostMapping("/recalcular")
+    public ResponseEntity<Map<String, Integer>> recalcular(@RequestParam(defaultValue = "false") boolean completo) {
+        int clientes = completo ? service.recalcularCompleto() : service.recalcularIncremental();
+        return ResponseEntity.ok(Map.of("clientes", clientes));
+    }
+}
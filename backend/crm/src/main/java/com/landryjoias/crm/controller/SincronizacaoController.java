@@ -0,0 +1,23 @@
+package com.landryjoias.crm.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import lombok.RequiredArgsConstructor;
+import com.landryjoias.crm.dto.SincronizacaoDTO;
+import com.landryjoias.crm.services.SincronizacaoService;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(value = "/sync")
+public class SincronizacaoController {
+    private final SincronizacaoService sincronizacaoService;
+
+    // GET /sync?since=0 traz tudo; depois basta mandar a "versao" da última resposta
+    @GetMapping
+    public ResponseEntity<SincronizacaoDTO> alteracoesDesde(@RequestParam(name = "since", defaultValue = "0") long desde) {
+        return ResponseEntity.ok(sincronizacaoService.alteracoesDesde(desde));
+    }
+}
@@ -0,0 +1,15 @@
+package com.landryjoias.crm.dto;
+
+import com.landryjoias.crm.entity.LogEntity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Um resultado da busca textual nos logs, com a nota usada na ordenação (maior = mais relevante)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LogEncontradoDTO {
+    private LogEntity log;
+    private double relevancia;
+}
@@ -0,0 +1,17 @@
+package com.landryjoias.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+// Página de uma listagem por cursor (keyset). O cliente devolve o "proximoCursor"
+// na próxima chamada para continuar de onde parou, sem OFFSET.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaCursorDTO<T> {
+    private List<T> itens;
+    private String proximoCursor; // null quando não há mais páginas
+    private boolean temMais;
+}
@@ -0,0 +1,63 @@
+package com.landryjoias.crm.dto;
+
+import com.landryjoias.crm.entity.StatusPedido;
+import com.landryjoias.crm.entity.Tamanho;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Linha "achatada" da listagem de pedidos: só as colunas que a tela mostra,
+// sem carregar a árvore Pedido -> Oportunidade -> Cliente -> Usuário/Contato.
+@Data
+@NoArgsConstructor
+public class PedidoResumoDTO {
+    private Integer idPedido;
+    private LocalDate data;
+    private Integer valorTotal;
+    private StatusPedido status;
+    private Integer idOportunidade;
+    private String nomeOportunidade;
+    private Integer idCliente;
+    private String nomeCliente;
+    private List<ItemResumoDTO> itens = new ArrayList<>();
+
+    // Usado pelo "SELECT new" do PedidosRepository
+    public PedidoResumoDTO(Integer idPedido, LocalDate data, Integer valorTotal, StatusPedido status,
+            Integer idOportunidade, String nomeOportunidade, Integer idCliente, String nomeCliente) {
+        this.idPedido = idPedido;
+        this.data = data;
+        this.valorTotal = valorTotal;
+        this.status = status;
+        this.idOportunidade = idOportunidade;
+        this.nomeOportunidade = nomeOportunidade;
+        this.idCliente = idCliente;
+        this.nomeCliente = nomeCliente;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class ItemResumoDTO {
+        private Integer idPedido;
+        private Integer idProduto;
+        private String nomeProduto;
+        private Integer quantidade;
+        private float valor;
+        private Tamanho tamanho;
+        private String tamanhoPersonalizado;
+        private String pedra;
+
+        public ItemResumoDTO(Integer idPedido, Integer idProduto, String nomeProduto, Integer quantidade,
+                float valor, Tamanho tamanho, String tamanhoPersonalizado, String pedra) {
+            this.idPedido = idPedido;
+            this.idProduto = idProduto;
+            this.nomeProduto = nomeProduto;
+            this.quantidade = quantidade;
+            this.valor = valor;
+            this.tamanho = tamanho;
+            this.tamanhoPersonalizado = tamanhoPersonalizado;
+            this.pedra = pedra;
+        }
+    }
+}
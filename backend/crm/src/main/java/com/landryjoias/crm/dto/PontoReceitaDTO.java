@@ -0,0 +1,17 @@
+package com.landryjoias.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Um balde da série de receita: "inicio" é o dia, a segunda-feira da semana ou o dia 1 do mês
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PontoReceitaDTO {
+    private LocalDate inicio;
+    private long valor;
+    private int pedidos;
+}
@@ -0,0 +1,17 @@
+package com.landryjoias.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Produto que costuma sair no mesmo pedido que o produto consultado
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProdutoRecomendadoDTO {
+    private Integer idProduto;
+    private String nome;
+    private double lift; // > 1: sai junto mais do que o acaso explicaria
+    private int pedidosJuntos;
+    private double confianca; // fração dos pedidos do produto consultado que também têm este
+}
@@ -0,0 +1,17 @@
+package com.landryjoias.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Um item da busca global (omnibox): o "tipo" diz para qual tela o front navega
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoBuscaDTO {
+    private String tipo; // clientes, produtos, pedidos, funcionarios, contatos (mesmos nomes das rotas)
+    private Integer id;
+    private String titulo;
+    private String detalhe;
+    private double relevancia;
+}
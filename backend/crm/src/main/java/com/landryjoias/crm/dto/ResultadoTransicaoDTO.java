@@ -0,0 +1,22 @@
+package com.landryjoias.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Resultado de um id numa mudança de estado em lote
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoTransicaoDTO {
+    public static final String ALTERADO = "alterado";
+    public static final String INALTERADO = "inalterado";         // já estava no destino
+    public static final String NAO_ENCONTRADO = "nao_encontrado";
+    public static final String TRANSICAO_INVALIDA = "transicao_invalida";
+    public static final String CONFLITO = "conflito";             // mudou por outra operação no meio
+
+    private Integer id;
+    private String resultado;
+    private String de;
+    private String para;
+}
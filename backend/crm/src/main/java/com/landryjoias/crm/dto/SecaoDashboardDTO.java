@@ -0,0 +1,21 @@
+package com.landryjoias.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Uma seção do GET /dashboard/completo. Com status diferente de "ok", "dados" vem null
+// e o front mostra só aquele quadro como indisponível.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SecaoDashboardDTO {
+    public static final String OK = "ok";
+    public static final String TIMEOUT = "timeout";
+    public static final String ERRO = "erro";
+    public static final String RECUSADA = "recusada";
+
+    private String status;
+    private long duracaoMs;
+    private Object dados;
+}
@@ -0,0 +1,31 @@
+package com.landryjoias.crm.dto;
+
+import com.landryjoias.crm.entity.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+// Resposta do GET /sync: só o que mudou desde a versão pedida.
+// O cliente guarda "versao" e manda de volta no próximo ?since=
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SincronizacaoDTO {
+    private long versao;
+    private List<ClienteEntity> clientes;
+    private List<ProdutosEntity> produtos;
+    private List<PedidosEntity> pedidos;
+    private List<OportunidadesEntity> oportunidades;
+    private List<FuncionarioEntity> funcionarios;
+    private List<LogEntity> logs;
+    private List<ExclusaoDTO> exclusoes;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ExclusaoDTO {
+        private String entidade;
+        private Integer id;
+    }
+}
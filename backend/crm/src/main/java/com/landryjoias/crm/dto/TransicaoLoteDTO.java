@@ -0,0 +1,16 @@
+package com.landryjoias.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+// Corpo do PATCH /pedidos/status e /oportunidades/estagio:
+// {"ids": [10, 11, 12], "destino": "PRODUCAO"}
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransicaoLoteDTO {
+    private List<Integer> ids;
+    private String destino;
+}
@@ -1,5 +1,6 @@
 package com.landryjoias.crm.entity;
 
+import java.util.HexFormat;
 import java.util.List;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -7,8 +8,9 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
-@Table(name = "Clientes")
+@Table(name = "Clientes", indexes = @Index(name = "ix_clientes_versao", columnList = "versao_linha"))
 @Entity
 @Getter
 @Setter
@@ -39,4 +41,16 @@ public class ClienteEntity {
     @JsonIgnore 
     @OneToMany(mappedBy = "cliente")
     private List<OportunidadesEntity> oportunidades;
-}
\ No newline at end of file
+
+    // Versão da linha (rowversion do SQL Server): o banco troca sozinho a cada INSERT/UPDATE,
+    // inclusive os feitos por procedures e triggers. É o que o GET /sync compara.
+    @JsonIgnore
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+
+    // A mesma versão em hexa: o cliente devolve no If-Match do PATCH
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getEtag() {
+        return versaoLinha == null ? null : HexFormat.of().formatHex(versaoLinha);
+    }
+}
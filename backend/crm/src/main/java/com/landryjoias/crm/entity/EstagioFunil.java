@@ -6,5 +6,19 @@ public enum EstagioFunil {
     PROPOSTA,
     NEGOCIACAO,
     FECHADA,
-    PERDIDA
+    PERDIDA;
+
+    // Máquina de estados usada nas mudanças em lote (PATCH /oportunidades/estagio).
+    // Avança uma etapa por vez (proposta e negociação podem ir e voltar); pode ser perdida
+    // em qualquer etapa aberta e uma oportunidade perdida pode ser reaberta na prospecção.
+    public boolean podeMudarPara(EstagioFunil destino) {
+        return switch (this) {
+            case PROSPECCAO -> destino == QUALIFICACAO || destino == PERDIDA;
+            case QUALIFICACAO -> destino == PROPOSTA || destino == PERDIDA;
+            case PROPOSTA -> destino == NEGOCIACAO || destino == FECHADA || destino == PERDIDA;
+            case NEGOCIACAO -> destino == PROPOSTA || destino == FECHADA || destino == PERDIDA;
+            case PERDIDA -> destino == PROSPECCAO;
+            case FECHADA -> false;
+        };
+    }
 }
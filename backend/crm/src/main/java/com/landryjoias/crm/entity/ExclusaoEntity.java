@@ -0,0 +1,37 @@
+package com.landryjoias.crm.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+// "Lápide" de um registro apagado, para o GET /sync avisar os clientes da exclusão
+@Table(name = "Exclusoes", indexes = @Index(name = "ix_exclusoes_versao", columnList = "versao_linha"))
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExclusaoEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idExclusao;
+
+    @Column(nullable = false, length = 30)
+    private String entidade; // "clientes", "pedidos", ... (mesmo nome da rota)
+
+    @Column(nullable = false)
+    private Integer idRegistro;
+
+    @Column(nullable = false)
+    private LocalDateTime data;
+
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+
+    public ExclusaoEntity(String entidade, Integer idRegistro) {
+        this.entidade = entidade;
+        this.idRegistro = idRegistro;
+        this.data = LocalDateTime.now();
+    }
+}
@@ -1,13 +1,17 @@
 package com.landryjoias.crm.entity;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+
+import java.util.HexFormat;
 import jakarta.annotation.Nonnull;
 
-@Table(name = "Funcionarios")
+@Table(name = "Funcionarios", indexes = @Index(name = "ix_funcionarios_versao", columnList = "versao_linha"))
 @Entity
 @Getter
 @Setter
@@ -39,4 +43,15 @@ public class FuncionarioEntity {
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "idContato")
     private ContatosEntity contato;
-}
\ No newline at end of file
+
+    // rowversion (ver ClienteEntity)
+    @JsonIgnore
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+
+    // A mesma versão em hexa: o cliente devolve no If-Match do PATCH
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getEtag() {
+        return versaoLinha == null ? null : HexFormat.of().formatHex(versaoLinha);
+    }
+}
@@ -1,6 +1,7 @@
 package com.landryjoias.crm.entity;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -8,7 +9,15 @@ import lombok.Setter;
 import jakarta.annotation.Nonnull;
 import java.time.LocalDateTime;
 
-@Table(name = "Logs")
+// Índices da listagem por cursor (ORDER BY data DESC, idLog DESC): um geral e um por filtro de
+// igualdade, para que "filtro + página" seja uma busca no índice em vez de varrer a tabela
+@Table(name = "Logs", indexes = {
+        @Index(name = "ix_logs_data_id", columnList = "data DESC, idLog DESC"),
+        @Index(name = "ix_logs_usuario_data_id", columnList = "idUsuario, data DESC, idLog DESC"),
+        @Index(name = "ix_logs_assunto_data_id", columnList = "assunto, data DESC, idLog DESC"),
+        @Index(name = "ix_logs_tipo_data_id", columnList = "tipoAtividade, data DESC, idLog DESC"),
+        @Index(name = "ix_logs_titulo", columnList = "titulo"),
+        @Index(name = "ix_logs_versao", columnList = "versao_linha") })
 @Entity
 @Getter
 @Setter
@@ -40,4 +49,9 @@ public class LogEntity {
     @ManyToOne
     @JoinColumn(name = "idUsuario")
     private UsuarioEntity usuario;
-}
\ No newline at end of file
+
+    // rowversion (ver ClienteEntity)
+    @JsonIgnore
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+}
@@ -0,0 +1,39 @@
+package com.landryjoias.crm.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+// Livro-razão do estoque: só recebe INSERT. Linha enxuta (tipo em tinyint, data sem fração);
+// o índice (produto, id) sustenta o "snapshot + cauda", o (produto, data) o histórico e o de
+// pedido a devolução no cancelamento.
+@Table(name = "Movimentos_Estoque", indexes = {
+        @Index(name = "ix_movimentos_produto_id", columnList = "idProduto, idMovimento"),
+        @Index(name = "ix_movimentos_produto_data", columnList = "idProduto, data"),
+        @Index(name = "ix_movimentos_pedido", columnList = "idPedido") })
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class MovimentoEstoqueEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idMovimento;
+
+    @Column(nullable = false)
+    private Integer idProduto;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false, columnDefinition = "tinyint")
+    private TipoMovimento tipo;
+
+    @Column(nullable = false)
+    private int quantidade; // com sinal: saída é negativa
+
+    @Column(nullable = false, columnDefinition = "datetime2(0)")
+    private LocalDateTime data;
+
+    private Integer idPedido;
+}
@@ -6,11 +6,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import java.time.LocalDate;
+import java.util.HexFormat;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
-@Table(name = "Oportunidades")
+@Table(name = "Oportunidades", indexes = @Index(name = "ix_oportunidades_versao", columnList = "versao_linha"))
 @Entity
 @Getter
 @Setter
@@ -40,4 +42,14 @@ public class OportunidadesEntity {
     @OneToOne(mappedBy = "oportunidade")
     private PedidosEntity pedido;
 
+    // rowversion (ver ClienteEntity)
+    @JsonIgnore
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+
+    // A mesma versão em hexa: o cliente devolve no If-Match do PATCH
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getEtag() {
+        return versaoLinha == null ? null : HexFormat.of().formatHex(versaoLinha);
+    }
 }
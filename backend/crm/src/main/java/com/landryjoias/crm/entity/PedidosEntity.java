@@ -1,16 +1,22 @@
 package com.landryjoias.crm.entity;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import java.time.LocalDate;
+import java.util.HexFormat;
 import java.util.List;
 
 import jakarta.annotation.Nonnull;
 
-@Table(name = "Pedidos")
+// Índice que sustenta a listagem por cursor (ORDER BY data DESC, idPedido DESC)
+@Table(name = "Pedidos", indexes = {
+        @Index(name = "ix_pedidos_data_id", columnList = "data DESC, idPedido DESC"),
+        @Index(name = "ix_pedidos_versao", columnList = "versao_linha") })
 @Entity
 @Getter
 @Setter
@@ -38,4 +44,15 @@ public class PedidosEntity {
     // ALTERAÇÃO 2: FetchType.EAGER obriga a trazer os itens junto com o pedido
     @OneToMany(mappedBy = "pedido", fetch = FetchType.EAGER)
     private List<ProdutoPedidoEntity> itens;
-}
\ No newline at end of file
+
+    // rowversion (ver ClienteEntity)
+    @JsonIgnore
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+
+    // A mesma versão em hexa: o cliente devolve no If-Match do PATCH
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getEtag() {
+        return versaoLinha == null ? null : HexFormat.of().formatHex(versaoLinha);
+    }
+}
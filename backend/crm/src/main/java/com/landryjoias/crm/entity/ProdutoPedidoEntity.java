@@ -7,7 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-@Table(name = "Produtos_Pedidos")
+@Table(name = "Produtos_Pedidos", indexes = @Index(name = "ix_produtos_pedidos_versao", columnList = "versao_linha"))
 @Entity
 @Getter
 @Setter
@@ -43,4 +43,9 @@ public class ProdutoPedidoEntity {
 
     @Column(nullable = false)
     private float valor;
-}
\ No newline at end of file
+
+    // rowversion (ver ClienteEntity)
+    @JsonIgnore
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+}
@@ -1,12 +1,16 @@
 package com.landryjoias.crm.entity;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-@Table(name = "Produtos")
+import java.util.HexFormat;
+
+@Table(name = "Produtos", indexes = @Index(name = "ix_produtos_versao", columnList = "versao_linha"))
 @Entity
 @Getter
 @Setter
@@ -50,4 +54,21 @@ public class ProdutosEntity {
     
     @Column(name = "cor_pedra")
     private String corPedra;
-}
\ No newline at end of file
+
+    // Versão otimista: o JPA confere no editar e a gravação em lote do ReservaEstoqueService
+    // incrementa, então um formulário com estoque desatualizado não sobrescreve as reservas.
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long versao;
+
+    // rowversion (ver ClienteEntity)
+    @JsonIgnore
+    @Column(name = "versao_linha", columnDefinition = "rowversion", insertable = false, updatable = false)
+    private byte[] versaoLinha;
+
+    // A mesma versão em hexa: o cliente devolve no If-Match do PATCH
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getEtag() {
+        return versaoLinha == null ? null : HexFormat.of().formatHex(versaoLinha);
+    }
+}
@@ -0,0 +1,25 @@
+package com.landryjoias.crm.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.LocalDate;
+
+// Receita pré-agregada por dia (pedidos não cancelados). Mantida pelo ReceitaService na mesma
+// transação que grava o pedido; semanas e meses são somados a partir daqui.
+@Table(name = "Receita_Diaria")
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ReceitaDiariaEntity {
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private long valor;
+
+    @Column(nullable = false)
+    private int pedidos;
+}
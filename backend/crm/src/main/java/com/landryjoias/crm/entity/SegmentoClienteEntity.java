@@ -0,0 +1,46 @@
+package com.landryjoias.crm.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Resultado da segmentação RFM por cliente. Escrita só pelo SegmentacaoRfmService (por JDBC, em
+// lote); a API apenas lê. Clientes sem pedidos ficam com notas 0 e segmento SEM_COMPRAS.
+@Table(name = "Segmentos_Clientes", indexes = @Index(name = "ix_segmentos_segmento_cliente", columnList = "segmento, id_cliente"))
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class SegmentoClienteEntity {
+    @Id
+    private Integer idCliente;
+
+    private LocalDate ultimaCompra;
+
+    private Integer recenciaDias;
+
+    @Column(nullable = false)
+    private int frequencia;
+
+    @Column(nullable = false)
+    private long monetario;
+
+    @Column(nullable = false)
+    private int notaRecencia;
+
+    @Column(nullable = false)
+    private int notaFrequencia;
+
+    @Column(nullable = false)
+    private int notaMonetario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private SegmentoRfm segmento;
+
+    @Column(nullable = false)
+    private LocalDateTime calculadoEm;
+}
@@ -0,0 +1,34 @@
+package com.landryjoias.crm.entity;
+
+public enum SegmentoRfm {
+    CAMPEOES,
+    LEAIS,
+    PROMISSORES,
+    NOVOS,
+    EM_RISCO,
+    HIBERNANDO,
+    PERDIDOS,
+    SEM_COMPRAS;
+
+    // Notas de 1 (pior) a 5 (melhor) em recência, frequência e valor. Recência decide se o
+    // cliente está ativo; frequência e valor juntos (média) dizem o quanto ele vale.
+    public static SegmentoRfm de(int recencia, int frequencia, int monetario) {
+        int fm = (frequencia + monetario + 1) / 2;
+        if (recencia >= 4 && fm >= 4) {
+            return CAMPEOES;
+        }
+        if (recencia >= 3 && fm >= 3) {
+            return LEAIS;
+        }
+        if (recencia >= 4 && frequencia <= 1) {
+            return NOVOS;
+        }
+        if (recencia >= 3) {
+            return PROMISSORES;
+        }
+        if (fm >= 3) {
+            return EM_RISCO;
+        }
+        return recencia == 2 ? HIBERNANDO : PERDIDOS;
+    }
+}
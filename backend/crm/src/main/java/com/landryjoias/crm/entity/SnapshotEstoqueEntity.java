@@ -0,0 +1,32 @@
+package com.landryjoias.crm.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import java.time.LocalDateTime;
+
+// Saldo de um produto somando todos os movimentos até idMovimento (inclusive).
+// "data" é a do último movimento incluído, para as consultas de saldo numa data.
+@Table(name = "Snapshots_Estoque", indexes = @Index(name = "ix_snapshots_produto_id", columnList = "idProduto, idMovimento"))
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class SnapshotEstoqueEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long idSnapshot;
+
+    @Column(nullable = false)
+    private Integer idProduto;
+
+    @Column(nullable = false)
+    private long idMovimento;
+
+    @Column(nullable = false)
+    private int quantidade;
+
+    @Column(nullable = false, columnDefinition = "datetime2(0)")
+    private LocalDateTime data;
+}
@@ -7,5 +7,18 @@ public enum StatusPedido {
     PRODUCAO, // Faltava este (O erro do log!)
     ENVIADO,
     ENTREGUE,
-    CANCELADO
-}
\ No newline at end of file
+    CANCELADO;
+
+    // Máquina de estados usada nas mudanças em lote (PATCH /pedidos/status).
+    // Cancelar só até entrar em produção; ENTREGUE e CANCELADO são finais.
+    public boolean podeMudarPara(StatusPedido destino) {
+        return switch (this) {
+            case PENDENTE -> destino == CONFIRMADO || destino == PAGO || destino == CANCELADO;
+            case CONFIRMADO -> destino == PAGO || destino == CANCELADO;
+            case PAGO -> destino == PRODUCAO || destino == CANCELADO;
+            case PRODUCAO -> destino == ENVIADO;
+            case ENVIADO -> destino == ENTREGUE;
+            case ENTREGUE, CANCELADO -> false;
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package com.landryjoias.crm.entity;
+
+// Gravado como número (tinyint): não mude a ordem, só acrescente no fim
+public enum TipoMovimento {
+    ENTRADA,      // cadastro ou reposição
+    VENDA,        // saída por pedido
+    AJUSTE,       // correção manual (inventário)
+    CANCELAMENTO  // estoque devolvido
+}
@@ -0,0 +1,12 @@
+package com.landryjoias.crm.eventos;
+
+// Publicado pelos services a cada gravação. Os ouvintes usam @TransactionalEventListener,
+// então só recebem depois do commit (ou na hora, se o método não tiver transação).
+public record EntidadeAlteradaEvent(String entidade, Integer id, Operacao operacao) {
+
+    public enum Operacao {
+        CRIADO,
+        ATUALIZADO,
+        EXCLUIDO
+    }
+}
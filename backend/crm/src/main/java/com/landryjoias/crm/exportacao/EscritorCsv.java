@@ -0,0 +1,64 @@
+package com.landryjoias.crm.exportacao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+
+// CSV no formato que o Excel em português abre direto: UTF-8 com BOM, separador ";" e CRLF.
+// Texto que começa com = + - @ ganha um apóstrofo na frente, para não virar fórmula.
+public class EscritorCsv implements EscritorPlanilha {
+    private static final char SEPARADOR = ';';
+
+    private final Writer saida;
+
+    public EscritorCsv(OutputStream saida) throws IOException {
+        this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        this.saida.write('\uFEFF'); // BOM: o Excel reconhece o UTF-8
+    }
+
+    @Override
+    public void cabecalho(List<String> colunas) throws IOException {
+        linha(colunas.toArray());
+    }
+
+    @Override
+    public void linha(Object[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                saida.write(SEPARADOR);
+            }
+            saida.write(celula(valores[i]));
+        }
+        saida.write("\r\n");
+    }
+
+    private static String celula(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor instanceof Timestamp t) {
+            return t.toLocalDateTime().toString();
+        }
+        if (valor instanceof Number || valor instanceof Boolean) {
+            return valor.toString();
+        }
+        String texto = valor.toString();
+        if (!texto.isEmpty() && "=+-@".indexOf(texto.charAt(0)) >= 0) {
+            texto = "'" + texto;
+        }
+        if (texto.indexOf(SEPARADOR) >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+            return "\"" + texto.replace("\"", "\"\"") + "\"";
+        }
+        return texto;
+    }
+
+    @Override
+    public void close() throws IOException {
+        saida.flush();
+    }
+}
@@ -0,0 +1,13 @@
+package com.landryjoias.crm.exportacao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+// Escreve linhas à medida que chegam, sem guardar nada além do buffer de saída.
+// close() termina o arquivo (rodapé, índice do zip) mas não fecha a resposta HTTP.
+public interface EscritorPlanilha extends Closeable {
+    void cabecalho(List<String> colunas) throws IOException;
+
+    void linha(Object[] valores) throws IOException;
+}
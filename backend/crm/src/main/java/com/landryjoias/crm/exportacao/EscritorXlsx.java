@@ -0,0 +1,148 @@
+package com.landryjoias.crm.exportacao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// XLSX gravado em fluxo: o arquivo é um zip de XMLs, e a planilha é escrita linha a linha
+// direto na entrada do zip (texto como "inlineStr", sem tabela de strings compartilhadas).
+// Quando uma aba chega ao limite do Excel, abre outra com o mesmo cabeçalho. O índice
+// (workbook.xml e afins) só é escrito no fim, quando já se sabe quantas abas existem.
+public class EscritorXlsx implements EscritorPlanilha {
+    static final int LINHAS_POR_ABA = 1_048_576; // limite do Excel, contando o cabeçalho
+
+    private final ZipOutputStream zip;
+    private final Writer saida;
+    private List<String> colunas;
+    private int abas;
+    private int linhaAtual;
+
+    public EscritorXlsx(OutputStream saida) {
+        this.zip = new ZipOutputStream(saida, StandardCharsets.UTF_8);
+        this.saida = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void cabecalho(List<String> colunas) throws IOException {
+        this.colunas = colunas;
+        abrirAba();
+    }
+
+    @Override
+    public void linha(Object[] valores) throws IOException {
+        if (linhaAtual >= LINHAS_POR_ABA) {
+            fecharAba();
+            abrirAba();
+        }
+        escreverLinha(valores);
+    }
+
+    private void abrirAba() throws IOException {
+        abas++;
+        linhaAtual = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + abas + ".xml"));
+        saida.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        escreverLinha(colunas.toArray());
+    }
+
+    private void fecharAba() throws IOException {
+        saida.write("</sheetData></worksheet>");
+        saida.flush();
+        zip.closeEntry();
+    }
+
+    private void escreverLinha(Object[] valores) throws IOException {
+        linhaAtual++;
+        saida.write("<row r=\"");
+        saida.write(Integer.toString(linhaAtual));
+        saida.write("\">");
+        for (Object valor : valores) {
+            if (valor == null) {
+                saida.write("<c/>");
+            } else if (valor instanceof Number) {
+                saida.write("<c><v>");
+                saida.write(valor.toString());
+                saida.write("</v></c>");
+            } else {
+                saida.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                escapar(valor instanceof Timestamp t ? t.toLocalDateTime().toString() : valor.toString());
+                saida.write("</t></is></c>");
+            }
+        }
+        saida.write("</row>");
+    }
+
+    // Escapa o XML e descarta caracteres de controle que o formato não aceita
+    private void escapar(String texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '<' -> saida.write("&lt;");
+                case '>' -> saida.write("&gt;");
+                case '&' -> saida.write("&amp;");
+                case '"' -> saida.write("&quot;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        saida.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (abas == 0) {
+            cabecalho(colunas != null ? colunas : List.of());
+        }
+        fecharAba();
+
+        StringBuilder tipos = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        StringBuilder planilhas = new StringBuilder();
+        StringBuilder relacoes = new StringBuilder();
+        for (int aba = 1; aba <= abas; aba++) {
+            tipos.append("<Override PartName=\"/xl/worksheets/sheet").append(aba)
+                 .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            planilhas.append("<sheet name=\"Dados").append(aba > 1 ? " " + aba : "").append("\" sheetId=\"").append(aba)
+                     .append("\" r:id=\"rId").append(aba).append("\"/>");
+            relacoes.append("<Relationship Id=\"rId").append(aba)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(aba).append(".xml\"/>");
+        }
+        tipos.append("</Types>");
+
+        entrada("[Content_Types].xml", tipos.toString());
+        entrada("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        entrada("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>"
+                + planilhas + "</sheets></workbook>");
+        entrada("xl/_rels/workbook.xml.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + relacoes + "</Relationships>");
+        zip.finish();
+        zip.flush();
+    }
+
+    private void entrada(String nome, String conteudo) throws IOException {
+        zip.putNextEntry(new ZipEntry(nome));
+        saida.write(conteudo);
+        saida.flush();
+        zip.closeEntry();
+    }
+}
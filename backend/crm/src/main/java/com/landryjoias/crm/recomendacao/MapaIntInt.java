@@ -0,0 +1,155 @@
+package com.landryjoias.crm.recomendacao;
+
+// Mapa int -> int com endereçamento aberto (sondagem linear): duas arrays paralelas, sem Integer
+// nem objeto por entrada. A chave 0 marca posição livre, então não é aceita (ids do banco começam
+// em 1). A remoção puxa os vizinhos para trás em vez de deixar lápide, então a tabela não "suja".
+//
+// Não é thread-safe.
+public final class MapaIntInt {
+    private static final float CARGA_MAXIMA = 0.6f;
+
+    private int[] chaves;
+    private int[] valores;
+    private int mascara;
+    private int tamanho;
+
+    public MapaIntInt() {
+        this(4);
+    }
+
+    public MapaIntInt(int esperado) {
+        alocar(capacidadePara(esperado));
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public int buscar(int chave, int padrao) {
+        int i = posicaoDa(chave);
+        return i < 0 ? padrao : valores[i];
+    }
+
+    public void colocar(int chave, int valor) {
+        int i = posicaoDa(chave);
+        if (i >= 0) {
+            valores[i] = valor;
+        } else {
+            inserir(chave, valor);
+        }
+    }
+
+    // Soma "delta" ao valor (ausente = 0) e devolve o resultado; chegando a 0, a chave sai do mapa
+    public int somar(int chave, int delta) {
+        int i = posicaoDa(chave);
+        if (i < 0) {
+            if (delta != 0) {
+                inserir(chave, delta);
+            }
+            return delta;
+        }
+        int valor = valores[i] + delta;
+        if (valor == 0) {
+            apagarEm(i);
+        } else {
+            valores[i] = valor;
+        }
+        return valor;
+    }
+
+    public boolean remover(int chave) {
+        int i = posicaoDa(chave);
+        if (i < 0) {
+            return false;
+        }
+        apagarEm(i);
+        return true;
+    }
+
+    // Percorrer: for (i < capacidade()) { if (chaveEm(i) != 0) ... valorEm(i) }
+    public int capacidade() {
+        return chaves.length;
+    }
+
+    public int chaveEm(int posicao) {
+        return chaves[posicao];
+    }
+
+    public int valorEm(int posicao) {
+        return valores[posicao];
+    }
+
+    private int posicaoDa(int chave) {
+        if (chave == 0) {
+            throw new IllegalArgumentException("Chave 0 é reservada");
+        }
+        for (int i = ideal(chave); ; i = (i + 1) & mascara) {
+            int k = chaves[i];
+            if (k == chave) {
+                return i;
+            }
+            if (k == 0) {
+                return -1;
+            }
+        }
+    }
+
+    private void inserir(int chave, int valor) {
+        if (tamanho + 1 > chaves.length * CARGA_MAXIMA) {
+            crescer();
+        }
+        int i = ideal(chave);
+        while (chaves[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+        tamanho++;
+    }
+
+    // Cada chave seguinte do mesmo bloco que "ainda alcança" o buraco desce para ele
+    private void apagarEm(int posicao) {
+        int livre = posicao;
+        for (int j = (posicao + 1) & mascara; chaves[j] != 0; j = (j + 1) & mascara) {
+            int distanciaDoIdeal = (j - ideal(chaves[j])) & mascara;
+            int distanciaDoLivre = (j - livre) & mascara;
+            if (distanciaDoIdeal >= distanciaDoLivre) {
+                chaves[livre] = chaves[j];
+                valores[livre] = valores[j];
+                livre = j;
+            }
+        }
+        chaves[livre] = 0;
+        valores[livre] = 0;
+        tamanho--;
+    }
+
+    private void crescer() {
+        int[] antigasChaves = chaves;
+        int[] antigosValores = valores;
+        alocar(antigasChaves.length * 2);
+        for (int i = 0; i < antigasChaves.length; i++) {
+            if (antigasChaves[i] != 0) {
+                inserir(antigasChaves[i], antigosValores[i]);
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new int[capacidade];
+        valores = new int[capacidade];
+        mascara = capacidade - 1;
+        tamanho = 0;
+    }
+
+    // Multiplica pela razão áurea para ids sequenciais não formarem blocos contíguos na tabela
+    private int ideal(int chave) {
+        int h = chave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mascara;
+    }
+
+    private static int capacidadePara(int esperado) {
+        int minimo = (int) Math.ceil(Math.max(1, esperado) / CARGA_MAXIMA);
+        return Math.max(8, Integer.highestOneBit(minimo - 1) << 1);
+    }
+}
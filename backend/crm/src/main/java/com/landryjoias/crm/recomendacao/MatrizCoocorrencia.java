@@ -0,0 +1,140 @@
+package com.landryjoias.crm.recomendacao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Matriz esparsa produto x produto: em quantos pedidos cada par apareceu junto. Cada produto tem
+// uma linha (MapaIntInt outro produto -> pedidos juntos) e a contagem de pedidos em que aparece.
+// A cesta (produtos distintos) de cada pedido fica guardada, então recolocar ou tirar um pedido
+// desfaz exatamente o que ele tinha somado.
+//
+// Lift(A, B) = juntos * pedidos / (pedidosCom(A) * pedidosCom(B)): acima de 1, B sai com A mais
+// do que sairia por acaso. Pares vistos poucas vezes dão lift enorme por sorte, por isso o mínimo
+// de pedidos juntos na consulta.
+//
+// Não é thread-safe: quem usa guarda com uma trava de leitura/escrita.
+public final class MatrizCoocorrencia {
+
+    public record Recomendacao(int idProduto, double lift, int pedidosJuntos, double confianca) {
+    }
+
+    private static final Comparator<Recomendacao> PIOR_PRIMEIRO = Comparator.comparingDouble(Recomendacao::lift)
+            .thenComparingInt(Recomendacao::pedidosJuntos)
+            .thenComparing(Comparator.comparingInt(Recomendacao::idProduto).reversed());
+
+    private final MapaIntInt linhaPorProduto = new MapaIntInt();
+    private final List<MapaIntInt> linhas = new ArrayList<>();
+    private int[] pedidosPorLinha = new int[16];
+
+    // Cestas em arrays compactas: a removida é ocupada pela última
+    private final MapaIntInt cestaPorPedido = new MapaIntInt();
+    private int[][] cestas = new int[16][];
+    private int[] pedidoDaCesta = new int[16];
+    private int quantasCestas;
+
+    public int pedidos() {
+        return quantasCestas;
+    }
+
+    public int produtos() {
+        return linhaPorProduto.tamanho();
+    }
+
+    // Inclui ou substitui a cesta do pedido (vazia = tira o pedido)
+    public void colocarPedido(int idPedido, int[] produtos) {
+        removerPedido(idPedido);
+        int[] cesta = Arrays.stream(produtos).filter(p -> p > 0).distinct().sorted().toArray();
+        if (cesta.length == 0) {
+            return;
+        }
+        if (quantasCestas == cestas.length) {
+            cestas = Arrays.copyOf(cestas, quantasCestas * 2);
+            pedidoDaCesta = Arrays.copyOf(pedidoDaCesta, quantasCestas * 2);
+        }
+        cestas[quantasCestas] = cesta;
+        pedidoDaCesta[quantasCestas] = idPedido;
+        cestaPorPedido.colocar(idPedido, quantasCestas++);
+        somarCesta(cesta, 1);
+    }
+
+    public void removerPedido(int idPedido) {
+        int posicao = cestaPorPedido.buscar(idPedido, -1);
+        if (posicao < 0) {
+            return;
+        }
+        somarCesta(cestas[posicao], -1);
+        cestaPorPedido.remover(idPedido);
+        int ultima = --quantasCestas;
+        if (posicao != ultima) {
+            cestas[posicao] = cestas[ultima];
+            pedidoDaCesta[posicao] = pedidoDaCesta[ultima];
+            cestaPorPedido.colocar(pedidoDaCesta[posicao], posicao);
+        }
+        cestas[ultima] = null;
+    }
+
+    // Os "quantos" produtos de maior lift com o produto dado, entre os que saíram juntos com ele
+    // em pelo menos "minimoJuntos" pedidos
+    public List<Recomendacao> recomendados(int idProduto, int quantos, int minimoJuntos) {
+        int linha = linhaPorProduto.buscar(idProduto, -1);
+        if (linha < 0 || pedidosPorLinha[linha] == 0) {
+            return List.of();
+        }
+        MapaIntInt vizinhos = linhas.get(linha);
+        double comA = pedidosPorLinha[linha];
+        PriorityQueue<Recomendacao> melhores = new PriorityQueue<>(PIOR_PRIMEIRO);
+        for (int i = 0; i < vizinhos.capacidade(); i++) {
+            int outro = vizinhos.chaveEm(i);
+            int juntos = vizinhos.valorEm(i);
+            if (outro == 0 || juntos < minimoJuntos) {
+                continue;
+            }
+            double comB = pedidosPorLinha[linhaPorProduto.buscar(outro, -1)];
+            double lift = juntos * (double) quantasCestas / (comA * comB);
+            if (melhores.size() == quantos && lift < melhores.peek().lift()) {
+                continue; // nem entra: evita criar o objeto para a maioria dos vizinhos
+            }
+            melhores.add(new Recomendacao(outro, lift, juntos, juntos / comA));
+            if (melhores.size() > quantos) {
+                melhores.poll();
+            }
+        }
+        List<Recomendacao> resultado = new ArrayList<>(melhores);
+        resultado.sort(PIOR_PRIMEIRO.reversed());
+        return resultado;
+    }
+
+    private void somarCesta(int[] cesta, int delta) {
+        int[] linhasDaCesta = new int[cesta.length];
+        for (int i = 0; i < cesta.length; i++) {
+            linhasDaCesta[i] = linha(cesta[i]);
+            pedidosPorLinha[linhasDaCesta[i]] += delta;
+        }
+        for (int i = 0; i < cesta.length; i++) {
+            MapaIntInt vizinhos = linhas.get(linhasDaCesta[i]);
+            for (int j = 0; j < cesta.length; j++) {
+                if (i != j) {
+                    vizinhos.somar(cesta[j], delta);
+                }
+            }
+        }
+    }
+
+    // Linha do produto, criada na primeira vez (produto sem pedidos fica com linha vazia)
+    private int linha(int idProduto) {
+        int linha = linhaPorProduto.buscar(idProduto, -1);
+        if (linha >= 0) {
+            return linha;
+        }
+        linha = linhas.size();
+        linhas.add(new MapaIntInt());
+        linhaPorProduto.colocar(idProduto, linha);
+        if (linha == pedidosPorLinha.length) {
+            pedidosPorLinha = Arrays.copyOf(pedidosPorLinha, linha * 2);
+        }
+        return linha;
+    }
+}
@@ -1,10 +1,30 @@
 package com.landryjoias.crm.repository;
 
-
-import org.springframework.data.jpa.repository.JpaRepository;
 import com.landryjoias.crm.entity.ClienteEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface ClienteRepository extends JpaRepository<ClienteEntity, Integer> {
+
+    // Linhas criadas/alteradas entre duas versões (GET /sync)
+    @Query(value = "SELECT * FROM Clientes WHERE versao_linha > CAST(:desde AS BINARY(8)) " +
+                   "AND versao_linha < CAST(:limite AS BINARY(8))", nativeQuery = true)
+    List<ClienteEntity> buscarAlteradosDesde(@Param("desde") long desde, @Param("limite") long limite);
+
+    @Query("SELECT c.idCliente FROM ClienteEntity c")
+    List<Integer> buscarIds();
+
+    // Listagem em fluxo (?stream=true / NDJSON): lida em blocos, precisa de transação aberta
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c FROM ClienteEntity c LEFT JOIN FETCH c.usuario LEFT JOIN FETCH c.contato ORDER BY c.idCliente")
+    Stream<ClienteEntity> buscarTodosEmFluxo();
 }
@@ -1,6 +0,0 @@
-package com.landryjoias.crm.repository;
-
-public interface DashboardChartData {
-    String getMes();   // Vai guardar "2024-11", "2024-12"
-    Double getValor(); // Vai guardar o valor vendido nesse mês
-}
\ No newline at end of file
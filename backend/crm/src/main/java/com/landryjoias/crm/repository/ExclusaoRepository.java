@@ -0,0 +1,21 @@
+package com.landryjoias.crm.repository;
+
+import com.landryjoias.crm.entity.ExclusaoEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExclusaoRepository extends JpaRepository<ExclusaoEntity, Long> {
+
+    // Versão até onde todas as transações já terminaram (rowversion < isso está commitado)
+    @Query(value = "SELECT CAST(MIN_ACTIVE_ROWVERSION() AS BIGINT)", nativeQuery = true)
+    long versaoEstavel();
+
+    @Query(value = "SELECT * FROM Exclusoes WHERE versao_linha > CAST(:desde AS BINARY(8)) " +
+                   "AND versao_linha < CAST(:limite AS BINARY(8))", nativeQuery = true)
+    List<ExclusaoEntity> buscarDesde(@Param("desde") long desde, @Param("limite") long limite);
+}
@@ -2,8 +2,17 @@ package com.landryjoias.crm.repository;
 
 import com.landryjoias.crm.entity.FuncionarioEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface FuncionarioRepository extends JpaRepository<FuncionarioEntity, Integer> {
+
+    // Linhas criadas/alteradas entre duas versões (GET /sync)
+    @Query(value = "SELECT * FROM Funcionarios WHERE versao_linha > CAST(:desde AS BINARY(8)) " +
+                   "AND versao_linha < CAST(:limite AS BINARY(8))", nativeQuery = true)
+    List<FuncionarioEntity> buscarAlteradosDesde(@Param("desde") long desde, @Param("limite") long limite);
 }
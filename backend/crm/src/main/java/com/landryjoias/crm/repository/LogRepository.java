@@ -1,9 +1,27 @@
 package com.landryjoias.crm.repository;
 
 import com.landryjoias.crm.entity.LogEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface LogRepository extends JpaRepository<LogEntity, Integer> {
+
+    // Linhas criadas/alteradas entre duas versões (GET /sync)
+    @Query(value = "SELECT * FROM Logs WHERE versao_linha > CAST(:desde AS BINARY(8)) " +
+                   "AND versao_linha < CAST(:limite AS BINARY(8))", nativeQuery = true)
+    List<LogEntity> buscarAlteradosDesde(@Param("desde") long desde, @Param("limite") long limite);
+
+    // Listagem em fluxo (?stream=true / NDJSON): lida em blocos, precisa de transação aberta
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT l FROM LogEntity l LEFT JOIN FETCH l.usuario ORDER BY l.idLog")
+    Stream<LogEntity> buscarTodosEmFluxo();
 }
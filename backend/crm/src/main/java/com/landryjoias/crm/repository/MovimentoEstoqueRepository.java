@@ -0,0 +1,50 @@
+package com.landryjoias.crm.repository;
+
+import com.landryjoias.crm.entity.MovimentoEstoqueEntity;
+import com.landryjoias.crm.entity.TipoMovimento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MovimentoEstoqueRepository extends JpaRepository<MovimentoEstoqueEntity, Long> {
+
+    // Último snapshot + movimentos depois dele (seek no índice produto/id)
+    @Query(value = "SELECT COALESCE(s.quantidade, 0) + COALESCE((SELECT SUM(m.quantidade) FROM Movimentos_Estoque m " +
+                   "    WHERE m.id_produto = :idProduto AND m.id_movimento > COALESCE(s.id_movimento, 0)), 0) " +
+                   "FROM (SELECT 1 AS um) x OUTER APPLY (SELECT TOP 1 quantidade, id_movimento FROM Snapshots_Estoque " +
+                   "    WHERE id_produto = :idProduto ORDER BY id_movimento DESC) s", nativeQuery = true)
+    Integer saldoAtual(@Param("idProduto") Integer idProduto);
+
+    // Mesmo cálculo, parando na data pedida
+    @Query(value = "SELECT COALESCE(s.quantidade, 0) + COALESCE((SELECT SUM(m.quantidade) FROM Movimentos_Estoque m " +
+                   "    WHERE m.id_produto = :idProduto AND m.id_movimento > COALESCE(s.id_movimento, 0) AND m.data <= :em), 0) " +
+                   "FROM (SELECT 1 AS um) x OUTER APPLY (SELECT TOP 1 quantidade, id_movimento FROM Snapshots_Estoque " +
+                   "    WHERE id_produto = :idProduto AND data <= :em ORDER BY id_movimento DESC) s", nativeQuery = true)
+    Integer saldoEm(@Param("idProduto") Integer idProduto, @Param("em") LocalDateTime em);
+
+    // Histórico do mais novo para o mais antigo, por cursor (id)
+    @Query("SELECT m FROM MovimentoEstoqueEntity m WHERE m.idProduto = :idProduto " +
+           "AND (:antesDe IS NULL OR m.idMovimento < :antesDe) ORDER BY m.idMovimento DESC")
+    List<MovimentoEstoqueEntity> buscarHistorico(@Param("idProduto") Integer idProduto, @Param("antesDe") Long antesDe,
+            Pageable pageable);
+
+    // Quanto cada pedido ainda deve ao estoque, por produto: vendas menos o que já foi devolvido
+    interface SaidaPedido {
+        Integer getIdPedido();
+        Integer getIdProduto();
+        Integer getQuantidade();
+    }
+
+    @Query("SELECT m.idPedido AS idPedido, m.idProduto AS idProduto, -SUM(m.quantidade) AS quantidade " +
+           "FROM MovimentoEstoqueEntity m WHERE m.idPedido IN :idsPedidos AND m.tipo IN :tipos " +
+           "GROUP BY m.idPedido, m.idProduto HAVING SUM(m.quantidade) < 0")
+    List<SaidaPedido> buscarSaidasPorPedidos(@Param("idsPedidos") Collection<Integer> idsPedidos,
+            @Param("tipos") Collection<TipoMovimento> tipos);
+}
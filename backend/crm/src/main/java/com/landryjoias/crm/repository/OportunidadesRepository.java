@@ -1,9 +1,37 @@
 package com.landryjoias.crm.repository;
 
 import com.landryjoias.crm.entity.OportunidadesEntity;
+import com.landryjoias.crm.entity.EstagioFunil;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OportunidadesRepository extends JpaRepository<OportunidadesEntity, Integer> {
+
+    // Linhas criadas/alteradas entre duas versões (GET /sync)
+    @Query(value = "SELECT * FROM Oportunidades WHERE versao_linha > CAST(:desde AS BINARY(8)) " +
+                   "AND versao_linha < CAST(:limite AS BINARY(8))", nativeQuery = true)
+    List<OportunidadesEntity> buscarAlteradosDesde(@Param("desde") long desde, @Param("limite") long limite);
+
+    // Só o que o resumo do dashboard precisa de cada oportunidade (id = null traz todas)
+    interface ParcelaResumo {
+        Integer getIdOportunidade();
+        EstagioFunil getEstagioFunil();
+    }
+
+    @Query("SELECT o.idOportunidade AS idOportunidade, o.estagioFunil AS estagioFunil " +
+           "FROM OportunidadesEntity o WHERE (:id IS NULL OR o.idOportunidade = :id)")
+    List<ParcelaResumo> buscarParcelasResumo(@Param("id") Integer id);
+
+    interface ContagemFunil {
+        EstagioFunil getEstagio();
+        long getTotal();
+    }
+
+    @Query("SELECT o.estagioFunil AS estagio, COUNT(o) AS total FROM OportunidadesEntity o GROUP BY o.estagioFunil")
+    List<ContagemFunil> contarPorEstagio();
 }
@@ -1,13 +1,23 @@
 package com.landryjoias.crm.repository;
 
+import com.landryjoias.crm.dto.PedidoResumoDTO;
 import com.landryjoias.crm.entity.PedidosEntity;
+import com.landryjoias.crm.entity.StatusPedido;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface PedidosRepository extends JpaRepository<PedidosEntity, Integer> {
 
@@ -20,4 +30,62 @@ public interface PedidosRepository extends JpaRepository<PedidosEntity, Integer>
             @Param("produtoId") Integer produtoId, 
             @Param("quantidade") Integer quantidade
     );
-}
\ No newline at end of file
+
+    // --- LISTAGEM PAGINADA POR CURSOR (KEYSET) ---
+    // Ordena por (data, idPedido) decrescente e continua a partir do último par devolvido,
+    // então o banco usa o índice em vez de pular linhas com OFFSET.
+    // Projeta direto no DTO: nenhuma entidade (e nenhum EAGER) é carregada.
+    @Query("SELECT new com.landryjoias.crm.dto.PedidoResumoDTO(" +
+           "p.idPedido, p.data, p.valorTotal, p.status, " +
+           "o.idOportunidade, o.nomeOportunidade, c.idCliente, c.nomeDoComercio) " +
+           "FROM PedidosEntity p " +
+           "LEFT JOIN p.oportunidade o " +
+           "LEFT JOIN o.cliente c " +
+           "WHERE (:status IS NULL OR p.status = :status) " +
+           "AND (:de IS NULL OR p.data >= :de) " +
+           "AND (:ate IS NULL OR p.data <= :ate) " +
+           "AND (:idCliente IS NULL OR c.idCliente = :idCliente) " +
+           "AND (:cursorData IS NULL OR p.data < :cursorData " +
+           "     OR (p.data = :cursorData AND p.idPedido < :cursorId)) " +
+           "ORDER BY p.data DESC, p.idPedido DESC")
+    List<PedidoResumoDTO> buscarPagina(
+            @Param("status") StatusPedido status,
+            @Param("de") LocalDate de,
+            @Param("ate") LocalDate ate,
+            @Param("idCliente") Integer idCliente,
+            @Param("cursorData") LocalDate cursorData,
+            @Param("cursorId") Integer cursorId,
+            Pageable limite
+    );
+
+    // Pedidos alterados entre duas versões, contando também itens incluídos/alterados depois (GET /sync)
+    @Query(value = "SELECT * FROM Pedidos p WHERE " +
+                   "(p.versao_linha > CAST(:desde AS BINARY(8)) AND p.versao_linha < CAST(:limite AS BINARY(8))) " +
+                   "OR EXISTS (SELECT 1 FROM Produtos_Pedidos i WHERE i.id_pedido = p.id_pedido " +
+                   "AND i.versao_linha > CAST(:desde AS BINARY(8)) AND i.versao_linha < CAST(:limite AS BINARY(8)))",
+           nativeQuery = true)
+    List<PedidosEntity> buscarAlteradosDesde(@Param("desde") long desde, @Param("limite") long limite);
+
+    // Só o que o resumo do dashboard precisa de cada pedido (id = null traz todos)
+    interface ParcelaResumo {
+        Integer getIdPedido();
+        StatusPedido getStatus();
+        Integer getValorTotal();
+    }
+
+    @Query("SELECT p.idPedido AS idPedido, p.status AS status, p.valorTotal AS valorTotal " +
+           "FROM PedidosEntity p WHERE (:id IS NULL OR p.idPedido = :id)")
+    List<ParcelaResumo> buscarParcelasResumo(@Param("id") Integer id);
+
+    // Dias a recalcular na receita depois de uma mudança de status em lote
+    @Query("SELECT DISTINCT p.data FROM PedidosEntity p WHERE p.idPedido IN :ids AND p.data IS NOT NULL")
+    List<LocalDate> buscarDatas(@Param("ids") List<Integer> ids);
+
+    // Listagem em fluxo (?stream=true / NDJSON): lida em blocos, precisa de transação aberta.
+    // Itens e produtos vêm no mesmo JOIN (são EAGER; sem o fetch seriam duas consultas por pedido).
+    // O ORDER BY pelo id mantém as linhas de um pedido juntas, como o fluxo com coleção exige.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM PedidosEntity p LEFT JOIN FETCH p.oportunidade o LEFT JOIN FETCH o.cliente " +
+           "LEFT JOIN FETCH p.itens i LEFT JOIN FETCH i.produto ORDER BY p.idPedido")
+    Stream<PedidosEntity> buscarTodosEmFluxo();
+}
@@ -5,5 +5,4 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import com.landryjoias.crm.entity.PerformanceCliente;
 
 public interface PerformanceClienteRepository extends JpaRepository<PerformanceCliente, Long> {
-
-}
\ No newline at end of file
+}
@@ -1,10 +1,25 @@
 package com.landryjoias.crm.repository;
 
+import com.landryjoias.crm.dto.PedidoResumoDTO;
 import com.landryjoias.crm.entity.ProdutoPedidoEntity;
 import com.landryjoias.crm.entity.ProdutoPedidoId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface Produto_pedidoRepository extends JpaRepository<ProdutoPedidoEntity, ProdutoPedidoId> {
+
+    // Itens de vários pedidos numa única consulta (usado pela listagem paginada)
+    @Query("SELECT new com.landryjoias.crm.dto.PedidoResumoDTO$ItemResumoDTO(" +
+           "i.id.idPedido, pr.idProduto, pr.nome, i.quantidade, i.valor, " +
+           "i.tamanho, i.tamanhoPersonalizado, i.pedra) " +
+           "FROM ProdutoPedidoEntity i " +
+           "JOIN i.produto pr " +
+           "WHERE i.id.idPedido IN :idsPedidos")
+    List<PedidoResumoDTO.ItemResumoDTO> buscarResumoPorPedidos(@Param("idsPedidos") Collection<Integer> idsPedidos);
 }
@@ -5,14 +5,25 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
 
 public interface ProdutosRepository extends JpaRepository<ProdutosEntity, Integer> {
 
-    // Chamada da FUNCTION SQL (Table-Valued Function)
-    // Retornamos um Map para ser genérico, mas poderia ser mapeado para um DTO
-    @Query(value = "SELECT * FROM fn_BuscarProdutosPorFaixaPreco(:min, :max)", nativeQuery = true)
-    List<Map<String, Object>> buscarPorFaixaDePreco(@Param("min") BigDecimal min, @Param("max") BigDecimal max);
-}
\ No newline at end of file
+    // Linhas criadas/alteradas entre duas versões (GET /sync)
+    @Query(value = "SELECT * FROM Produtos WHERE versao_linha > CAST(:desde AS BINARY(8)) " +
+                   "AND versao_linha < CAST(:limite AS BINARY(8))", nativeQuery = true)
+    List<ProdutosEntity> buscarAlteradosDesde(@Param("desde") long desde, @Param("limite") long limite);
+
+    // Só o que o resumo do dashboard precisa de cada produto (id = null traz todos)
+    interface ParcelaResumo {
+        Integer getIdProduto();
+        int getQuantidadeEstoque();
+    }
+
+    @Query("SELECT p.idProduto AS idProduto, p.quantidadeEstoque AS quantidadeEstoque " +
+           "FROM ProdutosEntity p WHERE (:id IS NULL OR p.idProduto = :id)")
+    List<ParcelaResumo> buscarParcelasResumo(@Param("id") Integer id);
+
+    // Produtos com estoque crítico, do mais urgente para o menos
+    List<ProdutosEntity> findByQuantidadeEstoqueLessThanEqualOrderByQuantidadeEstoqueAsc(int limite);
+}
@@ -0,0 +1,19 @@
+package com.landryjoias.crm.repository;
+
+import com.landryjoias.crm.entity.ReceitaDiariaEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ReceitaDiariaRepository extends JpaRepository<ReceitaDiariaEntity, LocalDate> {
+
+    // Faixa pela chave primária (dia): busca por intervalo, sem varrer a tabela
+    List<ReceitaDiariaEntity> findByDiaBetweenOrderByDiaAsc(LocalDate de, LocalDate ate);
+
+    @Query("SELECT MIN(r.dia) FROM ReceitaDiariaEntity r")
+    LocalDate primeiroDia();
+}
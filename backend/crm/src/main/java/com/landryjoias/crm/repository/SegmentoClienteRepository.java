@@ -0,0 +1,34 @@
+package com.landryjoias.crm.repository;
+
+import com.landryjoias.crm.entity.SegmentoClienteEntity;
+import com.landryjoias.crm.entity.SegmentoRfm;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SegmentoClienteRepository extends JpaRepository<SegmentoClienteEntity, Integer> {
+
+    // Keyset por idCliente (usa ix_segmentos_segmento_cliente quando filtra por segmento)
+    @Query("SELECT s FROM SegmentoClienteEntity s " +
+           "WHERE (:segmento IS NULL OR s.segmento = :segmento) " +
+           "AND (:cursor IS NULL OR s.idCliente > :cursor) " +
+           "ORDER BY s.idCliente")
+    List<SegmentoClienteEntity> buscarPagina(
+            @Param("segmento") SegmentoRfm segmento,
+            @Param("cursor") Integer cursor,
+            Pageable limite
+    );
+
+    interface ContagemSegmento {
+        SegmentoRfm getSegmento();
+        long getTotal();
+    }
+
+    @Query("SELECT s.segmento AS segmento, COUNT(s) AS total FROM SegmentoClienteEntity s GROUP BY s.segmento")
+    List<ContagemSegmento> contarPorSegmento();
+}
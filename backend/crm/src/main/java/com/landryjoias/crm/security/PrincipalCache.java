@@ -0,0 +1,36 @@
+package com.landryjoias.crm.security;
+
+import com.landryjoias.crm.cache.CacheComTTL;
+import com.landryjoias.crm.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Evita o findById em toda requisição autenticada.
+// UsuarioService.editar/excluir chamam invalidar() para a mudança valer na hora;
+// o TTL só cobre alterações feitas direto no banco.
+@Component
+public class PrincipalCache {
+    private static final int CAPACIDADE = 10_000;
+    private static final long TTL_MINUTOS = 5;
+
+    private final UsuarioRepository usuarioRepository;
+    private final CacheComTTL<Integer, UsuarioPrincipal> cache =
+            new CacheComTTL<>("principal", CAPACIDADE, TTL_MINUTOS, TimeUnit.MINUTES);
+
+    public PrincipalCache(UsuarioRepository usuarioRepository, MeterRegistry registry) {
+        this.usuarioRepository = usuarioRepository;
+        cache.registrarMetricas(registry);
+    }
+
+    public UsuarioPrincipal buscar(Integer idUsuario) {
+        return cache.buscar(idUsuario, id -> usuarioRepository.findById(id)
+                .map(UsuarioPrincipal::de)
+                .orElse(null));
+    }
+
+    public void invalidar(Integer idUsuario) {
+        cache.invalidar(idUsuario);
+    }
+}
@@ -3,6 +3,7 @@ package com.landryjoias.crm.security;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import jakarta.servlet.DispatcherType;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -41,9 +42,15 @@ public class SecurityConfig {
                     // ENDPOINTS LIBERADOS
                     req.requestMatchers("/auth/**").permitAll();
                     req.requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").permitAll();
+                    // Segmentos RFM expõem valor gasto e frequência por cliente: só com token
+                    req.requestMatchers("/relatorios/segmentos/**").authenticated();
                     req.requestMatchers(HttpMethod.GET, "/relatorios/**").permitAll();
                     req.requestMatchers(HttpMethod.POST, "/usuarios").permitAll();
+                    // Mudanças de status (PATCH, inclusive em lote) precisam de usuário: vão para a auditoria
+                    req.requestMatchers(HttpMethod.PATCH, "/pedidos/**").authenticated();
                     req.requestMatchers("/pedidos/**").permitAll();
+                    // Reentradas assíncronas do SSE (/eventos/stream) já foram autorizadas na requisição original
+                    req.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
                     // TUDO RESTANTE REQUER TOKEN
                     req.anyRequest().authenticated();
                 })
@@ -60,9 +67,10 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(List.of("*")); 
         
         configuration.setAllowedMethods(
-                Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD", "TRACE", "CONNECT"));
+                Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD", "TRACE", "CONNECT"));
         
         configuration.setAllowedHeaders(List.of("*")); // Permite todos os cabeçalhos
+        configuration.setExposedHeaders(List.of("ETag")); // o front lê a versão devolvida pelo PATCH
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,7 +1,5 @@
 package com.landryjoias.crm.security;
 
-import com.landryjoias.crm.entity.UsuarioEntity;
-import com.landryjoias.crm.repository.UsuarioRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,7 +22,7 @@ public class SecurityFilter extends OncePerRequestFilter {
     private TokenService tokenService;
 
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -33,18 +31,18 @@ public class SecurityFilter extends OncePerRequestFilter {
         var token = recuperarToken(request);
 
         if (token != null) {
-            var valido = tokenService.isTokenValido(token);
-            // LOG PARA DEBUG
+            // Uma verificação só (assinatura + claims); tokens repetidos saem do cache
+            var verificado = tokenService.verificar(token);
 
-            if (valido) {
-                var idUsuario = tokenService.getUsuarioId(token);
-                UsuarioEntity usuario = usuarioRepository.findById(idUsuario).orElse(null);
+            if (verificado.isPresent()) {
+                var idUsuario = verificado.get().idUsuario();
+                UsuarioPrincipal usuario = principalCache.buscar(idUsuario);
 
                 if (usuario != null) {
                     var authorities = Collections
-                            .singletonList(new SimpleGrantedAuthority("ROLE_" + usuario.getNivelAcesso()));
+                            .singletonList(new SimpleGrantedAuthority("ROLE_" + usuario.nivelAcesso()));
 
-                    var authentication = new UsernamePasswordAuthenticationToken(usuario, null, authorities);
+                    var authentication = new UsernamePasswordAuthenticationToken(usuario.paraUsuario(), null, authorities);
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
@@ -54,8 +52,13 @@ public class SecurityFilter extends OncePerRequestFilter {
 
     private String recuperarToken(HttpServletRequest request) {
         var authHeader = request.getHeader("Authorization");
-        if (authHeader == null)
+        if (authHeader == null) {
+            // O EventSource do navegador não envia cabeçalhos: só o stream aceita token na URL
+            if ("/eventos/stream".equals(request.getServletPath())) {
+                return request.getParameter("access_token");
+            }
             return null;
+        }
         return authHeader.replace("Bearer ", "");
     }
 }
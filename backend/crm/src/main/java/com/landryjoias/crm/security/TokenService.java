@@ -1,15 +1,23 @@
 package com.landryjoias.crm.security;
 
+import com.landryjoias.crm.cache.CacheComTTL;
 import com.landryjoias.crm.entity.UsuarioEntity;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class TokenService {
@@ -17,9 +25,32 @@ public class TokenService {
     // --- CORREÇÃO: Chave Fixa e Longa (Deve ter mais de 32 caracteres para HS256) ---
     // Assim o token não morre quando reinicias o servidor
     private static final String SECRET_STRING = "UmaSenhaMuitoSeguraParaOProjetoLandryJoias2025CRM";
-    
+
+    private static final int CAPACIDADE_CACHE = 10_000;
+    private static final long TTL_CACHE_MINUTOS = 10;
+
     private final Key key = Keys.hmacShaKeyFor(SECRET_STRING.getBytes(StandardCharsets.UTF_8));
 
+    // O parser é imutável e thread-safe: monta uma vez só
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // Tokens já conferidos, pela digest SHA-256 (o token em si não fica em memória).
+    // Cada entrada vence junto com o token, então um token expirado nunca sai do cache.
+    private final CacheComTTL<String, TokenVerificado> verificados =
+            new CacheComTTL<>("token", CAPACIDADE_CACHE, TTL_CACHE_MINUTOS, TimeUnit.MINUTES);
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public TokenService(MeterRegistry registry) {
+        verificados.registrarMetricas(registry);
+    }
+
     public String gerarToken(UsuarioEntity usuario) {
         // Validade: 7 dias
         long expirationTime = 1000L * 60 * 60 * 24 * 7; 
@@ -34,21 +65,46 @@ public class TokenService {
                 .compact();
     }
 
-    public Integer getUsuarioId(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token) // Se a chave mudasse, aqui daria erro
-                .getBody();
-        return Integer.parseInt(claims.getSubject());
+    // Confere o token uma vez e devolve tudo o que o filtro precisa.
+    // Vazio se a assinatura não bate, se expirou ou se o token está malformado.
+    public Optional<TokenVerificado> verificar(String token) {
+        String digest = digest(token);
+        TokenVerificado verificado = verificados.getSePresente(digest);
+        if (verificado != null && verificado.expiraEmMillis() > System.currentTimeMillis()) {
+            return Optional.of(verificado);
+        }
+
+        verificado = verificarAssinatura(token);
+        if (verificado != null) {
+            verificados.guardar(digest, verificado, verificado.expiraEmMillis());
+        }
+        return Optional.ofNullable(verificado);
     }
 
-    public boolean isTokenValido(String token) {
+    // Parse + HMAC, sem cache
+    TokenVerificado verificarAssinatura(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody(); // Se a chave mudasse, aqui daria erro
+            long expiraEm = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            return new TokenVerificado(Integer.parseInt(claims.getSubject()),
+                    claims.get("email", String.class), claims.get("nivel", String.class), expiraEm);
         } catch (Exception e) {
-            return false;
+            return null;
         }
     }
-}
\ No newline at end of file
+
+    public Integer getUsuarioId(String token) {
+        return verificar(token)
+                .map(TokenVerificado::idUsuario)
+                .orElseThrow(() -> new IllegalArgumentException("Token inválido"));
+    }
+
+    public boolean isTokenValido(String token) {
+        return verificar(token).isPresent();
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
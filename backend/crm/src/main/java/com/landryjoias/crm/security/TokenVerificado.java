@@ -0,0 +1,5 @@
+package com.landryjoias.crm.security;
+
+// Claims de um token já conferido (assinatura e validade)
+public record TokenVerificado(Integer idUsuario, String email, String nivel, long expiraEmMillis) {
+}
@@ -0,0 +1,22 @@
+package com.landryjoias.crm.security;
+
+import com.landryjoias.crm.entity.NivelAcesso;
+import com.landryjoias.crm.entity.UsuarioEntity;
+
+// O mínimo do usuário que o filtro precisa para autenticar uma requisição
+public record UsuarioPrincipal(Integer idUsuario, String email, NivelAcesso nivelAcesso) {
+
+    static UsuarioPrincipal de(UsuarioEntity usuario) {
+        return new UsuarioPrincipal(usuario.getIdUsuario(), usuario.getEmail(), usuario.getNivelAcesso());
+    }
+
+    // Os services leem o principal como UsuarioEntity (email, nível e id para os logs).
+    // Cada requisição recebe uma cópia nova, fora do Hibernate.
+    UsuarioEntity paraUsuario() {
+        UsuarioEntity usuario = new UsuarioEntity();
+        usuario.setIdUsuario(idUsuario);
+        usuario.setEmail(email);
+        usuario.setNivelAcesso(nivelAcesso);
+        return usuario;
+    }
+}
@@ -0,0 +1,237 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.arquivo.SegmentoLog;
+import com.landryjoias.crm.arquivo.SegmentoLog.RegistroLog;
+import com.landryjoias.crm.entity.LogEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// --- ARQUIVO DE LOGS ---
+// A tabela Logs guarda só os últimos MESES_QUENTES meses. Uma vez por dia as linhas mais antigas
+// vão para segmentos comprimidos em disco (ver SegmentoLog) e só depois saem do banco. A
+// listagem do LogService junta as duas fontes, então a trilha de auditoria continua completa.
+//
+// Se o processo cair entre gravar o segmento e apagar as linhas, elas são arquivadas de novo na
+// próxima rodada; a busca descarta ids repetidos. A exclusão não gera registro no /sync: o
+// cliente só precisa dos logs recentes.
+//
+// O diretório dos segmentos vem de crm.logs.diretorio-arquivo (padrão: arquivo/logs, relativo ao
+// diretório de trabalho do processo). Em produção, aponte para um volume persistente.
+@Service
+public class ArquivoLogService {
+    static final int MESES_QUENTES = 6;
+    private static final int LINHAS_POR_SEGMENTO = 50_000;
+    private static final int TAMANHO_BUSCA = 1_000;
+
+    private static final String SQL_ANTIGOS =
+            "SELECT TOP (" + LINHAS_POR_SEGMENTO + ") l.id_log, l.data, l.tipo_atividade, l.id_usuario, u.email, " +
+            "l.titulo, l.assunto, l.descricao FROM Logs l LEFT JOIN Usuarios u ON u.id_usuario = l.id_usuario " +
+            "WHERE l.data < ? ORDER BY l.data, l.id_log";
+
+    // Mais novo primeiro, igual à listagem
+    static final Comparator<LogEntity> ORDEM = Comparator.comparing(LogEntity::getData)
+            .thenComparing(LogEntity::getIdLog).reversed();
+    private static final Comparator<RegistroLog> ORDEM_CRESCENTE = Comparator.comparing(RegistroLog::data)
+            .thenComparingInt(RegistroLog::idLog);
+
+    // Filtros da listagem (os mesmos do WHERE do LogService), aplicados aos registros do arquivo.
+    // "ate" é exclusivo; o cursor é o último (data, idLog) já entregue.
+    public record Filtro(LocalDateTime de, LocalDateTime ate, Integer idUsuario, String assunto, Integer tipoDeAtividade,
+            String prefixoTitulo, LocalDateTime cursorData, Integer cursorId) {
+
+        boolean aceita(RegistroLog r) {
+            return (de == null || !r.data().isBefore(de))
+                    && (ate == null || r.data().isBefore(ate))
+                    && (idUsuario == null || idUsuario.equals(r.idUsuario()))
+                    && (assunto == null || assunto.equalsIgnoreCase(r.assunto()))
+                    && (tipoDeAtividade == null || tipoDeAtividade == r.tipoDeAtividade())
+                    && (prefixoTitulo == null || (r.titulo() != null
+                            && r.titulo().regionMatches(true, 0, prefixoTitulo, 0, prefixoTitulo.length())))
+                    && (cursorData == null || r.data().isBefore(cursorData)
+                            || (r.data().equals(cursorData) && r.idLog() < cursorId));
+        }
+
+        // Limite superior de tempo para a varredura (o menor entre "ate" e o cursor)
+        LocalDateTime teto() {
+            if (cursorData == null) {
+                return ate;
+            }
+            return ate == null || cursorData.isBefore(ate) ? cursorData : ate;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Path diretorio;
+
+    private final List<SegmentoLog> segmentos = new CopyOnWriteArrayList<>();
+    private volatile LocalDateTime maisRecente; // maior data arquivada (null = nada arquivado)
+
+    public ArquivoLogService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${crm.logs.diretorio-arquivo:arquivo/logs}") String diretorio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.diretorio = Paths.get(diretorio).toAbsolutePath();
+    }
+
+    // --- CARGA ---
+    // Antes dos outros ouvintes da subida: o índice de busca (IndiceLogService) lê os segmentos
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void carregar() {
+        try {
+            Files.createDirectories(diretorio);
+            List<SegmentoLog> abertos = new ArrayList<>();
+            try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "logs-*.seg")) {
+                for (Path arquivo : arquivos) {
+                    try {
+                        abertos.add(SegmentoLog.abrir(arquivo));
+                    } catch (IOException e) {
+                        System.err.println("Segmento de log ignorado: " + e.getMessage());
+                    }
+                }
+            }
+            segmentos.clear();
+            abertos.forEach(this::publicar);
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir arquivo de logs: " + e.getMessage());
+        }
+    }
+
+    public List<SegmentoLog> getSegmentos() {
+        return List.copyOf(segmentos);
+    }
+
+    public LocalDateTime getMaisRecente() {
+        return maisRecente;
+    }
+
+    private void publicar(SegmentoLog segmento) {
+        segmentos.add(segmento);
+        LocalDateTime ultima = segmento.getUltimaData();
+        if (ultima != null && (maisRecente == null || ultima.isAfter(maisRecente))) {
+            maisRecente = ultima;
+        }
+    }
+
+    // --- ARQUIVAMENTO ---
+    @Scheduled(cron = "0 30 3 * * *")
+    public void arquivar() {
+        LocalDateTime corte = LocalDate.now().withDayOfMonth(1).minusMonths(MESES_QUENTES).atStartOfDay();
+        try {
+            Files.createDirectories(diretorio);
+            int arquivadas;
+            do {
+                arquivadas = arquivarLote(corte);
+            } while (arquivadas == LINHAS_POR_SEGMENTO);
+        } catch (Exception e) {
+            System.err.println("Erro ao arquivar logs: " + e.getMessage());
+        }
+    }
+
+    private int arquivarLote(LocalDateTime corte) throws IOException {
+        List<RegistroLog> registros = new ArrayList<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_ANTIGOS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(TAMANHO_BUSCA);
+            ps.setTimestamp(1, Timestamp.valueOf(corte));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            int idUsuario = rs.getInt(4);
+            Integer usuario = rs.wasNull() ? null : idUsuario;
+            registros.add(new RegistroLog(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime(), rs.getInt(3),
+                    usuario, rs.getString(5), rs.getString(6), rs.getString(7), rs.getString(8)));
+        });
+        if (registros.isEmpty()) {
+            return 0;
+        }
+
+        // Primeiro o segmento inteiro no disco, depois o DELETE (pelos ids exatos que foram gravados)
+        SegmentoLog segmento = SegmentoLog.abrir(SegmentoLog.escrever(diretorio, registros));
+        publicar(segmento);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate("DELETE FROM Logs WHERE id_log = ?", registros, TAMANHO_BUSCA,
+                        (ps, r) -> ps.setInt(1, r.idLog())));
+        return registros.size();
+    }
+
+    // --- CONSULTA ---
+    // Até "limite" registros arquivados que passam no filtro, do mais novo para o mais antigo.
+    // Cada segmento é lido de trás para frente e para assim que não puder mais entrar na página.
+    public List<LogEntity> buscar(Filtro filtro, int limite) {
+        PriorityQueue<RegistroLog> melhores = new PriorityQueue<>(ORDEM_CRESCENTE); // o pior fica no topo
+        Set<Integer> vistos = new HashSet<>();
+        for (SegmentoLog segmento : segmentos) {
+            try {
+                segmento.percorrerDecrescente(filtro.de(), filtro.teto(), r -> {
+                    if (melhores.size() >= limite && ORDEM_CRESCENTE.compare(r, melhores.peek()) <= 0) {
+                        return false; // o resto deste segmento é ainda mais antigo
+                    }
+                    if (filtro.aceita(r) && vistos.add(r.idLog())) {
+                        melhores.add(r);
+                        if (melhores.size() > limite) {
+                            melhores.poll();
+                        }
+                    }
+                    return true;
+                });
+            } catch (IOException e) {
+                System.err.println("Erro ao ler " + segmento.getArquivo() + ": " + e.getMessage());
+            }
+        }
+        List<LogEntity> resultado = new ArrayList<>(melhores.size());
+        melhores.forEach(r -> resultado.add(r.paraEntidade()));
+        resultado.sort(ORDEM);
+        return resultado;
+    }
+
+    // Registros arquivados com esses ids, lendo só os blocos entre "de" e "ate"
+    public List<LogEntity> buscarPorIds(Collection<Integer> ids, LocalDateTime de, LocalDateTime ate) {
+        Set<Integer> faltando = new HashSet<>(ids);
+        List<LogEntity> encontrados = new ArrayList<>();
+        for (SegmentoLog segmento : segmentos) {
+            if (faltando.isEmpty()) {
+                break;
+            }
+            try {
+                segmento.percorrerDecrescente(de, ate, r -> {
+                    if (faltando.remove(r.idLog())) {
+                        encontrados.add(r.paraEntidade());
+                    }
+                    return !faltando.isEmpty();
+                });
+            } catch (IOException e) {
+                System.err.println("Erro ao ler " + segmento.getArquivo() + ": " + e.getMessage());
+            }
+        }
+        return encontrados;
+    }
+}
@@ -0,0 +1,214 @@
+package com.landryjoias.crm.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+// --- PATCH COM PRÉ-CONDIÇÃO (If-Match) ---
+// Em vez de carregar a entidade, copiar todos os campos e salvar de novo, o PATCH vira um único
+// "UPDATE ... SET <só os campos enviados> WHERE id = ? AND versaoLinha = ?" (JPQL em massa, sem
+// carregar o grafo). A versão é a rowversion da linha (a mesma do /sync), entregue ao cliente
+// como ETag. Se alguém gravou antes, nenhuma linha casa e a resposta é 412 em vez de
+// sobrescrever a outra edição. Deve rodar dentro da transação do service que chamou.
+@Service
+@RequiredArgsConstructor
+public class AtualizacaoParcialService {
+    private static final HexFormat HEX = HexFormat.of();
+
+    // Campo aceito no PATCH: atributo da entidade e conversão do valor que veio no JSON
+    public record Campo(String atributo, Function<Object, Object> converter) {
+        public static Campo texto(String atributo) {
+            return new Campo(atributo, v -> v == null ? null : v.toString());
+        }
+
+        public static Campo inteiro(String atributo) {
+            return new Campo(atributo, v -> v == null ? null : v instanceof Number n ? n.intValue() : Integer.valueOf(v.toString()));
+        }
+
+        public static Campo decimal(String atributo) {
+            return new Campo(atributo, v -> v == null ? null : v instanceof Number n ? n.floatValue() : Float.valueOf(v.toString()));
+        }
+
+        public static Campo data(String atributo) {
+            return new Campo(atributo, v -> v == null ? null : LocalDate.parse(v.toString()));
+        }
+
+        public static <E extends Enum<E>> Campo enumeracao(String atributo, Class<E> tipo) {
+            return new Campo(atributo, v -> v == null ? null : Enum.valueOf(tipo, v.toString()));
+        }
+    }
+
+    // Campo de estado com transições restritas (status do pedido, estágio do funil): o PATCH
+    // segue a mesma regra do lote em TransicaoLoteService
+    public record Transicao(String atributo, BiPredicate<Object, Object> permitido) {
+        public static <E extends Enum<E>> Transicao de(String atributo, Class<E> tipo, BiPredicate<E, E> permitido) {
+            return new Transicao(atributo, (origem, destino) -> permitido.test(tipo.cast(origem), tipo.cast(destino)));
+        }
+    }
+
+    // Entidade alvo; "setFixo" entra em todo UPDATE (ex.: incrementar a versão JPA do produto)
+    public record Alvo(String entidade, String atributoId, Map<String, Campo> campos, String setFixo, Transicao transicao) {
+        public Alvo(String entidade, String atributoId, Map<String, Campo> campos, String setFixo) {
+            this(entidade, atributoId, campos, setFixo, null);
+        }
+    }
+
+    // Nova ETag e, para cada atributo pedido em "devolver", o valor antes e depois
+    public record Resultado(String etag, Map<String, Object> antes, Map<String, Object> depois) {
+        public boolean mudou(String atributo) {
+            return !Objects.equals(antes.get(atributo), depois.get(atributo));
+        }
+    }
+
+    private final EntityManager entityManager;
+
+    public Resultado aplicar(Alvo alvo, Integer id, Map<String, Object> valores, String ifMatch, String... devolver) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+                    "Envie o cabeçalho If-Match com a ETag recebida na leitura.");
+        }
+        if (valores == null || valores.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nenhum campo para alterar.");
+        }
+        Set<String> desconhecidos = new TreeSet<>(valores.keySet());
+        desconhecidos.removeAll(alvo.campos().keySet());
+        if (!desconhecidos.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Campos não aceitos: " + desconhecidos + ". Permitidos: " + new TreeSet<>(alvo.campos().keySet()));
+        }
+
+        // Versão atual (e valores antigos que o service precisa para efeitos colaterais)
+        // O estado de origem vai junto na mesma leitura, depois dos atributos de "devolver"
+        String[] lidos = devolver;
+        if (alvo.transicao() != null) {
+            lidos = Arrays.copyOf(devolver, devolver.length + 1);
+            lidos[devolver.length] = alvo.transicao().atributo();
+        }
+        Object[] atual = ler(alvo, id, lidos);
+        if (atual == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Registro não encontrado ID: " + id);
+        }
+        byte[] versaoAtual = (byte[]) atual[0];
+        byte[] esperada = versaoDoIfMatch(ifMatch);
+        if (esperada != null && !Arrays.equals(esperada, versaoAtual)) {
+            throw conflito();
+        }
+
+        List<String> sets = new ArrayList<>();
+        Map<String, Object> parametros = new HashMap<>();
+        Map<String, Object> enviados = new LinkedHashMap<>();
+        valores.forEach((nome, valor) -> {
+            Campo campo = alvo.campos().get(nome);
+            Object convertido;
+            try {
+                convertido = campo.converter().apply(valor);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valor inválido para '" + nome + "': " + valor);
+            }
+            String parametro = "p" + parametros.size();
+            sets.add("e." + campo.atributo() + " = :" + parametro);
+            parametros.put(parametro, convertido);
+            enviados.put(campo.atributo(), convertido);
+        });
+        if (alvo.setFixo() != null) {
+            sets.add(alvo.setFixo());
+        }
+
+        // Transição fora da regra: 409, como TRANSICAO_INVALIDA no lote. Vale contra o estado
+        // que acabou de ser lido, que é o mesmo que o UPDATE vai exigir pela versão.
+        Transicao transicao = alvo.transicao();
+        if (transicao != null && enviados.containsKey(transicao.atributo())) {
+            Object origem = atual[lidos.length];
+            Object destino = enviados.get(transicao.atributo());
+            if (!Objects.equals(origem, destino)
+                    && (origem == null || destino == null || !transicao.permitido().test(origem, destino))) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Transição inválida: " + origem + " -> " + destino);
+            }
+        }
+
+        // A condição de versão usa a que acabou de ser lida: se mudou no meio, 0 linhas
+        Query update = entityManager.createQuery("UPDATE " + alvo.entidade() + " e SET " + String.join(", ", sets)
+                + " WHERE e." + alvo.atributoId() + " = :id AND e.versaoLinha = :versao");
+        parametros.forEach(update::setParameter);
+        update.setParameter("id", id);
+        update.setParameter("versao", versaoAtual);
+        int linhas;
+        try {
+            linhas = update.executeUpdate();
+        } catch (DataIntegrityViolationException | jakarta.persistence.PersistenceException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Valor duplicado ou obrigatório ausente.");
+        }
+        if (linhas == 0) {
+            throw conflito();
+        }
+
+        Map<String, Object> antes = new HashMap<>();
+        Map<String, Object> depois = new HashMap<>();
+        for (int i = 0; i < devolver.length; i++) {
+            antes.put(devolver[i], atual[i + 1]);
+            depois.put(devolver[i], enviados.containsKey(devolver[i]) ? enviados.get(devolver[i]) : atual[i + 1]);
+        }
+        Object[] novo = ler(alvo, id);
+        return new Resultado(etag(novo != null ? (byte[]) novo[0] : null), antes, depois);
+    }
+
+    private Object[] ler(Alvo alvo, Integer id, String... atributos) {
+        StringBuilder jpql = new StringBuilder("SELECT e.versaoLinha");
+        for (String atributo : atributos) {
+            jpql.append(", e.").append(atributo);
+        }
+        jpql.append(" FROM ").append(alvo.entidade()).append(" e WHERE e.").append(alvo.atributoId()).append(" = :id");
+        List<?> linhas = entityManager.createQuery(jpql.toString()).setParameter("id", id).getResultList();
+        if (linhas.isEmpty()) {
+            return null;
+        }
+        Object linha = linhas.get(0);
+        return linha instanceof Object[] colunas ? colunas : new Object[] { linha };
+    }
+
+    private static ResponseStatusException conflito() {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "O registro foi alterado por outra pessoa. Recarregue e tente de novo.");
+    }
+
+    // ETag forte: a rowversion em hexa, entre aspas
+    public static String etag(byte[] versaoLinha) {
+        return versaoLinha == null ? null : "\"" + HEX.formatHex(versaoLinha) + "\"";
+    }
+
+    // "*" = qualquer versão (só exige que o registro exista)
+    private static byte[] versaoDoIfMatch(String ifMatch) {
+        String valor = ifMatch.trim();
+        if (valor.equals("*")) {
+            return null;
+        }
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        valor = valor.replace("\"", "");
+        try {
+            return HEX.parseHex(valor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match inválido: " + ifMatch);
+        }
+    }
+}
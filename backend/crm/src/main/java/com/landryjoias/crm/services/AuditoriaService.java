@@ -0,0 +1,266 @@
+package com.landryjoias.crm.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.landryjoias.crm.entity.LogEntity;
+import com.landryjoias.crm.entity.UsuarioEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// --- GRAVADOR CENTRAL DE AUDITORIA ---
+// Os services entregam o LogEntity aqui em vez de fazer logRepository.save dentro da transação.
+// O registro entra numa fila limitada (só depois do commit do negócio) e uma thread de fundo
+// grava em lotes via JDBC batch: ou quando junta LOTE_MAXIMO registros, ou quando o mais antigo
+// do lote espera INTERVALO_MS. Se a fila lotar ou o banco falhar, os registros vão para um
+// arquivo local (uma linha JSON por log) que é regravado no banco quando ele voltar.
+@Service
+public class AuditoriaService {
+    private static final int CAPACIDADE_FILA = 10_000;
+    private static final int LOTE_MAXIMO = 200;
+    private static final long INTERVALO_MS = 2_000;
+    private static final long REPROCESSAR_ARQUIVO_MS = 30_000;
+    private static final long ESPERA_DESLIGAMENTO_MS = 10_000;
+    private static final Path ARQUIVO_PENDENTES = Paths.get("auditoria-pendente.jsonl");
+
+    private static final String SQL_INSERIR_LOG =
+            "INSERT INTO Logs (titulo, tipo_atividade, assunto, descricao, data, id_usuario) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<LogEntity> fila = new ArrayBlockingQueue<>(CAPACIDADE_FILA);
+    private final Object travaArquivo = new Object();
+    private final Thread gravador = new Thread(this::executarGravador, "auditoria-gravador");
+    private volatile boolean ativo = true;
+
+    // Métricas (aparecem em /actuator/metrics/crm.auditoria.*)
+    private final Counter enfileirados;
+    private final Counter gravados;
+    private final Counter lotes;
+    private final Counter filaCheia;     // vezes em que a fila recusou (backpressure)
+    private final Counter derramados;    // registros mandados para o arquivo local
+    private final Counter descartados;   // registros perdidos (nem fila, nem arquivo)
+
+    public AuditoriaService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+
+        this.enfileirados = registry.counter("crm.auditoria.enfileirados");
+        this.gravados = registry.counter("crm.auditoria.gravados");
+        this.lotes = registry.counter("crm.auditoria.lotes");
+        this.filaCheia = registry.counter("crm.auditoria.fila.cheia");
+        this.derramados = registry.counter("crm.auditoria.derramados");
+        this.descartados = registry.counter("crm.auditoria.descartados");
+        Gauge.builder("crm.auditoria.fila.tamanho", fila, BlockingQueue::size).register(registry);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    // Ponto de entrada dos services. Nunca lança exceção nem bloqueia a requisição.
+    public void registrar(LogEntity log) {
+        if (log.getData() == null) {
+            log.setData(LocalDateTime.now());
+        }
+        // Dentro de uma transação: só audita se o negócio realmente for gravado
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enfileirar(log);
+                }
+            });
+        } else {
+            enfileirar(log);
+        }
+    }
+
+    private void enfileirar(LogEntity log) {
+        if (ativo && fila.offer(log)) {
+            enfileirados.increment();
+            return;
+        }
+        filaCheia.increment();
+        derramar(List.of(log));
+    }
+
+    // --- THREAD DE FUNDO ---
+    private void executarGravador() {
+        List<LogEntity> lote = new ArrayList<>(LOTE_MAXIMO);
+        long prazoLote = 0;
+        long proximaReprocessamento = 0;
+
+        while (ativo) {
+            try {
+                long agora = System.currentTimeMillis();
+                long espera = lote.isEmpty() ? INTERVALO_MS : Math.max(0, prazoLote - agora);
+                LogEntity log = fila.poll(espera, TimeUnit.MILLISECONDS);
+                if (log != null) {
+                    if (lote.isEmpty()) {
+                        prazoLote = System.currentTimeMillis() + INTERVALO_MS;
+                    }
+                    lote.add(log);
+                    fila.drainTo(lote, LOTE_MAXIMO - lote.size());
+                }
+
+                agora = System.currentTimeMillis();
+                if (lote.size() >= LOTE_MAXIMO || (!lote.isEmpty() && agora >= prazoLote)) {
+                    gravarOuDerramar(lote);
+                    lote = new ArrayList<>(LOTE_MAXIMO);
+                }
+                if (lote.isEmpty() && agora >= proximaReprocessamento) {
+                    reprocessarArquivo();
+                    proximaReprocessamento = agora + REPROCESSAR_ARQUIVO_MS;
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                System.err.println("Erro no gravador de auditoria: " + e.getMessage());
+            }
+        }
+
+        // Desligando: o que sobrou vai para o banco ou para o arquivo
+        fila.drainTo(lote);
+        if (!lote.isEmpty()) {
+            gravarOuDerramar(lote);
+        }
+    }
+
+    private void gravarOuDerramar(List<LogEntity> lote) {
+        try {
+            gravarNoBanco(lote);
+        } catch (Exception e) {
+            System.err.println("Banco indisponível para auditoria, guardando " + lote.size()
+                    + " registros em " + ARQUIVO_PENDENTES + ": " + e.getMessage());
+            derramar(lote);
+        }
+    }
+
+    private void gravarNoBanco(List<LogEntity> lote) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(SQL_INSERIR_LOG, lote, LOTE_MAXIMO, (ps, log) -> {
+                    ps.setString(1, log.getTitulo());
+                    ps.setInt(2, log.getTipoDeAtividade());
+                    ps.setString(3, log.getAssunto());
+                    ps.setString(4, log.getDescricao());
+                    ps.setTimestamp(5, Timestamp.valueOf(log.getData()));
+                    if (log.getUsuario() != null && log.getUsuario().getIdUsuario() != null) {
+                        ps.setInt(6, log.getUsuario().getIdUsuario());
+                    } else {
+                        ps.setNull(6, Types.INTEGER);
+                    }
+                }));
+        gravados.increment(lote.size());
+        lotes.increment();
+    }
+
+    // --- ARQUIVO LOCAL (SPILL) ---
+    private void derramar(List<LogEntity> logs) {
+        synchronized (travaArquivo) {
+            try (BufferedWriter out = Files.newBufferedWriter(ARQUIVO_PENDENTES, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (LogEntity log : logs) {
+                    out.write(objectMapper.writeValueAsString(LinhaPendente.de(log)));
+                    out.newLine();
+                }
+                derramados.increment(logs.size());
+            } catch (IOException e) {
+                System.err.println("Erro ao guardar auditoria em arquivo, " + logs.size() + " registros perdidos: " + e.getMessage());
+                descartados.increment(logs.size());
+            }
+        }
+    }
+
+    private void reprocessarArquivo() {
+        synchronized (travaArquivo) {
+            if (!Files.exists(ARQUIVO_PENDENTES)) {
+                return;
+            }
+            try {
+                List<LogEntity> pendentes = new ArrayList<>();
+                for (String linha : Files.readAllLines(ARQUIVO_PENDENTES, StandardCharsets.UTF_8)) {
+                    if (!linha.isBlank()) {
+                        pendentes.add(objectMapper.readValue(linha, LinhaPendente.class).paraLog());
+                    }
+                }
+                if (!pendentes.isEmpty()) {
+                    gravarNoBanco(pendentes);
+                }
+                Files.delete(ARQUIVO_PENDENTES);
+            } catch (Exception e) {
+                // Banco ainda fora: mantém o arquivo e tenta de novo no próximo ciclo
+            }
+        }
+    }
+
+    @PreDestroy
+    void desligar() {
+        ativo = false;
+        try {
+            gravador.join(ESPERA_DESLIGAMENTO_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Se o gravador não terminou a tempo, não perde o que ficou na fila
+        List<LogEntity> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        if (!restantes.isEmpty()) {
+            derramar(restantes);
+        }
+    }
+
+    // Formato de uma linha do arquivo de pendentes (só o id do usuário, não a entidade)
+    record LinhaPendente(String titulo, int tipoDeAtividade, String assunto, String descricao,
+            LocalDateTime data, Integer idUsuario) {
+
+        static LinhaPendente de(LogEntity log) {
+            Integer idUsuario = log.getUsuario() != null ? log.getUsuario().getIdUsuario() : null;
+            return new LinhaPendente(log.getTitulo(), log.getTipoDeAtividade(), log.getAssunto(),
+                    log.getDescricao(), log.getData(), idUsuario);
+        }
+
+        LogEntity paraLog() {
+            LogEntity log = new LogEntity();
+            log.setTitulo(titulo);
+            log.setTipoDeAtividade(tipoDeAtividade);
+            log.setAssunto(assunto);
+            log.setDescricao(descricao);
+            log.setData(data);
+            if (idUsuario != null) {
+                UsuarioEntity usuario = new UsuarioEntity();
+                usuario.setIdUsuario(idUsuario);
+                log.setUsuario(usuario);
+            }
+            return log;
+        }
+    }
+}
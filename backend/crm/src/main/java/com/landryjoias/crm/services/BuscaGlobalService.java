@@ -0,0 +1,295 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.busca.IndiceTrigramas;
+import com.landryjoias.crm.busca.IndiceTrigramas.Campo;
+import com.landryjoias.crm.busca.Tokenizador;
+import com.landryjoias.crm.dto.ResultadoBuscaDTO;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// --- BUSCA GLOBAL (OMNIBOX) ---
+// Um índice em memória com clientes, produtos, pedidos, funcionários e contatos, para a barra de
+// busca achar qualquer coisa sem o front baixar todas as tabelas. Montado na subida e mantido
+// pelos mesmos eventos que os services já publicam em cada gravação (só depois do commit):
+// a cada evento relemos só a linha alterada (e o que depende dela) com uma projeção JPQL.
+//
+// Carga e releituras rodam numa thread própria, uma de cada vez e na ordem em que chegaram: quem
+// gravou não espera as consultas do índice, e uma releitura nunca é atropelada por uma anterior.
+@Service
+@RequiredArgsConstructor
+public class BuscaGlobalService {
+    static final int LIMITE_PADRAO = 10;
+    static final int LIMITE_MAXIMO = 50;
+    // Contatos não entram no /sync; o nome só identifica o evento publicado pelo ContatosService
+    public static final String CONTATOS = "contatos";
+
+    private static final Set<String> TIPOS = Set.of(SincronizacaoService.CLIENTES, SincronizacaoService.PRODUTOS,
+            SincronizacaoService.PEDIDOS, SincronizacaoService.FUNCIONARIOS, CONTATOS);
+
+    // Peso de cada campo na nota: o nome principal conta mais que os documentos e contatos
+    private static final int PESO_NOME = 3;
+    private static final int PESO_DOCUMENTO = 2;
+    private static final int PESO_OUTROS = 1;
+
+    private static final String JPQL_CLIENTES =
+            "SELECT c.idCliente, c.nomeDoComercio, c.CNPJ, c.email FROM ClienteEntity c";
+    private static final String JPQL_PRODUTOS =
+            "SELECT p.idProduto, p.nome, p.descricao FROM ProdutosEntity p";
+    private static final String JPQL_FUNCIONARIOS =
+            "SELECT f.idFuncionario, f.nome, f.cpf, f.email FROM FuncionarioEntity f";
+    private static final String JPQL_PEDIDOS =
+            "SELECT p.idPedido, c.nomeDoComercio, p.data, p.status FROM PedidosEntity p " +
+            "LEFT JOIN p.oportunidade o LEFT JOIN o.cliente c";
+    // O contato aparece com o nome de quem é dono dele
+    private static final String JPQL_CONTATOS =
+            "SELECT ct.idContato, ct.cidade, ct.telefone, c.nomeDoComercio, f.nome FROM ContatosEntity ct " +
+            "LEFT JOIN ClienteEntity c ON c.contato = ct LEFT JOIN FuncionarioEntity f ON f.contato = ct";
+
+    private final EntityManager entityManager;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final IndiceTrigramas indice = new IndiceTrigramas(); // protegido pela trava
+    private final ExecutorService atualizacao = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "busca-global");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // O que vai junto de cada documento no índice
+    private record Item(String tipo, Integer id, String titulo, String detalhe) {
+    }
+
+    // --- CARGA ---
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        enfileirar(this::carregarTudo);
+    }
+
+    private void carregarTudo() {
+        try {
+            carregarClientes(null);
+            carregarProdutos(null);
+            carregarFuncionarios(null);
+            carregarPedidos(null, null);
+            carregarContatos(null);
+        } catch (Exception e) {
+            System.err.println("Erro ao montar busca global: " + e.getMessage());
+        }
+    }
+
+    // --- ATUALIZAÇÃO INCREMENTAL ---
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterar(EntidadeAlteradaEvent alteracao) {
+        enfileirar(() -> aplicar(alteracao));
+    }
+
+    private void enfileirar(Runnable tarefa) {
+        try {
+            atualizacao.execute(tarefa);
+        } catch (RejectedExecutionException e) {
+            // desligando
+        }
+    }
+
+    @PreDestroy
+    void desligar() {
+        atualizacao.shutdownNow();
+    }
+
+    private void aplicar(EntidadeAlteradaEvent alteracao) {
+        Integer id = alteracao.id();
+        boolean excluido = alteracao.operacao() == Operacao.EXCLUIDO;
+        try {
+            switch (alteracao.entidade()) {
+                case SincronizacaoService.CLIENTES -> {
+                    if (excluido) {
+                        remover(SincronizacaoService.CLIENTES, id);
+                    } else {
+                        carregarClientes(id);
+                        carregarContatosDoDono("ClienteEntity", "idCliente", id);
+                    }
+                    carregarPedidos(null, id); // os pedidos mostram o nome do cliente
+                }
+                case SincronizacaoService.PRODUTOS -> {
+                    if (excluido) remover(SincronizacaoService.PRODUTOS, id); else carregarProdutos(id);
+                }
+                case SincronizacaoService.FUNCIONARIOS -> {
+                    if (excluido) {
+                        remover(SincronizacaoService.FUNCIONARIOS, id);
+                    } else {
+                        carregarFuncionarios(id);
+                        carregarContatosDoDono("FuncionarioEntity", "idFuncionario", id);
+                    }
+                }
+                case SincronizacaoService.PEDIDOS -> {
+                    if (excluido) remover(SincronizacaoService.PEDIDOS, id); else carregarPedidos(id, null);
+                }
+                // A oportunidade liga o pedido ao cliente
+                case SincronizacaoService.OPORTUNIDADES -> {
+                    if (!excluido) {
+                        entityManager.createQuery("SELECT p.idPedido FROM PedidosEntity p WHERE p.oportunidade.idOportunidade = :id",
+                                Integer.class).setParameter("id", id).getResultList().forEach(p -> carregarPedidos(p, null));
+                    }
+                }
+                case CONTATOS -> {
+                    if (excluido) remover(CONTATOS, id); else carregarContatos(id);
+                }
+                default -> {
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao atualizar busca global (" + alteracao.entidade() + " #" + id + "): " + e.getMessage());
+        }
+    }
+
+    private void carregarClientes(Integer id) {
+        for (Object[] c : consultar(JPQL_CLIENTES, "c.idCliente", id)) {
+            colocar(SincronizacaoService.CLIENTES, (Integer) c[0], texto(c[1]), juntar(c[2], c[3]),
+                    campo(c[1], PESO_NOME), campo(c[2], PESO_DOCUMENTO), digitos(c[2], PESO_DOCUMENTO), campo(c[3], PESO_OUTROS));
+        }
+    }
+
+    private void carregarProdutos(Integer id) {
+        for (Object[] p : consultar(JPQL_PRODUTOS, "p.idProduto", id)) {
+            colocar(SincronizacaoService.PRODUTOS, (Integer) p[0], texto(p[1]), texto(p[2]),
+                    campo(p[1], PESO_NOME), campo(p[2], PESO_OUTROS));
+        }
+    }
+
+    private void carregarFuncionarios(Integer id) {
+        for (Object[] f : consultar(JPQL_FUNCIONARIOS, "f.idFuncionario", id)) {
+            colocar(SincronizacaoService.FUNCIONARIOS, (Integer) f[0], texto(f[1]), juntar(f[2], f[3]),
+                    campo(f[1], PESO_NOME), campo(f[2], PESO_DOCUMENTO), digitos(f[2], PESO_DOCUMENTO), campo(f[3], PESO_OUTROS));
+        }
+    }
+
+    // Por id do pedido ou por id do cliente (todos os pedidos dele)
+    private void carregarPedidos(Integer id, Integer idCliente) {
+        List<Object[]> linhas = idCliente != null
+                ? consultar(JPQL_PEDIDOS, "c.idCliente", idCliente)
+                : consultar(JPQL_PEDIDOS, "p.idPedido", id);
+        for (Object[] p : linhas) {
+            Integer idPedido = (Integer) p[0];
+            colocar(SincronizacaoService.PEDIDOS, idPedido, "Pedido #" + idPedido, juntar(p[1], p[2], p[3]),
+                    campo("Pedido " + idPedido, PESO_NOME), campo(p[1], PESO_OUTROS));
+        }
+    }
+
+    private void carregarContatos(Integer id) {
+        for (Object[] ct : consultar(JPQL_CONTATOS, "ct.idContato", id)) {
+            String dono = preenchido(ct[3]) != null ? preenchido(ct[3]) : preenchido(ct[4]);
+            colocar(CONTATOS, (Integer) ct[0], dono != null ? dono : texto(ct[2]), juntar(ct[1], ct[2]),
+                    campo(ct[1], PESO_OUTROS), campo(ct[2], PESO_DOCUMENTO), digitos(ct[2], PESO_DOCUMENTO),
+                    campo(dono, PESO_OUTROS));
+        }
+    }
+
+    // O contato é gravado em cascata com o cliente/funcionário: relê o dele
+    private void carregarContatosDoDono(String entidade, String atributoId, Integer id) {
+        entityManager.createQuery("SELECT e.contato.idContato FROM " + entidade + " e WHERE e." + atributoId + " = :id",
+                Integer.class).setParameter("id", id).getResultList().forEach(this::carregarContatos);
+    }
+
+    private List<Object[]> consultar(String jpql, String atributoId, Integer id) {
+        if (id == null) {
+            return entityManager.createQuery(jpql, Object[].class).getResultList();
+        }
+        return entityManager.createQuery(jpql + " WHERE " + atributoId + " = :id", Object[].class)
+                .setParameter("id", id).getResultList();
+    }
+
+    private void colocar(String tipo, Integer id, String titulo, String detalhe, Campo... campos) {
+        List<Campo> validos = Arrays.stream(campos).filter(c -> c != null && !c.texto().isEmpty()).toList();
+        trava.writeLock().lock();
+        try {
+            indice.colocar(tipo + ":" + id, validos, new Item(tipo, id, titulo, detalhe));
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void remover(String tipo, Integer id) {
+        trava.writeLock().lock();
+        try {
+            indice.remover(tipo + ":" + id);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // --- BUSCA ---
+    // "tipos" (opcional) restringe a clientes, produtos, pedidos, funcionarios e/ou contatos
+    public List<ResultadoBuscaDTO> buscar(String consulta, List<String> tipos, Integer limite) {
+        List<String> termos = Tokenizador.termos(consulta).stream().distinct().toList();
+        if (termos.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe o que buscar.");
+        }
+        Set<String> filtro = new HashSet<>();
+        if (tipos != null) {
+            for (String tipo : tipos) {
+                String normal = tipo.trim().toLowerCase(Locale.ROOT);
+                if (!TIPOS.contains(normal)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo inválido: " + tipo + ". Opções: " + TIPOS);
+                }
+                filtro.add(normal);
+            }
+        }
+        int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        List<IndiceTrigramas.Acerto<Item>> acertos;
+        trava.readLock().lock();
+        try {
+            acertos = indice.<Item>buscar(termos, tamanho, d -> filtro.isEmpty() || filtro.contains(d.dados().tipo()));
+        } finally {
+            trava.readLock().unlock();
+        }
+        List<ResultadoBuscaDTO> resultado = new ArrayList<>(acertos.size());
+        for (IndiceTrigramas.Acerto<Item> acerto : acertos) {
+            Item item = acerto.documento().dados();
+            resultado.add(new ResultadoBuscaDTO(item.tipo(), item.id(), item.titulo(), item.detalhe(), acerto.nota()));
+        }
+        return resultado;
+    }
+
+    // --- AUXILIARES ---
+    private static Campo campo(Object valor, int peso) {
+        return valor == null ? null : new Campo(Tokenizador.texto(valor.toString()), peso);
+    }
+
+    // CNPJ, CPF e telefone também sem pontuação, para achar "12345678" em "12.345.678/0001-90"
+    private static Campo digitos(Object valor, int peso) {
+        return valor == null ? null : new Campo(valor.toString().replaceAll("\\D", ""), peso);
+    }
+
+    private static String texto(Object valor) {
+        return valor == null ? null : valor.toString();
+    }
+
+    private static String preenchido(Object valor) {
+        return valor == null || valor.toString().isBlank() ? null : valor.toString();
+    }
+
+    private static String juntar(Object... valores) {
+        return String.join(" · ", Arrays.stream(valores).map(BuscaGlobalService::preenchido).filter(v -> v != null).toList());
+    }
+}
@@ -0,0 +1,107 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.cache.IndiceCatalogo;
+import com.landryjoias.crm.entity.ProdutosEntity;
+import com.landryjoias.crm.repository.ProdutosRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// --- CATÁLOGO EM MEMÓRIA ---
+// Carrega os produtos uma vez e responde às buscas com o IndiceCatalogo, sem ir ao banco.
+// Cada gravação do ProdutosService troca o índice inteiro por um novo (copy-on-write): o
+// catálogo é pequeno e muda pouco, e assim quem está lendo nunca vê um índice pela metade.
+@Service
+@RequiredArgsConstructor
+public class CatalogoService {
+    private final ProdutosRepository produtosRepository;
+
+    private final Map<Integer, ProdutosEntity> produtos = new LinkedHashMap<>(); // protegido por "this"
+    private volatile IndiceCatalogo indice;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        try {
+            List<ProdutosEntity> todos = produtosRepository.findAll();
+            synchronized (this) {
+                produtos.clear();
+                todos.forEach(p -> produtos.put(p.getIdProduto(), p));
+                indice = IndiceCatalogo.montar(produtos.values());
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao carregar o catálogo em memória: " + e.getMessage());
+        }
+    }
+
+    public IndiceCatalogo.Resultado buscar(IndiceCatalogo.Filtro filtro, int pagina, int limite) {
+        IndiceCatalogo atual = indice;
+        if (atual == null) {
+            carregar(); // banco estava fora na subida
+            atual = indice;
+        }
+        return atual != null ? atual.buscar(filtro, pagina, limite)
+                : new IndiceCatalogo.Resultado(List.of(), 0, Map.of());
+    }
+
+    public List<ProdutosEntity> listarTodos() {
+        if (indice == null) {
+            carregar();
+        }
+        synchronized (this) {
+            return indice != null ? new ArrayList<>(produtos.values()) : produtosRepository.findAll();
+        }
+    }
+
+    // --- MANUTENÇÃO (chamada pelo ProdutosService) ---
+    // Dentro de transação, só aplica depois do commit
+    public void atualizar(ProdutosEntity produto) {
+        depoisDoCommit(() -> {
+            synchronized (this) {
+                produtos.put(produto.getIdProduto(), produto);
+                reconstruir();
+            }
+        });
+    }
+
+    public void remover(Integer idProduto) {
+        depoisDoCommit(() -> {
+            synchronized (this) {
+                if (produtos.remove(idProduto) != null) {
+                    reconstruir();
+                }
+            }
+        });
+    }
+
+    // Estoque alterado fora do Java (procedure/trigger): relê só aquele produto
+    public void recarregar(Integer idProduto) {
+        depoisDoCommit(() -> produtosRepository.findById(idProduto).ifPresentOrElse(this::atualizar, () -> remover(idProduto)));
+    }
+
+    private void reconstruir() {
+        if (indice != null) {
+            indice = IndiceCatalogo.montar(produtos.values());
+        }
+    }
+
+    private void depoisDoCommit(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
@@ -4,8 +4,10 @@ import com.landryjoias.crm.entity.ClienteEntity;
 import com.landryjoias.crm.entity.LogEntity;
 import com.landryjoias.crm.entity.UsuarioEntity;
 import com.landryjoias.crm.entity.NivelAcesso; // Importação essencial
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
 import com.landryjoias.crm.repository.ClienteRepository;
-import com.landryjoias.crm.repository.LogRepository;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Alvo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Campo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -16,13 +18,23 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ClienteService {
     private final ClienteRepository clienteRepository;
-    private final LogRepository logRepository;
+    private final AuditoriaService auditoriaService;
+    private final SincronizacaoService sincronizacaoService;
+    private final AtualizacaoParcialService atualizacaoParcialService;
+
+    // Campos aceitos no PATCH (nome no JSON -> atributo da entidade)
+    private static final Alvo ALVO_PATCH = new Alvo("ClienteEntity", "idCliente", Map.of(
+            "nomeDoComercio", Campo.texto("nomeDoComercio"),
+            "cnpj", Campo.texto("CNPJ"),
+            "email", Campo.texto("email")), null);
 
     @Transactional
     public ClienteEntity incluir(ClienteEntity cliente) {
@@ -30,6 +42,7 @@ public class ClienteService {
             cliente.getContato().setIdContato(null);
         }
         ClienteEntity salvo = clienteRepository.save(cliente);
+        sincronizacaoService.notificar(SincronizacaoService.CLIENTES, salvo.getIdCliente(), Operacao.CRIADO);
         registrarLog("Cliente Criado", "Cliente '" + salvo.getNomeDoComercio() + "' cadastrado por " + getUsuarioLogadoEmail());
         return salvo;
     }
@@ -59,16 +72,31 @@ public class ClienteService {
                 }
             }
             ClienteEntity salvo = clienteRepository.save(cliente);
+            sincronizacaoService.notificar(SincronizacaoService.CLIENTES, salvo.getIdCliente(), Operacao.ATUALIZADO);
             registrarLog("Cliente Editado", "Dados do cliente '" + salvo.getNomeDoComercio() + "' atualizados por " + getUsuarioLogadoEmail());
             return salvo;
         }
         return null;
     }
 
+    // PATCH: só os campos enviados, com If-Match. Devolve a nova ETag.
+    @Transactional
+    public String atualizarParcial(int id, Map<String, Object> campos, String ifMatch) {
+        String etag = atualizacaoParcialService.aplicar(ALVO_PATCH, id, campos, ifMatch).etag();
+        sincronizacaoService.notificar(SincronizacaoService.CLIENTES, id, Operacao.ATUALIZADO);
+        registrarLog("Cliente Editado", "Campos " + campos.keySet() + " do cliente #" + id + " atualizados por " + getUsuarioLogadoEmail());
+        return etag;
+    }
+
     public List<ClienteEntity> listarTodos() {
         return clienteRepository.findAll();
     }
 
+    // Sem @Transactional: quem consome o Stream abre a transação (ver FluxoJsonService)
+    public Stream<ClienteEntity> listarTodosEmFluxo() {
+        return clienteRepository.buscarTodosEmFluxo();
+    }
+
     @Transactional
     public void excluir(Integer id) {
         // 1. VERIFICAÇÃO DE PERMISSÃO (ADMIN ou GERENTE)
@@ -96,6 +124,7 @@ public class ClienteService {
             try {
                 clienteRepository.deleteById(id);
                 clienteRepository.flush(); 
+                sincronizacaoService.registrarExclusao(SincronizacaoService.CLIENTES, id);
                 
                 registrarLog("Cliente Excluído", "Cliente '" + nome + "' removido por " + getUsuarioLogadoEmail());
             
@@ -141,7 +170,7 @@ public class ClienteService {
             log.setDescricao(descricao);
             log.setData(LocalDateTime.now());
             log.setUsuario(getUsuarioLogado());
-            logRepository.save(log);
+            auditoriaService.registrar(log);
         } catch (Exception e) {}
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.landryjoias.crm.services;
 
 import com.landryjoias.crm.entity.ContatosEntity;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
 import com.landryjoias.crm.repository.ContatosRepository;
 import java.util.List;
 import java.util.Optional;
@@ -13,9 +14,12 @@ import lombok.RequiredArgsConstructor;
 public class ContatosService {
 
     private final ContatosRepository ContatosRepository;
+    private final SincronizacaoService sincronizacaoService;
 
     public ContatosEntity incluir(ContatosEntity Contatos) {
-        return ContatosRepository.save(Contatos);
+        ContatosEntity salvo = ContatosRepository.save(Contatos);
+        sincronizacaoService.notificar(BuscaGlobalService.CONTATOS, salvo.getIdContato(), Operacao.CRIADO);
+        return salvo;
     }
 
     public ContatosEntity editar(int id, ContatosEntity Contatos) {
@@ -39,7 +43,9 @@ public class ContatosService {
             ContatosAtualizada.setNumeroCasa(Contatos.getNumeroCasa());
             ContatosAtualizada.setEmail(Contatos.getEmail());
 
-            return ContatosRepository.save(ContatosAtualizada);
+            ContatosEntity salvo = ContatosRepository.save(ContatosAtualizada);
+            sincronizacaoService.notificar(BuscaGlobalService.CONTATOS, id, Operacao.ATUALIZADO);
+            return salvo;
         } else {
             return null;
         }
@@ -51,5 +57,6 @@ public class ContatosService {
 
     public void excluir(Integer id) {
         ContatosRepository.deleteById(id);
+        sincronizacaoService.notificar(BuscaGlobalService.CONTATOS, id, Operacao.EXCLUIDO);
     }
 }
\ No newline at end of file
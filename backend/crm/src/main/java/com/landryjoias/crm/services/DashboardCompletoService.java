@@ -0,0 +1,92 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.dto.SecaoDashboardDTO;
+import com.landryjoias.crm.repository.OportunidadesRepository;
+import com.landryjoias.crm.repository.ProdutosRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// --- DASHBOARD COMPLETO (CONSULTAS EM PARALELO) ---
+// Cada seção roda no dashboardExecutor com o seu próprio prazo. A resposta espera no máximo
+// o prazo mais longo; a seção que estourar volta com status "timeout" e as outras chegam
+// normalmente. A consulta atrasada continua no pool até terminar (o JDBC não é interrompido),
+// por isso o pool é limitado.
+@Service
+public class DashboardCompletoService {
+    private static final long PRAZO_MEMORIA_MS = 500;
+    private static final long PRAZO_CONSULTA_MS = 3_000;
+
+    private final ResumoDashboardService resumoDashboardService;
+    private final ReceitaService receitaService;
+    private final PerformanceClienteService performanceClienteService;
+    private final ProdutosRepository produtosRepository;
+    private final OportunidadesRepository oportunidadesRepository;
+    private final ThreadPoolTaskExecutor executor;
+
+    public DashboardCompletoService(ResumoDashboardService resumoDashboardService, ReceitaService receitaService,
+            PerformanceClienteService performanceClienteService, ProdutosRepository produtosRepository,
+            OportunidadesRepository oportunidadesRepository,
+            @Qualifier("dashboardExecutor") ThreadPoolTaskExecutor executor) {
+        this.resumoDashboardService = resumoDashboardService;
+        this.receitaService = receitaService;
+        this.performanceClienteService = performanceClienteService;
+        this.produtosRepository = produtosRepository;
+        this.oportunidadesRepository = oportunidadesRepository;
+        this.executor = executor;
+    }
+
+    public Map<String, SecaoDashboardDTO> montar() {
+        Map<String, CompletableFuture<SecaoDashboardDTO>> secoes = new LinkedHashMap<>();
+        secoes.put("resumo", secao(resumoDashboardService::getResumo, PRAZO_MEMORIA_MS));
+        secoes.put("grafico", secao(() -> receitaService.serie(null, null, ReceitaService.Granularidade.MES), PRAZO_CONSULTA_MS));
+        secoes.put("topClientes", secao(() -> performanceClienteService.top(PerformanceClienteService.Ordem.TOTAL_GASTO, 10),
+                PRAZO_CONSULTA_MS));
+        secoes.put("estoqueBaixo", secao(() -> produtosRepository
+                .findByQuantidadeEstoqueLessThanEqualOrderByQuantidadeEstoqueAsc(ResumoDashboardService.LIMITE_ESTOQUE_BAIXO),
+                PRAZO_CONSULTA_MS));
+        secoes.put("funil", secao(() -> {
+            Map<String, Long> funil = new LinkedHashMap<>();
+            for (OportunidadesRepository.ContagemFunil c : oportunidadesRepository.contarPorEstagio()) {
+                funil.put(c.getEstagio() != null ? c.getEstagio().name() : "SEM_ESTAGIO", c.getTotal());
+            }
+            return funil;
+        }, PRAZO_CONSULTA_MS));
+
+        // Todas já têm prazo próprio, então join() nunca passa do maior deles
+        Map<String, SecaoDashboardDTO> resposta = new LinkedHashMap<>();
+        secoes.forEach((nome, futuro) -> resposta.put(nome, futuro.join()));
+        return resposta;
+    }
+
+    private CompletableFuture<SecaoDashboardDTO> secao(Supplier<Object> consulta, long prazoMs) {
+        long inicio = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(consulta, executor)
+                    .orTimeout(prazoMs, TimeUnit.MILLISECONDS)
+                    .handle((dados, erro) -> {
+                        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                        if (erro == null) {
+                            return new SecaoDashboardDTO(SecaoDashboardDTO.OK, ms, dados);
+                        }
+                        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                        if (causa instanceof TimeoutException) {
+                            return new SecaoDashboardDTO(SecaoDashboardDTO.TIMEOUT, ms, null);
+                        }
+                        System.err.println("Erro numa seção do dashboard: " + causa.getMessage());
+                        return new SecaoDashboardDTO(SecaoDashboardDTO.ERRO, ms, null);
+                    });
+        } catch (RejectedExecutionException e) { // inclui TaskRejectedException do Spring
+            return CompletableFuture.completedFuture(new SecaoDashboardDTO(SecaoDashboardDTO.RECUSADA, 0, null));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
+
+// --- FEED DE ALTERAÇÕES (SSE) ---
+// Quem grava (thread do service, depois do commit) só numera o evento, guarda no anel e faz
+// offer() na fila de cada assinante: nunca espera a rede. O envio para o navegador roda num
+// pool pequeno, uma tarefa por assinante de cada vez. Se a fila de um assinante lota, a conexão
+// é encerrada; o EventSource reconecta com Last-Event-ID e recupera o que perdeu pelo anel.
+// A numeração recomeça a cada subida, então o id SSE leva a época do processo ("<epoca>-<versao>"):
+// id de outra subida (ou adiantado em relação ao contador) não dá para repor, e o cliente recarrega.
+@Service
+public class EventosService {
+    private static final int TAMANHO_ANEL = 1024;
+    private static final int CAPACIDADE_ASSINANTE = 256;
+    private static final int THREADS_ENVIO = 4;
+    private static final long TIMEOUT_CONEXAO_MS = 30 * 60 * 1000L;
+
+    private final long epoca = System.currentTimeMillis();
+    private final Evento[] anel = new Evento[TAMANHO_ANEL];
+    private long ultimoId = 0; // protegido por "this"
+    private final List<Assinante> assinantes = new CopyOnWriteArrayList<>();
+    private final ExecutorService envio = Executors.newFixedThreadPool(THREADS_ENVIO, r -> {
+        Thread t = new Thread(r, "sse-envio");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // O que vai para o navegador
+    public record Evento(long versao, String entidade, Integer id, EntidadeAlteradaEvent.Operacao operacao) {
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterar(EntidadeAlteradaEvent alteracao) {
+        publicar(alteracao.entidade(), alteracao.id(), alteracao.operacao());
+    }
+
+    public void publicar(String entidade, Integer id, EntidadeAlteradaEvent.Operacao operacao) {
+        synchronized (this) {
+            Evento evento = new Evento(++ultimoId, entidade, id, operacao);
+            anel[(int) (evento.versao() % TAMANHO_ANEL)] = evento;
+            for (Assinante assinante : assinantes) {
+                if (!assinante.fila.offer(evento)) {
+                    encerrar(assinante); // lento demais: reconecta e recupera pelo anel
+                }
+            }
+        }
+        for (Assinante assinante : assinantes) {
+            agendarEnvio(assinante);
+        }
+    }
+
+    // ultimoIdRecebido vem do cabeçalho Last-Event-ID (null na primeira conexão)
+    public SseEmitter assinar(String ultimoIdRecebido) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_CONEXAO_MS);
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(() -> encerrar(assinante));
+        emitter.onError(e -> encerrar(assinante));
+
+        Long recebido = ultimoIdRecebido == null || ultimoIdRecebido.isBlank() ? null : versaoDoId(ultimoIdRecebido);
+        synchronized (this) {
+            if (ultimoIdRecebido != null && !ultimoIdRecebido.isBlank()) {
+                long maisAntigo = Math.max(1, ultimoId - TAMANHO_ANEL + 1);
+                if (recebido == null || recebido > ultimoId
+                        || recebido + 1 < maisAntigo || ultimoId - recebido > CAPACIDADE_ASSINANTE) {
+                    // Id de outra subida, adiantado ou mais antigo do que o anel guarda:
+                    // o cliente precisa de um GET /sync
+                    assinante.precisaRecarregar = true;
+                } else {
+                    for (long v = recebido + 1; v <= ultimoId; v++) {
+                        assinante.fila.offer(anel[(int) (v % TAMANHO_ANEL)]);
+                    }
+                }
+            }
+            assinantes.add(assinante);
+        }
+        agendarEnvio(assinante);
+        return emitter;
+    }
+
+    // Comentário SSE periódico: mantém proxies abertos e detecta conexões mortas
+    @Scheduled(fixedRate = 25_000)
+    public void heartbeat() {
+        for (Assinante assinante : assinantes) {
+            if (assinante.enviando.compareAndSet(false, true)) {
+                envio.execute(() -> {
+                    try {
+                        assinante.emitter.send(SseEmitter.event().comment("ping"));
+                    } catch (IOException | IllegalStateException e) {
+                        encerrar(assinante);
+                    } finally {
+                        assinante.enviando.set(false);
+                    }
+                    agendarEnvio(assinante);
+                });
+            }
+        }
+    }
+
+    private void agendarEnvio(Assinante assinante) {
+        if ((assinante.fila.isEmpty() && !assinante.precisaRecarregar) || !assinante.enviando.compareAndSet(false, true)) {
+            return;
+        }
+        envio.execute(() -> {
+            try {
+                if (assinante.precisaRecarregar) {
+                    assinante.emitter.send(SseEmitter.event().name("recarregar").data("{}", MediaType.APPLICATION_JSON));
+                    assinante.precisaRecarregar = false;
+                }
+                Evento evento;
+                while ((evento = assinante.fila.poll()) != null) {
+                    assinante.emitter.send(SseEmitter.event()
+                            .id(epoca + "-" + evento.versao())
+                            .name("alteracao")
+                            .data(evento, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                encerrar(assinante);
+            } finally {
+                assinante.enviando.set(false);
+            }
+            // Chegou evento enquanto enviava? Agenda de novo.
+            if (!assinante.fila.isEmpty() && assinantes.contains(assinante)) {
+                agendarEnvio(assinante);
+            }
+        });
+    }
+
+    // Versão do id "<epoca>-<versao>" desta subida; null se for de outra subida ou malformado
+    private Long versaoDoId(String id) {
+        int separador = id.indexOf('-');
+        if (separador <= 0) {
+            return null;
+        }
+        try {
+            if (Long.parseLong(id.substring(0, separador).trim()) != epoca) {
+                return null;
+            }
+            long versao = Long.parseLong(id.substring(separador + 1).trim());
+            return versao >= 0 ? versao : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void encerrar(Assinante assinante) {
+        if (assinantes.remove(assinante)) {
+            assinante.fila.clear();
+            try {
+                assinante.emitter.complete();
+            } catch (Exception e) {
+                // conexão já fechada
+            }
+        }
+    }
+
+    public int getTotalAssinantes() {
+        return assinantes.size();
+    }
+
+    @PreDestroy
+    void desligar() {
+        for (Assinante assinante : assinantes) {
+            encerrar(assinante);
+        }
+        envio.shutdown();
+    }
+
+    private static final class Assinante {
+        final SseEmitter emitter;
+        final BlockingQueue<Evento> fila = new ArrayBlockingQueue<>(CAPACIDADE_ASSINANTE);
+        final AtomicBoolean enviando = new AtomicBoolean(false);
+        volatile boolean precisaRecarregar = false;
+
+        Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.entity.LogEntity;
+import com.landryjoias.crm.entity.UsuarioEntity;
+import com.landryjoias.crm.exportacao.EscritorCsv;
+import com.landryjoias.crm.exportacao.EscritorPlanilha;
+import com.landryjoias.crm.exportacao.EscritorXlsx;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+// --- EXPORTAÇÃO EM FLUXO (CSV / XLSX) ---
+// Cada linha sai do ResultSet (cursor só para frente, lido em blocos de TAMANHO_BUSCA) direto
+// para o escritor, que grava na resposta. Nada é acumulado: a memória é a mesma para 1 mil
+// ou 5 milhões de linhas. Colunas e filtros são listas fechadas por entidade (nada do cliente
+// vira SQL); tudo é validado antes de a resposta começar, para o erro ainda sair como 400.
+@Service
+@RequiredArgsConstructor
+public class ExportacaoService {
+    private static final int TAMANHO_BUSCA = 1_000;
+    private static final Set<String> PARAMETROS_RESERVADOS = Set.of("formato", "colunas");
+
+    public enum Formato {
+        CSV("text/csv; charset=UTF-8", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        public final String contentType;
+        public final String extensao;
+
+        Formato(String contentType, String extensao) {
+            this.contentType = contentType;
+            this.extensao = extensao;
+        }
+    }
+
+    // Filtro aceito na URL: trecho de WHERE com um "?" e a conversão do texto recebido
+    private record Filtro(String condicao, Function<String, Object> converter) {
+    }
+
+    private record Definicao(String from, Map<String, String> colunas, Map<String, Filtro> filtros, String ordem) {
+    }
+
+    // Exportação pronta para escrever (já validada)
+    public record Exportacao(String nomeArquivo, Formato formato, String sql, List<String> colunas, List<Object> parametros,
+            UsuarioEntity usuario) {
+    }
+
+    private static final Map<String, Definicao> DEFINICOES = Map.of(
+            "clientes", new Definicao(
+                    "Clientes c LEFT JOIN Contatos ct ON ct.id_contato = c.id_contato",
+                    colunas("id", "c.id_cliente", "nomeDoComercio", "c.nome_comercio", "cnpj", "c.cnpj",
+                            "email", "c.email", "telefone", "ct.telefone", "cidade", "ct.cidade", "estado", "ct.estado"),
+                    Map.of("cidade", new Filtro("ct.cidade = ?", v -> v),
+                            "estado", new Filtro("ct.estado = ?", v -> v)),
+                    "c.id_cliente"),
+            // Uma linha por item: os dados do pedido se repetem em cada item
+            "pedidos", new Definicao(
+                    "Pedidos p LEFT JOIN Oportunidades o ON o.id_oportunidade = p.id_oportunidade " +
+                    "LEFT JOIN Clientes c ON c.id_cliente = o.id_cliente " +
+                    "LEFT JOIN Produtos_Pedidos i ON i.id_pedido = p.id_pedido " +
+                    "LEFT JOIN Produtos pr ON pr.id_produto = i.id_produto",
+                    colunas("idPedido", "p.id_pedido", "data", "p.data", "status", "p.status", "valorTotal", "p.valor_total",
+                            "cliente", "c.nome_comercio", "idProduto", "i.id_produto", "produto", "pr.nome",
+                            "quantidade", "i.quantidade", "valorItem", "i.valor", "tamanho", "i.tamanho", "pedra", "i.pedra"),
+                    Map.of("status", new Filtro("p.status = ?", v -> v),
+                            "de", new Filtro("p.data >= ?", v -> Date.valueOf(LocalDate.parse(v))),
+                            "ate", new Filtro("p.data <= ?", v -> Date.valueOf(LocalDate.parse(v)))),
+                    "p.id_pedido, i.id_produto"),
+            "produtos", new Definicao(
+                    "Produtos pr",
+                    colunas("id", "pr.id_produto", "nome", "pr.nome", "tipo", "pr.tipo", "material", "pr.material",
+                            "tipoPedra", "pr.tipo_pedra", "corPedra", "pr.cor_pedra", "tamanho", "pr.tamanho",
+                            "valor", "pr.valor", "quantidadeEstoque", "pr.quantidade_estoque"),
+                    Map.of("material", new Filtro("pr.material = ?", v -> v),
+                            "tipo", new Filtro("pr.tipo = ?", v -> v),
+                            "estoqueMax", new Filtro("pr.quantidade_estoque <= ?", Integer::valueOf)),
+                    "pr.id_produto"),
+            "logs", new Definicao(
+                    "Logs l LEFT JOIN Usuarios u ON u.id_usuario = l.id_usuario",
+                    colunas("id", "l.id_log", "data", "l.data", "titulo", "l.titulo", "tipoDeAtividade", "l.tipo_atividade",
+                            "assunto", "l.assunto", "descricao", "l.descricao", "usuario", "u.email"),
+                    Map.of("de", new Filtro("l.data >= ?", v -> Timestamp.valueOf(LocalDate.parse(v).atStartOfDay())),
+                            "ate", new Filtro("l.data < ?", v -> Timestamp.valueOf(LocalDate.parse(v).plusDays(1).atStartOfDay())),
+                            "assunto", new Filtro("l.assunto = ?", v -> v)),
+                    "l.id_log"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditoriaService auditoriaService;
+
+    public Set<String> entidades() {
+        return new TreeSet<>(DEFINICOES.keySet());
+    }
+
+    public Exportacao preparar(String entidade, String formatoTexto, List<String> colunasPedidas, Map<String, String> parametros) {
+        Definicao definicao = DEFINICOES.get(entidade);
+        if (definicao == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Exportação não disponível para '" + entidade
+                    + "'. Opções: " + entidades());
+        }
+        Formato formato;
+        try {
+            formato = Formato.valueOf(formatoTexto.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato deve ser csv ou xlsx.");
+        }
+
+        List<String> colunas = colunasPedidas == null || colunasPedidas.isEmpty()
+                ? new ArrayList<>(definicao.colunas().keySet())
+                : colunasPedidas.stream().map(String::trim).filter(c -> !c.isEmpty()).distinct().toList();
+        List<String> invalidas = colunas.stream().filter(c -> !definicao.colunas().containsKey(c)).toList();
+        if (colunas.isEmpty() || !invalidas.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Colunas inválidas: " + invalidas
+                    + ". Disponíveis: " + definicao.colunas().keySet());
+        }
+
+        List<String> condicoes = new ArrayList<>();
+        List<Object> valores = new ArrayList<>();
+        for (Map.Entry<String, String> parametro : parametros.entrySet()) {
+            if (PARAMETROS_RESERVADOS.contains(parametro.getKey())) {
+                continue;
+            }
+            Filtro filtro = definicao.filtros().get(parametro.getKey());
+            if (filtro == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Filtro desconhecido: " + parametro.getKey()
+                        + ". Disponíveis: " + new TreeSet<>(definicao.filtros().keySet()));
+            }
+            try {
+                valores.add(filtro.converter().apply(parametro.getValue()));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Valor inválido para '" + parametro.getKey()
+                        + "': " + parametro.getValue());
+            }
+            condicoes.add(filtro.condicao());
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        sql.append(String.join(", ", colunas.stream().map(definicao.colunas()::get).toList()));
+        sql.append(" FROM ").append(definicao.from());
+        if (!condicoes.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", condicoes));
+        }
+        sql.append(" ORDER BY ").append(definicao.ordem());
+
+        String nomeArquivo = entidade + "-" + LocalDate.now() + "." + formato.extensao;
+        return new Exportacao(nomeArquivo, formato, sql.toString(), colunas, valores, getUsuarioLogado());
+    }
+
+    // Roda na thread da resposta assíncrona; a conexão fica presa só enquanto o arquivo é escrito
+    public void escrever(Exportacao exportacao, OutputStream saida) throws IOException {
+        long inicio = System.currentTimeMillis();
+        long[] linhas = { 0 };
+        try (EscritorPlanilha escritor = exportacao.formato() == Formato.XLSX ? new EscritorXlsx(saida) : new EscritorCsv(saida)) {
+            escritor.cabecalho(exportacao.colunas());
+            int quantidadeColunas = exportacao.colunas().size();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(exportacao.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(TAMANHO_BUSCA);
+                for (int i = 0; i < exportacao.parametros().size(); i++) {
+                    ps.setObject(i + 1, exportacao.parametros().get(i));
+                }
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                Object[] valores = new Object[quantidadeColunas];
+                for (int i = 0; i < quantidadeColunas; i++) {
+                    valores[i] = rs.getObject(i + 1);
+                }
+                try {
+                    escritor.linha(valores);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // cliente desconectou: interrompe a leitura
+                }
+                linhas[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        registrarLog(exportacao.usuario(), "Exportação", linhas[0] + " linhas exportadas em " + exportacao.nomeArquivo() + " ("
+                + (System.currentTimeMillis() - inicio) + " ms)");
+    }
+
+    private static Map<String, String> colunas(String... nomeEExpressao) {
+        Map<String, String> colunas = new LinkedHashMap<>();
+        for (int i = 0; i < nomeEExpressao.length; i += 2) {
+            colunas.put(nomeEExpressao[i], nomeEExpressao[i + 1]);
+        }
+        return colunas;
+    }
+
+    // Lido na thread da requisição: a escrita roda em outra thread
+    private UsuarioEntity getUsuarioLogado() {
+        try {
+            var authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof UsuarioEntity usuario) {
+                return usuario;
+            }
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void registrarLog(UsuarioEntity usuario, String titulo, String descricao) {
+        try {
+            LogEntity log = new LogEntity();
+            log.setTitulo(titulo);
+            log.setTipoDeAtividade(4);
+            log.setAssunto("Exportação de Dados");
+            log.setDescricao(descricao);
+            log.setData(LocalDateTime.now());
+            log.setUsuario(usuario);
+            auditoriaService.registrar(log);
+        } catch (Exception e) {
+            System.err.println("Erro ao salvar log: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.landryjoias.crm.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.landryjoias.crm.config.WebConfig;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// --- LISTAGEM EM FLUXO (JSON / NDJSON) ---
+// Para tabelas grandes o "findAll + List + Jackson" monta tudo na memória antes do primeiro byte.
+// Aqui a consulta vira um Stream do repositório, lido dentro de uma transação só de leitura na
+// thread da resposta, e cada registro é escrito assim que chega. A cada LIMPAR_A_CADA registros o
+// contexto de persistência é limpo, senão as entidades já enviadas ficariam presas até o fim.
+@Service
+@RequiredArgsConstructor
+public class FluxoJsonService {
+    public static final String NDJSON = "application/x-ndjson";
+    private static final int LIMPAR_A_CADA = 500;
+    // Tabela inteira pode levar minutos; o timeout assíncrono padrão cortaria o array no meio
+    private static final long TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    // ndjson = um objeto por linha; senão um array JSON normal, só que escrito aos poucos
+    public <T> ResponseEntity<StreamingResponseBody> responder(Supplier<Stream<T>> consulta, boolean ndjson) {
+        RequestContextHolder.currentRequestAttributes()
+                .setAttribute(WebConfig.ATRIBUTO_TIMEOUT_ASYNC, TIMEOUT_MS, RequestAttributes.SCOPE_REQUEST);
+        StreamingResponseBody corpo = saida -> escrever(consulta, ndjson, saida);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(NDJSON) : MediaType.APPLICATION_JSON)
+                .body(corpo);
+    }
+
+    public static boolean pedeNdjson(String accept) {
+        return accept != null && accept.contains(NDJSON);
+    }
+
+    public <T> void escrever(Supplier<Stream<T>> consulta, boolean ndjson, OutputStream saida) throws IOException {
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        try (JsonGenerator gerador = objectMapper.createGenerator(saida, JsonEncoding.UTF8)) {
+            gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gerador.setRootValueSeparator(null); // no NDJSON a quebra de linha é o separador
+            if (!ndjson) {
+                gerador.writeStartArray();
+            }
+            leitura.executeWithoutResult(status -> {
+                try (Stream<T> registros = consulta.get()) {
+                    int escritos = 0;
+                    for (Iterator<T> it = registros.iterator(); it.hasNext(); ) {
+                        gerador.writeObject(it.next());
+                        if (ndjson) {
+                            gerador.writeRaw('\n');
+                        }
+                        if (++escritos % LIMPAR_A_CADA == 0) {
+                            entityManager.clear();
+                            gerador.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // cliente desconectou: fecha o cursor e a transação
+                }
+            });
+            if (!ndjson) {
+                gerador.writeEndArray();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
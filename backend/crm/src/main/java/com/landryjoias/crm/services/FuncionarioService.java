@@ -1,29 +1,44 @@
 package com.landryjoias.crm.services;
 
+import com.landryjoias.crm.entity.Cargo;
 import com.landryjoias.crm.entity.FuncionarioEntity;
 import com.landryjoias.crm.entity.LogEntity;
 import com.landryjoias.crm.entity.UsuarioEntity;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
 import com.landryjoias.crm.repository.FuncionarioRepository;
-import com.landryjoias.crm.repository.LogRepository;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Alvo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Campo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class FuncionarioService {
     private final FuncionarioRepository funcionarioRepository;
-    private final LogRepository logRepository;
+    private final AuditoriaService auditoriaService;
+    private final SincronizacaoService sincronizacaoService;
+    private final AtualizacaoParcialService atualizacaoParcialService;
+
+    // Campos aceitos no PATCH (nome no JSON -> atributo da entidade)
+    private static final Alvo ALVO_PATCH = new Alvo("FuncionarioEntity", "idFuncionario", Map.of(
+            "nome", Campo.texto("nome"),
+            "cpf", Campo.texto("cpf"),
+            "cargo", Campo.enumeracao("cargo", Cargo.class),
+            "email", Campo.texto("email")), null);
 
     public FuncionarioEntity incluir(FuncionarioEntity funcionario) {
         if (funcionario.getContato() != null && funcionario.getContato().getIdContato() != null && funcionario.getContato().getIdContato() == 0) {
             funcionario.getContato().setIdContato(null);
         }
         FuncionarioEntity salvo = funcionarioRepository.save(funcionario);
+        sincronizacaoService.notificar(SincronizacaoService.FUNCIONARIOS, salvo.getIdFuncionario(), Operacao.CRIADO);
         registrarLog("Funcionário Contratado", "Colaborador '" + salvo.getNome() + "' (" + salvo.getCargo() + ") adicionado por " + getUsuarioLogadoEmail());
         return salvo;
     }
@@ -53,21 +68,33 @@ public class FuncionarioService {
                 }
             }
             FuncionarioEntity salvo = funcionarioRepository.save(funcionario);
+            sincronizacaoService.notificar(SincronizacaoService.FUNCIONARIOS, salvo.getIdFuncionario(), Operacao.ATUALIZADO);
             registrarLog("Funcionário Editado", "Dados de '" + salvo.getNome() + "' atualizados por " + getUsuarioLogadoEmail());
             return salvo;
         }
         return null;
     }
 
+    // PATCH: só os campos enviados, com If-Match. Devolve a nova ETag.
+    @Transactional
+    public String atualizarParcial(int id, Map<String, Object> campos, String ifMatch) {
+        String etag = atualizacaoParcialService.aplicar(ALVO_PATCH, id, campos, ifMatch).etag();
+        sincronizacaoService.notificar(SincronizacaoService.FUNCIONARIOS, id, Operacao.ATUALIZADO);
+        registrarLog("Funcionário Editado", "Campos " + campos.keySet() + " do funcionário #" + id + " atualizados por " + getUsuarioLogadoEmail());
+        return etag;
+    }
+
     public List<FuncionarioEntity> listarTodos() {
         return funcionarioRepository.findAll();
     }
 
+    @Transactional
     public void excluir(Integer id) {
         Optional<FuncionarioEntity> func = funcionarioRepository.findById(id);
         if (func.isPresent()) {
             String nome = func.get().getNome();
             funcionarioRepository.deleteById(id);
+            sincronizacaoService.registrarExclusao(SincronizacaoService.FUNCIONARIOS, id);
             registrarLog("Funcionário Demitido/Excluído", "Colaborador '" + nome + "' removido por " + getUsuarioLogadoEmail());
         }
     }
@@ -102,7 +129,7 @@ public class FuncionarioService {
             log.setDescricao(descricao);
             log.setData(LocalDateTime.now());
             log.setUsuario(getUsuarioLogado());
-            logRepository.save(log);
+            auditoriaService.registrar(log);
         } catch (Exception e) {}
     }
 }
\ No newline at end of file
@@ -0,0 +1,310 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.arquivo.SegmentoLog;
+import com.landryjoias.crm.busca.ListaPostings;
+import com.landryjoias.crm.busca.Tokenizador;
+import com.landryjoias.crm.dto.LogEncontradoDTO;
+import com.landryjoias.crm.dto.PaginaCursorDTO;
+import com.landryjoias.crm.entity.ExclusaoEntity;
+import com.landryjoias.crm.entity.LogEntity;
+import com.landryjoias.crm.repository.ExclusaoRepository;
+import com.landryjoias.crm.repository.LogRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// --- BUSCA TEXTUAL NOS LOGS ---
+// Índice invertido em memória sobre título e descrição (o título conta PESO_TITULO vezes).
+// Cada log indexado ganha um número de documento sequencial; para cada termo guardamos a lista
+// comprimida dos documentos onde ele aparece (ListaPostings). A busca cruza as listas dos termos
+// (todos precisam aparecer) e ordena por BM25, sem nenhum LIKE no banco.
+//
+// O índice acompanha a tabela pela rowversion, como o /sync: a cada ATUALIZAR_MS lê o que entrou
+// ou mudou (inclusive logs gravados pelos triggers) e as exclusões de Exclusoes. Um log editado
+// ganha documento novo e o antigo vira "removido". Os logs já arquivados em disco (ArquivoLogService)
+// entram na carga inicial e continuam buscáveis depois de saírem do banco.
+@Service
+@RequiredArgsConstructor
+public class IndiceLogService {
+    private static final long ATUALIZAR_MS = 2_000L;
+    private static final int PESO_TITULO = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    static final int LIMITE_PADRAO = 20;
+    static final int LIMITE_MAXIMO = 100;
+    private static final int JANELA_MAXIMA = 1_000; // cursor + limite: além disso, refine a busca
+
+    private static final String SQL_ALTERADOS =
+            "SELECT id_log, data, titulo, descricao FROM Logs " +
+            "WHERE versao_linha > CAST(? AS BINARY(8)) AND versao_linha < CAST(? AS BINARY(8))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExclusaoRepository exclusaoRepository;
+    private final LogRepository logRepository;
+    private final ArquivoLogService arquivoLogService;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    // Estado do índice (escrito com a trava de escrita, lido com a de leitura)
+    private final Map<String, ListaPostings> termos = new HashMap<>();
+    private final Map<Integer, Integer> documentoPorId = new HashMap<>();
+    private final BitSet removidos = new BitSet();
+    private int[] idPorDocumento = new int[1024];
+    private int[] tamanhoPorDocumento = new int[1024];
+    private long[] segundoPorDocumento = new long[1024];
+    private int documentos;
+    private int vivos;
+    private long somaTamanhos;
+
+    private long versao; // tudo com rowversion <= versao já está no índice
+    private volatile boolean pronto;
+
+    // --- CARGA E ATUALIZAÇÃO ---
+    // Depois do ArquivoLogService.carregar, que abre os segmentos
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void iniciar() {
+        for (SegmentoLog segmento : arquivoLogService.getSegmentos()) {
+            try {
+                segmento.percorrer(r -> {
+                    indexar(r.idLog(), r.data(), r.titulo(), r.descricao());
+                    return true;
+                });
+            } catch (IOException e) {
+                System.err.println("Erro ao indexar " + segmento.getArquivo() + ": " + e.getMessage());
+            }
+        }
+        try {
+            atualizarDesde(0);
+            pronto = true;
+        } catch (Exception e) {
+            System.err.println("Erro ao montar índice de logs: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelay = ATUALIZAR_MS, fixedDelay = ATUALIZAR_MS)
+    public synchronized void atualizar() {
+        if (!pronto) {
+            return;
+        }
+        try {
+            atualizarDesde(versao);
+        } catch (Exception e) {
+            System.err.println("Erro ao atualizar índice de logs: " + e.getMessage());
+        }
+    }
+
+    private void atualizarDesde(long desde) {
+        long limite = exclusaoRepository.versaoEstavel();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_ALTERADOS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(1_000);
+            ps.setLong(1, desde);
+            ps.setLong(2, limite);
+            return ps;
+        }, (RowCallbackHandler) rs -> indexar(rs.getInt(1), rs.getTimestamp(2).toLocalDateTime(), rs.getString(3),
+                rs.getString(4)));
+        for (ExclusaoEntity exclusao : exclusaoRepository.buscarDesde(desde, limite)) {
+            if (SincronizacaoService.LOGS.equals(exclusao.getEntidade())) {
+                remover(exclusao.getIdRegistro());
+            }
+        }
+        versao = limite - 1;
+    }
+
+    // Inclui o log (ou troca a versão antiga dele pela nova)
+    void indexar(int idLog, LocalDateTime data, String titulo, String descricao) {
+        Map<String, Integer> frequencias = new LinkedHashMap<>();
+        for (String termo : Tokenizador.termos(titulo)) {
+            frequencias.merge(termo, PESO_TITULO, Integer::sum);
+        }
+        for (String termo : Tokenizador.termos(descricao)) {
+            frequencias.merge(termo, 1, Integer::sum);
+        }
+        int tamanho = frequencias.values().stream().mapToInt(Integer::intValue).sum();
+
+        trava.writeLock().lock();
+        try {
+            removerSemTrava(idLog);
+            int documento = documentos++;
+            if (documento == idPorDocumento.length) {
+                int novo = documento * 2;
+                idPorDocumento = Arrays.copyOf(idPorDocumento, novo);
+                tamanhoPorDocumento = Arrays.copyOf(tamanhoPorDocumento, novo);
+                segundoPorDocumento = Arrays.copyOf(segundoPorDocumento, novo);
+            }
+            idPorDocumento[documento] = idLog;
+            tamanhoPorDocumento[documento] = tamanho;
+            segundoPorDocumento[documento] = data != null ? data.toEpochSecond(ZoneOffset.UTC) : 0;
+            documentoPorId.put(idLog, documento);
+            frequencias.forEach((termo, frequencia) ->
+                    termos.computeIfAbsent(termo, t -> new ListaPostings()).adicionar(documento, frequencia));
+            vivos++;
+            somaTamanhos += tamanho;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    void remover(int idLog) {
+        trava.writeLock().lock();
+        try {
+            removerSemTrava(idLog);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void removerSemTrava(int idLog) {
+        Integer anterior = documentoPorId.remove(idLog);
+        if (anterior != null) {
+            removidos.set(anterior);
+            vivos--;
+            somaTamanhos -= tamanhoPorDocumento[anterior];
+        }
+    }
+
+    // --- BUSCA ---
+    // Paginação por posição no ranking ("cursor" = quantos já foram entregues)
+    public PaginaCursorDTO<LogEncontradoDTO> buscar(String consulta, String cursor, Integer limite) {
+        if (!pronto) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de busca ainda carregando.");
+        }
+        List<String> termosConsulta = Tokenizador.termos(consulta).stream().distinct().toList();
+        if (termosConsulta.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ao menos uma palavra para buscar.");
+        }
+        int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        int inicio;
+        try {
+            inicio = cursor == null || cursor.isBlank() ? 0 : Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido: " + cursor);
+        }
+        if (inicio < 0 || inicio + tamanho > JANELA_MAXIMA) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Só os " + JANELA_MAXIMA + " primeiros resultados são paginados. Refine a busca.");
+        }
+
+        List<Acerto> ranking = ranquear(termosConsulta, inicio + tamanho + 1);
+        boolean temMais = ranking.size() > inicio + tamanho;
+        List<Acerto> pagina = ranking.subList(Math.min(inicio, ranking.size()), Math.min(inicio + tamanho, ranking.size()));
+        return new PaginaCursorDTO<>(carregar(pagina), temMais ? String.valueOf(inicio + tamanho) : null, temMais);
+    }
+
+    private record Acerto(int documento, int idLog, long segundo, double nota) {
+    }
+
+    // Maior nota primeiro; no empate, o mais recente
+    private static final Comparator<Acerto> PIOR_PRIMEIRO = Comparator.comparingDouble(Acerto::nota)
+            .thenComparingInt(Acerto::documento);
+
+    private List<Acerto> ranquear(List<String> termosConsulta, int quantos) {
+        trava.readLock().lock();
+        try {
+            List<ListaPostings> listas = new ArrayList<>();
+            for (String termo : termosConsulta) {
+                ListaPostings lista = termos.get(termo);
+                if (lista == null) {
+                    return List.of(); // termo que não existe: nenhum log tem todos
+                }
+                listas.add(lista);
+            }
+            listas.sort(Comparator.comparingInt(ListaPostings::getQuantidade)); // o mais raro conduz
+
+            double mediaTamanho = vivos == 0 ? 1 : Math.max(1, (double) somaTamanhos / vivos);
+            double[] idf = new double[listas.size()];
+            ListaPostings.Leitor[] leitores = new ListaPostings.Leitor[listas.size()];
+            for (int i = 0; i < listas.size(); i++) {
+                int df = listas.get(i).getQuantidade();
+                idf[i] = Math.log(1 + (Math.max(vivos, df) - df + 0.5) / (df + 0.5));
+                leitores[i] = listas.get(i).leitor();
+            }
+
+            PriorityQueue<Acerto> melhores = new PriorityQueue<>(PIOR_PRIMEIRO);
+            ListaPostings.Leitor guia = leitores[0];
+            proximo:
+            while (guia.proximo()) {
+                int documento = guia.documento();
+                for (int i = 1; i < leitores.length; i++) {
+                    if (!leitores[i].avancarAte(documento)) {
+                        break proximo; // uma das listas acabou: não há mais interseção
+                    }
+                    if (leitores[i].documento() != documento) {
+                        continue proximo;
+                    }
+                }
+                if (removidos.get(documento)) {
+                    continue;
+                }
+                double normalizacao = K1 * (1 - B + B * tamanhoPorDocumento[documento] / mediaTamanho);
+                double nota = 0;
+                for (int i = 0; i < leitores.length; i++) {
+                    int frequencia = leitores[i].frequencia();
+                    nota += idf[i] * frequencia * (K1 + 1) / (frequencia + normalizacao);
+                }
+                melhores.add(new Acerto(documento, idPorDocumento[documento], segundoPorDocumento[documento], nota));
+                if (melhores.size() > quantos) {
+                    melhores.poll();
+                }
+            }
+            List<Acerto> ranking = new ArrayList<>(melhores);
+            ranking.sort(PIOR_PRIMEIRO.reversed());
+            return ranking;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // Os logs da página: primeiro do banco, o que não estiver lá vem do arquivo em disco
+    private List<LogEncontradoDTO> carregar(List<Acerto> pagina) {
+        if (pagina.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, LogEntity> porId = new HashMap<>();
+        logRepository.findAllById(pagina.stream().map(Acerto::idLog).toList()).forEach(l -> porId.put(l.getIdLog(), l));
+
+        List<Acerto> arquivados = pagina.stream().filter(a -> !porId.containsKey(a.idLog())).toList();
+        if (!arquivados.isEmpty()) {
+            long menor = arquivados.stream().mapToLong(Acerto::segundo).min().getAsLong();
+            long maior = arquivados.stream().mapToLong(Acerto::segundo).max().getAsLong();
+            arquivoLogService.buscarPorIds(arquivados.stream().map(Acerto::idLog).toList(),
+                    LocalDateTime.ofEpochSecond(menor, 0, ZoneOffset.UTC),
+                    LocalDateTime.ofEpochSecond(maior + 1, 0, ZoneOffset.UTC))
+                    .forEach(l -> porId.put(l.getIdLog(), l));
+        }
+
+        List<LogEncontradoDTO> itens = new ArrayList<>(pagina.size());
+        for (Acerto acerto : pagina) {
+            LogEntity log = porId.get(acerto.idLog());
+            if (log != null) { // excluído depois da última atualização do índice
+                itens.add(new LogEncontradoDTO(log, Math.round(acerto.nota() * 1000) / 1000.0));
+            }
+        }
+        return itens;
+    }
+}
@@ -1,25 +1,43 @@
 package com.landryjoias.crm.services;
 
+import com.landryjoias.crm.dto.PaginaCursorDTO;
 import com.landryjoias.crm.entity.LogEntity;
 import com.landryjoias.crm.entity.UsuarioEntity;
 import com.landryjoias.crm.repository.LogRepository;
-import com.landryjoias.crm.repository.UsuarioRepository; // Adicionado para buscar usuário
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 @RequiredArgsConstructor
 public class LogService {
+   static final int LIMITE_PADRAO = 50;
+   static final int LIMITE_MAXIMO = 500;
 
    private final LogRepository logRepository;
-   private final UsuarioRepository usuarioRepository; // 1. Precisamos disso para vincular o log a quem fez
+   private final AuditoriaService auditoriaService;
+   private final SincronizacaoService sincronizacaoService;
+   private final EntityManager entityManager;
+   private final ArquivoLogService arquivoLogService;
 
    // --- NOVO: Método Mágico para Logs Automáticos ---
    // Use este método dentro do ClienteService, PedidosService, etc.
+   // A gravação é feita em lote pelo AuditoriaService, fora da requisição.
    public void registrar(int tipoAtividade, String assunto, String descricao, String titulo, Integer idUsuario) {
       try {
          LogEntity log = new LogEntity();
@@ -29,15 +47,14 @@ public class LogService {
          log.setTitulo(titulo); // Ex: "Sucesso"
          log.setData(LocalDateTime.now()); // Data automática de hoje
 
-         // Se tiver um ID de usuário, busca e vincula
+         // Só o id é gravado, então não precisa buscar o usuário no banco
          if (idUsuario != null) {
-            Optional<UsuarioEntity> usuario = usuarioRepository.findById(idUsuario);
-            if (usuario.isPresent()) {
-               log.setUsuario(usuario.get());
-            }
+            UsuarioEntity usuario = new UsuarioEntity();
+            usuario.setIdUsuario(idUsuario);
+            log.setUsuario(usuario);
          }
 
-         logRepository.save(log);
+         auditoriaService.registrar(log);
       } catch (Exception e) {
          // Log nunca deve travar o sistema, então só avisamos no console se falhar
          System.err.println("Erro ao criar log automático: " + e.getMessage());
@@ -74,11 +91,114 @@ public class LogService {
       }
    }
 
-   public List<LogEntity> listarTodos() {
-      return logRepository.findAll();
+   // --- LISTAGEM PAGINADA (KEYSET) ---
+   // A tabela só cresce, então não existe mais "traz tudo": sempre há limite. Ordena por
+   // (data, idLog) decrescente e continua do último par devolvido. Só entra no WHERE o filtro
+   // informado, para o otimizador escolher o índice composto certo (ver LogEntity).
+   // Logs antigos saem do banco para o arquivo em disco (ArquivoLogService); a página junta os dois.
+   public PaginaCursorDTO<LogEntity> listarPagina(LocalDate de, LocalDate ate, Integer idUsuario, String assunto,
+         Integer tipoDeAtividade, String prefixoTitulo, String cursor, Integer limite) {
+      int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+      LocalDateTime cursorData = null;
+      Integer cursorId = null;
+      if (cursor != null && !cursor.isBlank()) {
+         try {
+            String[] partes = cursor.split("_");
+            cursorData = LocalDateTime.parse(partes[0]);
+            cursorId = Integer.valueOf(partes[1]);
+         } catch (ArrayIndexOutOfBoundsException | DateTimeParseException | NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido: " + cursor);
+         }
+      }
+      ArquivoLogService.Filtro filtro = new ArquivoLogService.Filtro(
+            de != null ? de.atStartOfDay() : null,
+            ate != null ? ate.plusDays(1).atStartOfDay() : null,
+            idUsuario,
+            assunto != null && !assunto.isBlank() ? assunto : null,
+            tipoDeAtividade,
+            prefixoTitulo != null && !prefixoTitulo.isBlank() ? prefixoTitulo : null,
+            cursorData, cursorId);
+
+      // Pede um a mais só para saber se existe próxima página
+      List<LogEntity> linhas = buscarNoBanco(filtro, tamanho + 1);
+
+      // O arquivo só é lido se ainda puder ter algo desta página: página incompleta no banco ou
+      // última linha do banco mais antiga que o registro arquivado mais novo
+      LocalDateTime arquivadoMaisRecente = arquivoLogService.getMaisRecente();
+      if (arquivadoMaisRecente != null && (linhas.size() <= tamanho
+            || !linhas.get(linhas.size() - 1).getData().isAfter(arquivadoMaisRecente))) {
+         Map<Integer, LogEntity> porId = new LinkedHashMap<>();
+         linhas.forEach(l -> porId.put(l.getIdLog(), l));
+         arquivoLogService.buscar(filtro, tamanho + 1).forEach(l -> porId.putIfAbsent(l.getIdLog(), l));
+         linhas = new ArrayList<>(porId.values());
+         linhas.sort(ArquivoLogService.ORDEM);
+         if (linhas.size() > tamanho + 1) {
+            linhas = linhas.subList(0, tamanho + 1);
+         }
+      }
+
+      boolean temMais = linhas.size() > tamanho;
+      if (temMais) {
+         linhas = linhas.subList(0, tamanho);
+      }
+      String proximoCursor = null;
+      if (temMais) {
+         LogEntity ultimo = linhas.get(linhas.size() - 1);
+         proximoCursor = ultimo.getData() + "_" + ultimo.getIdLog();
+      }
+      return new PaginaCursorDTO<>(linhas, proximoCursor, temMais);
+   }
+
+   private List<LogEntity> buscarNoBanco(ArquivoLogService.Filtro filtro, int maximo) {
+      StringBuilder jpql = new StringBuilder("SELECT l FROM LogEntity l LEFT JOIN FETCH l.usuario WHERE 1 = 1");
+      Map<String, Object> parametros = new HashMap<>();
+      if (filtro.de() != null) {
+         jpql.append(" AND l.data >= :de");
+         parametros.put("de", filtro.de());
+      }
+      if (filtro.ate() != null) {
+         jpql.append(" AND l.data < :ate");
+         parametros.put("ate", filtro.ate());
+      }
+      if (filtro.idUsuario() != null) {
+         jpql.append(" AND l.usuario.idUsuario = :usuario");
+         parametros.put("usuario", filtro.idUsuario());
+      }
+      if (filtro.assunto() != null) {
+         jpql.append(" AND l.assunto = :assunto");
+         parametros.put("assunto", filtro.assunto());
+      }
+      if (filtro.tipoDeAtividade() != null) {
+         jpql.append(" AND l.tipoDeAtividade = :tipo");
+         parametros.put("tipo", filtro.tipoDeAtividade());
+      }
+      if (filtro.prefixoTitulo() != null) {
+         jpql.append(" AND l.titulo LIKE :titulo ESCAPE '\\'");
+         parametros.put("titulo", filtro.prefixoTitulo().replace("\\", "\\\\").replace("%", "\\%")
+               .replace("_", "\\_") + "%");
+      }
+      if (filtro.cursorData() != null) {
+         jpql.append(" AND (l.data < :cursorData OR (l.data = :cursorData AND l.idLog < :cursorId))");
+         parametros.put("cursorData", filtro.cursorData());
+         parametros.put("cursorId", filtro.cursorId());
+      }
+      jpql.append(" ORDER BY l.data DESC, l.idLog DESC");
+
+      TypedQuery<LogEntity> consulta = entityManager.createQuery(jpql.toString(), LogEntity.class)
+            .setMaxResults(maximo);
+      parametros.forEach(consulta::setParameter);
+      return consulta.getResultList();
+   }
+
+   // Sem @Transactional: quem consome o Stream abre a transação (ver FluxoJsonService)
+   public Stream<LogEntity> listarTodosEmFluxo() {
+      return logRepository.buscarTodosEmFluxo();
    }
 
+   @Transactional
    public void excluir(Integer id) {
       logRepository.deleteById(id);
+      sincronizacaoService.registrarExclusao(SincronizacaoService.LOGS, id);
    }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.dto.PaginaCursorDTO;
+import com.landryjoias.crm.entity.MovimentoEstoqueEntity;
+import com.landryjoias.crm.entity.TipoMovimento;
+import com.landryjoias.crm.repository.MovimentoEstoqueRepository;
+import com.landryjoias.crm.repository.MovimentoEstoqueRepository.SaidaPedido;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// --- LIVRO-RAZÃO DO ESTOQUE ---
+// Toda mudança de estoque feita pela aplicação vira uma linha em Movimentos_Estoque (só INSERT,
+// nunca UPDATE/DELETE). De tempos em tempos um snapshot por produto consolida a soma até o
+// último movimento; o saldo é "snapshot + cauda", então a leitura não cresce com o histórico.
+// Produtos.quantidade_estoque continua existindo como projeção para as telas e a procedure.
+//
+// Quem ainda escreve na projeção:
+//  - gravação das reservas (ReservaEstoqueService): UPDATE relativo em lote. É a única que não
+//    leva movimento junto: a VENDA entrou no razão na transação do item, e a projeção só
+//    alcança o razão em até 1s;
+//  - sp_AdicionarItemPedido: baixa relativa na mesma transação do movimento VENDA
+//    (PedidosService.adicionarItemViaProcedure). A procedure não mexe na versão do produto;
+//    quem a chama sobe a versão logo depois, na mesma transação;
+//  - editar produto (PUT) e PATCH de quantidadeEstoque: exceção, gravam por cima o valor
+//    absoluto digitado. O razão recebe a diferença (novo - antigo) como AJUSTE na mesma
+//    transação, e a versão do produto (que a procedure e as reservas também sobem) faz a
+//    gravação falhar se uma baixa entrou depois da leitura.
+@Service
+@RequiredArgsConstructor
+public class MovimentoEstoqueService {
+    private static final long CONSOLIDAR_MS = 10 * 60 * 1000L;
+    private static final int LIMITE_MAXIMO = 200;
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO Movimentos_Estoque (id_produto, tipo, quantidade, data, id_pedido) VALUES (?, ?, ?, ?, ?)";
+
+    // Saldo de abertura: produtos que ainda não têm nada no razão partem do valor atual da tabela
+    private static final String SQL_ABERTURA =
+            "INSERT INTO Snapshots_Estoque (id_produto, id_movimento, quantidade, data) " +
+            "SELECT p.id_produto, 0, p.quantidade_estoque, SYSDATETIME() FROM Produtos p " +
+            "WHERE NOT EXISTS (SELECT 1 FROM Snapshots_Estoque s WHERE s.id_produto = p.id_produto) " +
+            "AND NOT EXISTS (SELECT 1 FROM Movimentos_Estoque m WHERE m.id_produto = p.id_produto)";
+
+    // Um snapshot novo por produto com cauda. Só entra movimento com mais de 1 minuto, para não
+    // passar por cima de um INSERT de id menor que ainda não foi commitado.
+    private static final String SQL_CONSOLIDAR =
+            "INSERT INTO Snapshots_Estoque (id_produto, id_movimento, quantidade, data) " +
+            "SELECT m.id_produto, MAX(m.id_movimento), COALESCE(MAX(s.quantidade), 0) + SUM(m.quantidade), MAX(m.data) " +
+            "FROM Movimentos_Estoque m " +
+            "OUTER APPLY (SELECT TOP 1 quantidade, id_movimento FROM Snapshots_Estoque " +
+            "    WHERE id_produto = m.id_produto ORDER BY id_movimento DESC) s " +
+            "WHERE m.id_movimento > COALESCE(s.id_movimento, 0) AND m.data < DATEADD(MINUTE, -1, SYSDATETIME()) " +
+            "GROUP BY m.id_produto";
+
+    private final MovimentoEstoqueRepository movimentoEstoqueRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Entra na transação de quem chamou: se o negócio for desfeito, o movimento também é
+    public void registrar(Integer idProduto, TipoMovimento tipo, int quantidade, Integer idPedido) {
+        if (idProduto == null || quantidade == 0) {
+            return;
+        }
+        jdbcTemplate.update(SQL_INSERIR, ps -> {
+            ps.setInt(1, idProduto);
+            ps.setInt(2, tipo.ordinal());
+            ps.setInt(3, quantidade);
+            ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            if (idPedido != null) {
+                ps.setInt(5, idPedido);
+            } else {
+                ps.setNull(5, Types.INTEGER);
+            }
+        });
+    }
+
+    // O que os pedidos tiraram do estoque e ainda não voltou (pedido criado sem baixa não aparece)
+    public List<SaidaPedido> saidasEmAberto(Collection<Integer> idsPedidos) {
+        return movimentoEstoqueRepository.buscarSaidasPorPedidos(idsPedidos,
+                List.of(TipoMovimento.VENDA, TipoMovimento.CANCELAMENTO));
+    }
+
+    public int saldoAtual(Integer idProduto) {
+        Integer saldo = movimentoEstoqueRepository.saldoAtual(idProduto);
+        return saldo != null ? saldo : 0;
+    }
+
+    public int saldoEm(Integer idProduto, LocalDateTime em) {
+        Integer saldo = movimentoEstoqueRepository.saldoEm(idProduto, em);
+        return saldo != null ? saldo : 0;
+    }
+
+    // Do mais recente para o mais antigo; o cursor é o id do último movimento da página
+    public PaginaCursorDTO<MovimentoEstoqueEntity> historico(Integer idProduto, String cursor, int limite) {
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limite deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+        }
+        Long antesDe;
+        try {
+            antesDe = cursor == null || cursor.isBlank() ? null : Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido.");
+        }
+        List<MovimentoEstoqueEntity> linhas = movimentoEstoqueRepository.buscarHistorico(idProduto, antesDe,
+                PageRequest.of(0, limite + 1));
+        boolean temMais = linhas.size() > limite;
+        if (temMais) {
+            linhas = linhas.subList(0, limite);
+        }
+        String proximoCursor = temMais ? String.valueOf(linhas.get(linhas.size() - 1).getIdMovimento()) : null;
+        return new PaginaCursorDTO<>(linhas, proximoCursor, temMais);
+    }
+
+    // --- SNAPSHOTS ---
+    @EventListener(ApplicationReadyEvent.class)
+    public void abrirSaldos() {
+        try {
+            jdbcTemplate.update(SQL_ABERTURA);
+        } catch (Exception e) {
+            System.err.println("Erro ao abrir saldos do razão de estoque: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelay = CONSOLIDAR_MS, fixedDelay = CONSOLIDAR_MS)
+    public void consolidar() {
+        try {
+            jdbcTemplate.update(SQL_CONSOLIDAR);
+        } catch (Exception e) {
+            System.err.println("Erro ao consolidar snapshots de estoque: " + e.getMessage());
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.landryjoias.crm.services;
 
+import com.landryjoias.crm.dto.ResultadoTransicaoDTO;
+import com.landryjoias.crm.dto.TransicaoLoteDTO;
+import com.landryjoias.crm.entity.EstagioFunil;
 import com.landryjoias.crm.entity.LogEntity;
 import com.landryjoias.crm.entity.OportunidadesEntity;
 import com.landryjoias.crm.entity.UsuarioEntity;
 import com.landryjoias.crm.entity.NivelAcesso; // Importação essencial
-import com.landryjoias.crm.repository.LogRepository;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
 import com.landryjoias.crm.repository.OportunidadesRepository;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Alvo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Campo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Resultado;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Transicao;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -16,17 +23,30 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class OportunidadesService {
     private final OportunidadesRepository repository;
-    private final LogRepository logRepository;
+    private final AuditoriaService auditoriaService;
+    private final SincronizacaoService sincronizacaoService;
+    private final AtualizacaoParcialService atualizacaoParcialService;
+    private final TransicaoLoteService transicaoLoteService;
+
+    // Campos aceitos no PATCH (nome no JSON -> atributo da entidade)
+    private static final Alvo ALVO_PATCH = new Alvo("OportunidadesEntity", "idOportunidade", Map.of(
+            "nomeOportunidade", Campo.texto("nomeOportunidade"),
+            "valorEstimado", Campo.inteiro("valorEstimado"),
+            "estagioFunil", Campo.enumeracao("estagioFunil", EstagioFunil.class),
+            "dataDeFechamentoEstimada", Campo.data("dataDeFechamentoEstimada")), null,
+            Transicao.de("estagioFunil", EstagioFunil.class, EstagioFunil::podeMudarPara));
 
     @Transactional
     public OportunidadesEntity incluir(OportunidadesEntity oportunidade) {
         OportunidadesEntity salvo = repository.save(oportunidade);
+        sincronizacaoService.notificar(SincronizacaoService.OPORTUNIDADES, salvo.getIdOportunidade(), Operacao.CRIADO);
         registrarLog("Oportunidade Criada", "Nova oportunidade '" + salvo.getNomeOportunidade() + "' iniciada por " + getUsuarioLogadoEmail());
         return salvo;
     }
@@ -37,6 +57,12 @@ public class OportunidadesService {
         if (existente.isPresent()) {
             OportunidadesEntity atual = existente.get();
             String estagioAntigo = atual.getEstagioFunil() != null ? atual.getEstagioFunil().toString() : "N/A";
+            EstagioFunil origem = atual.getEstagioFunil();
+            EstagioFunil destino = novosDados.getEstagioFunil();
+            // Mesma regra do PATCH e do lote
+            if (origem != destino && (origem == null || destino == null || !origem.podeMudarPara(destino))) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Transição inválida: " + origem + " -> " + destino);
+            }
             
             atual.setNomeOportunidade(novosDados.getNomeOportunidade());
             atual.setValorEstimado(novosDados.getValorEstimado());
@@ -45,12 +71,38 @@ public class OportunidadesService {
             atual.setCliente(novosDados.getCliente());
 
             OportunidadesEntity salvo = repository.save(atual);
+            sincronizacaoService.notificar(SincronizacaoService.OPORTUNIDADES, salvo.getIdOportunidade(), Operacao.ATUALIZADO);
             registrarLog("Oportunidade Atualizada", "Status de '" + salvo.getNomeOportunidade() + "' mudou (" + estagioAntigo + " -> " + salvo.getEstagioFunil() + ") por " + getUsuarioLogadoEmail());
             return salvo;
         }
         return null;
     }
 
+    // PATCH: só os campos enviados, com If-Match. Devolve a nova ETag.
+    @Transactional
+    public String atualizarParcial(int id, Map<String, Object> campos, String ifMatch) {
+        Resultado resultado = atualizacaoParcialService.aplicar(ALVO_PATCH, id, campos, ifMatch, "estagioFunil");
+        sincronizacaoService.notificar(SincronizacaoService.OPORTUNIDADES, id, Operacao.ATUALIZADO);
+        String detalhe = resultado.mudou("estagioFunil")
+                ? "Status da oportunidade #" + id + " mudou (" + resultado.antes().get("estagioFunil") + " -> " + resultado.depois().get("estagioFunil") + ")"
+                : "Campos " + campos.keySet() + " da oportunidade #" + id + " atualizados";
+        registrarLog("Oportunidade Atualizada", detalhe + " por " + getUsuarioLogadoEmail());
+        return resultado.etag();
+    }
+
+    // Várias oportunidades para o mesmo estágio, validado por EstagioFunil.podeMudarPara
+    @Transactional
+    public List<ResultadoTransicaoDTO> alterarEstagioEmLote(TransicaoLoteDTO dto) {
+        List<ResultadoTransicaoDTO> resultados = transicaoLoteService.aplicar("OportunidadesEntity", "idOportunidade",
+                "estagioFunil", EstagioFunil.class, dto.getIds(), dto.getDestino(), EstagioFunil::podeMudarPara);
+        resultados.stream()
+                .filter(r -> ResultadoTransicaoDTO.ALTERADO.equals(r.getResultado()))
+                .forEach(r -> sincronizacaoService.notificar(SincronizacaoService.OPORTUNIDADES, r.getId(), Operacao.ATUALIZADO));
+        registrarLog("Estágio em Lote", "Oportunidades -> " + dto.getDestino() + " por " + getUsuarioLogadoEmail() + ". "
+                + TransicaoLoteService.resumir(resultados));
+        return resultados;
+    }
+
     public List<OportunidadesEntity> listarTodos() {
         return repository.findAll();
     }
@@ -80,6 +132,7 @@ public class OportunidadesService {
             try {
                 repository.deleteById(id);
                 repository.flush();
+                sincronizacaoService.registrarExclusao(SincronizacaoService.OPORTUNIDADES, id);
                 registrarLog("Oportunidade Excluída", "Negociação '" + nome + "' removida por " + getUsuarioLogadoEmail());
             
             } catch (DataIntegrityViolationException e) {
@@ -123,7 +176,7 @@ public class OportunidadesService {
             log.setDescricao(descricao);
             log.setData(LocalDateTime.now());
             log.setUsuario(getUsuarioLogado());
-            logRepository.save(log);
+            auditoriaService.registrar(log);
         } catch (Exception e) {}
     }
 }
\ No newline at end of file
@@ -1,90 +1,312 @@
 package com.landryjoias.crm.services;
 
+import com.landryjoias.crm.cache.ProdutoCache;
+import com.landryjoias.crm.dto.PaginaCursorDTO;
 import com.landryjoias.crm.dto.PedidoDTO;
+import com.landryjoias.crm.dto.PedidoResumoDTO;
+import com.landryjoias.crm.dto.ResultadoTransicaoDTO;
+import com.landryjoias.crm.dto.TransicaoLoteDTO;
 import com.landryjoias.crm.entity.*;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
 import com.landryjoias.crm.repository.*;
+import com.landryjoias.crm.repository.MovimentoEstoqueRepository.SaidaPedido;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Alvo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Campo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Resultado;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Transicao;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PedidosService {
+    private static final int LIMITE_PADRAO = 50;
+    private static final int LIMITE_MAXIMO = 200;
+    private static final int TAMANHO_LOTE_ITENS = 100;
+    private static final String SQL_INSERIR_ITEM =
+            "INSERT INTO Produtos_Pedidos (id_pedido, id_produto, quantidade, pedra, tamanho, tamanho_personalizado, valor) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Mesmo produto já no pedido: soma a quantidade
+    private static final String SQL_SOMAR_ITEM =
+            "MERGE Produtos_Pedidos AS i USING (SELECT ? AS id_pedido, ? AS id_produto) AS s " +
+            "ON i.id_pedido = s.id_pedido AND i.id_produto = s.id_produto " +
+            "WHEN MATCHED THEN UPDATE SET quantidade = i.quantidade + ? " +
+            "WHEN NOT MATCHED THEN INSERT (id_pedido, id_produto, quantidade, pedra, tamanho, tamanho_personalizado, valor) " +
+            "VALUES (s.id_pedido, s.id_produto, ?, ?, ?, ?, ?);";
+
+    // Campos aceitos no PATCH (nome no JSON -> atributo da entidade)
+    private static final Alvo ALVO_PATCH = new Alvo("PedidosEntity", "idPedido", Map.of(
+            "data", Campo.data("data"),
+            "valorTotal", Campo.inteiro("valorTotal"),
+            "status", Campo.enumeracao("status", StatusPedido.class)), null,
+            Transicao.de("status", StatusPedido.class, StatusPedido::podeMudarPara));
+
     private final PedidosRepository pedidosRepository;
     private final Produto_pedidoRepository itemRepository;
-    private final ProdutosRepository produtosRepository;
+    private final ProdutoCache produtoCache;
     private final OportunidadesRepository oportunidadesRepository;
-    private final LogRepository logRepository;
-    private final UsuarioRepository usuarioRepository;
+    private final AuditoriaService auditoriaService;
+    private final SincronizacaoService sincronizacaoService;
+    private final ReceitaService receitaService;
+    private final ReservaEstoqueService reservaEstoqueService;
+    private final MovimentoEstoqueService movimentoEstoqueService;
+    private final AtualizacaoParcialService atualizacaoParcialService;
+    private final TransicaoLoteService transicaoLoteService;
+    private final CatalogoService catalogoService;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
 
     @Transactional
     public PedidosEntity incluir(PedidoDTO dto) {
-        // 1. Criar e Salvar o Cabeçalho
-        PedidosEntity pedido = new PedidosEntity();
-        pedido.setData(dto.getData());
-        pedido.setStatus(dto.getStatus());
-        pedido.setValorTotal(dto.getValorTotal().intValue()); 
-
-        if (dto.getIdOportunidade() != null) {
-            OportunidadesEntity op = oportunidadesRepository.findById(dto.getIdOportunidade())
-                    .orElse(null);
-            pedido.setOportunidade(op);
-        }
-
-        PedidosEntity pedidoSalvo = pedidosRepository.save(pedido);
-
-        // 2. Salvar os Itens
-        if (dto.getItens() != null && !dto.getItens().isEmpty()) {
-            for (PedidoDTO.ItemPedidoDTO itemDto : dto.getItens()) {
-                ProdutosEntity produto = produtosRepository.findById(itemDto.getIdProduto())
-                        .orElseThrow(() -> new RuntimeException("Produto não encontrado ID: " + itemDto.getIdProduto()));
-
-                ProdutoPedidoEntity itemEntity = new ProdutoPedidoEntity();
-                ProdutoPedidoId id = new ProdutoPedidoId(pedidoSalvo.getIdPedido(), produto.getIdProduto());
-                itemEntity.setId(id);
-                itemEntity.setPedido(pedidoSalvo);
-                itemEntity.setProduto(produto);
-                itemEntity.setQuantidade(itemDto.getQuantidade());
-                itemEntity.setValor(itemDto.getValor().floatValue());
-                itemEntity.setPedra(itemDto.getPedra());
-
-                try {
-                    Tamanho tamanhoEnum = Tamanho.valueOf(itemDto.getTamanho());
-                    itemEntity.setTamanho(tamanhoEnum);
-                } catch (Exception e) {
-                    itemEntity.setTamanho(Tamanho.PERSONALIZADO);
-                    itemEntity.setTamanhoPersonalizado(itemDto.getTamanho());
+        PedidosEntity pedidoSalvo = salvarPedidos(List.of(dto)).get(0);
+
+        registrarLog("Pedido Criado", "Pedido #" + pedidoSalvo.getIdPedido() + " criado com sucesso.");
+
+        return pedidoSalvo;
+    }
+
+    // --- CRIAÇÃO EM LOTE (ATACADO) ---
+    // Tudo numa transação só: se um pedido falhar, nenhum é gravado.
+    @Transactional
+    public List<PedidosEntity> incluirLote(List<PedidoDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nenhum pedido informado.");
+        }
+        List<PedidosEntity> salvos = salvarPedidos(dtos);
+
+        registrarLog("Pedidos Criados em Lote", salvos.size() + " pedidos criados (#"
+                + salvos.get(0).getIdPedido() + " a #" + salvos.get(salvos.size() - 1).getIdPedido() + ")");
+
+        return salvos;
+    }
+
+    // Grava cabeçalhos e itens gastando o mínimo de idas ao banco:
+    // 1 consulta para todas as oportunidades, no máximo 1 para os produtos fora do cache,
+    // 1 INSERT por cabeçalho (IDENTITY) e 1 batch JDBC para todos os itens.
+    // O retorno é montado em memória, sem reler o pedido.
+    private List<PedidosEntity> salvarPedidos(List<PedidoDTO> dtos) {
+        // 1. Resolver oportunidades e produtos de uma vez
+        Set<Integer> idsOportunidades = new HashSet<>();
+        Set<Integer> idsProdutos = new HashSet<>();
+        for (PedidoDTO dto : dtos) {
+            if (dto.getIdOportunidade() != null) {
+                idsOportunidades.add(dto.getIdOportunidade());
+            }
+            if (dto.getItens() != null) {
+                for (PedidoDTO.ItemPedidoDTO itemDto : dto.getItens()) {
+                    if (itemDto.getIdProduto() == null) {
+                        throw new RuntimeException("Produto não encontrado ID: null");
+                    }
+                    idsProdutos.add(itemDto.getIdProduto());
                 }
+            }
+        }
 
-                itemRepository.save(itemEntity);
+        Map<Integer, OportunidadesEntity> oportunidades = new HashMap<>();
+        if (!idsOportunidades.isEmpty()) {
+            for (OportunidadesEntity op : oportunidadesRepository.findAllById(idsOportunidades)) {
+                oportunidades.put(op.getIdOportunidade(), op);
             }
         }
 
-        registrarLog("Pedido Criado", "Pedido #" + pedidoSalvo.getIdPedido() + " criado com sucesso.");
-        
-        return pedidosRepository.findById(pedidoSalvo.getIdPedido())
-                .orElse(pedidoSalvo);
+        // Produtos mudam pouco: os que estão no cache nem vão ao banco
+        Map<Integer, ProdutosEntity> produtos = idsProdutos.isEmpty() ? Map.of() : produtoCache.buscarVarios(idsProdutos);
+        // Valida antes de gravar qualquer coisa
+        for (Integer idProduto : idsProdutos) {
+            if (!produtos.containsKey(idProduto)) {
+                throw new RuntimeException("Produto não encontrado ID: " + idProduto);
+            }
+        }
+
+        // 2. Cabeçalhos
+        List<PedidosEntity> salvos = new ArrayList<>(dtos.size());
+        List<ProdutoPedidoEntity> todosItens = new ArrayList<>();
+        for (PedidoDTO dto : dtos) {
+            PedidosEntity pedido = new PedidosEntity();
+            pedido.setData(dto.getData());
+            pedido.setStatus(dto.getStatus());
+            pedido.setValorTotal(dto.getValorTotal().intValue());
+            if (dto.getIdOportunidade() != null) {
+                pedido.setOportunidade(oportunidades.get(dto.getIdOportunidade()));
+            }
+
+            PedidosEntity pedidoSalvo = pedidosRepository.save(pedido);
+
+            // Mesmo produto repetido no pedido: o último prevalece (a PK é pedido + produto)
+            Map<Integer, ProdutoPedidoEntity> itens = new LinkedHashMap<>();
+            if (dto.getItens() != null) {
+                for (PedidoDTO.ItemPedidoDTO itemDto : dto.getItens()) {
+                    itens.put(itemDto.getIdProduto(), montarItem(pedidoSalvo, produtos.get(itemDto.getIdProduto()), itemDto));
+                }
+            }
+
+            // Os itens vão pelo JDBC; o pedido sai do contexto do Hibernate para
+            // a lista montada aqui não ser tratada como coleção a sincronizar.
+            entityManager.detach(pedidoSalvo);
+            pedidoSalvo.setItens(new ArrayList<>(itens.values()));
+
+            salvos.add(pedidoSalvo);
+            todosItens.addAll(itens.values());
+        }
+
+        // 3. Itens de todos os pedidos num único batch
+        inserirItensEmLote(todosItens);
+        receitaService.recalcularDias(salvos.stream().map(PedidosEntity::getData).toList());
+
+        for (PedidosEntity salvo : salvos) {
+            sincronizacaoService.notificar(SincronizacaoService.PEDIDOS, salvo.getIdPedido(), Operacao.CRIADO);
+        }
+        return salvos;
+    }
+
+    private ProdutoPedidoEntity montarItem(PedidosEntity pedido, ProdutosEntity produto, PedidoDTO.ItemPedidoDTO itemDto) {
+        ProdutoPedidoEntity itemEntity = new ProdutoPedidoEntity();
+        itemEntity.setId(new ProdutoPedidoId(pedido.getIdPedido(), produto.getIdProduto()));
+        itemEntity.setPedido(pedido);
+        itemEntity.setProduto(produto);
+        itemEntity.setQuantidade(itemDto.getQuantidade());
+        itemEntity.setValor(itemDto.getValor().floatValue());
+        itemEntity.setPedra(itemDto.getPedra());
+
+        try {
+            Tamanho tamanhoEnum = Tamanho.valueOf(itemDto.getTamanho());
+            itemEntity.setTamanho(tamanhoEnum);
+        } catch (Exception e) {
+            itemEntity.setTamanho(Tamanho.PERSONALIZADO);
+            itemEntity.setTamanhoPersonalizado(itemDto.getTamanho());
+        }
+        return itemEntity;
+    }
+
+    private void inserirItensEmLote(List<ProdutoPedidoEntity> itens) {
+        if (itens.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERIR_ITEM, itens, TAMANHO_LOTE_ITENS, (ps, item) -> {
+            ps.setInt(1, item.getId().getIdPedido());
+            ps.setInt(2, item.getId().getIdProduto());
+            ps.setInt(3, item.getQuantidade());
+            ps.setString(4, item.getPedra());
+            ps.setString(5, item.getTamanho().name());
+            ps.setString(6, item.getTamanhoPersonalizado());
+            ps.setFloat(7, item.getValor());
+        });
+    }
+
+    // --- ITEM COM RESERVA EM MEMÓRIA ---
+    // Alternativa à sp_AdicionarItemPedido para produtos disputados: o estoque é reservado no
+    // ReservaEstoqueService (sem travar a linha do produto) e só o pedido e o item vão ao banco.
+    // Se a transação for desfeita, a reserva volta.
+    @Transactional
+    public void adicionarItemComReserva(Integer idPedido, Integer idProduto, Integer quantidade) {
+        if (idProduto == null || quantidade == null || quantidade <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe idProduto e quantidade positiva.");
+        }
+        ProdutosEntity produto = produtoCache.buscar(idProduto);
+        if (produto == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Produto não encontrado ID: " + idProduto);
+        }
+        if (!reservaEstoqueService.reservar(idProduto, quantidade)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Estoque insuficiente para o produto " + produto.getNome());
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservaEstoqueService.liberar(idProduto, quantidade);
+                }
+            }
+        });
+
+        int valorItens = Math.round(produto.getValor() * quantidade);
+        int atualizados = jdbcTemplate.update("UPDATE Pedidos SET valor_total = valor_total + ? WHERE id_pedido = ?",
+                valorItens, idPedido);
+        if (atualizados == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Pedido não encontrado ID: " + idPedido);
+        }
+        jdbcTemplate.update(SQL_SOMAR_ITEM, idPedido, idProduto, quantidade, quantidade,
+                produto.getTipoPedra() != null ? produto.getTipoPedra().name() : null,
+                produto.getTamanho().name(), produto.getTamanhoPersonalizado(), produto.getValor());
+        movimentoEstoqueService.registrar(idProduto, TipoMovimento.VENDA, -quantidade, idPedido);
+
+        receitaService.recalcularDiaDoPedido(idPedido);
+        sincronizacaoService.notificar(SincronizacaoService.PEDIDOS, idPedido, Operacao.ATUALIZADO);
+        registrarLog("Item Reservado", quantidade + "x produto #" + idProduto + " adicionado ao pedido #" + idPedido);
+    }
+
+    // --- ITEM PELA PROCEDURE ---
+    // sp_AdicionarItemPedido baixa o estoque e soma o total no banco. A chamada, a versão do produto
+    // e o movimento no razão ficam na mesma transação: se a procedure falhar, não sobra movimento,
+    // e vice-versa.
+    @Transactional
+    public void adicionarItemViaProcedure(Integer idPedido, Integer idProduto, Integer quantidade) {
+        pedidosRepository.adicionarItemViaProcedure(idPedido, idProduto, quantidade);
+        // A procedure baixa quantidade_estoque sem mexer na versão: sobe aqui, na mesma transação,
+        // para um PUT de produto carregado antes da venda não gravar o estoque antigo por cima
+        jdbcTemplate.update("UPDATE Produtos SET versao = versao + 1 WHERE id_produto = ?", idProduto);
+
+        receitaService.recalcularDiaDoPedido(idPedido);
+        movimentoEstoqueService.registrar(idProduto, TipoMovimento.VENDA, -quantidade, idPedido);
+        reservaEstoqueService.ajustar(idProduto, -quantidade);
+        produtoCache.invalidar(idProduto);
+        catalogoService.recarregar(idProduto);
+        sincronizacaoService.notificar(SincronizacaoService.PEDIDOS, idPedido, Operacao.ATUALIZADO);
+        sincronizacaoService.notificar(SincronizacaoService.PRODUTOS, idProduto, Operacao.ATUALIZADO);
     }
 
+    @Transactional
     public PedidosEntity editar(int id, PedidosEntity pedidos) {
         Optional<PedidosEntity> existente = this.pedidosRepository.findById(id);
         if (existente.isPresent()) {
             PedidosEntity atual = existente.get();
             String statusAntigo = atual.getStatus() != null ? atual.getStatus().toString() : "N/A";
+            LocalDate dataAntiga = atual.getData();
+            StatusPedido statusAnterior = atual.getStatus();
+            validarTransicao(statusAnterior, pedidos.getStatus());
+            // O pedido não tem versão: o UPDATE condicionado ao status lido trava a linha e
+            // recusa a edição se outra transação já mudou o status (ex.: dois cancelamentos)
+            if (statusAnterior != pedidos.getStatus() && jdbcTemplate.update(
+                    "UPDATE Pedidos SET status = ? WHERE id_pedido = ? AND status = ?",
+                    pedidos.getStatus().name(), id, statusAnterior.name()) == 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "O status do pedido #" + id + " mudou enquanto era editado. Recarregue e tente de novo.");
+            }
             
             atual.setData(pedidos.getData());
             atual.setValorTotal(pedidos.getValorTotal());
             atual.setStatus(pedidos.getStatus());
             
             PedidosEntity salvo = this.pedidosRepository.save(atual);
+            this.pedidosRepository.flush();
+            receitaService.recalcularDias(Arrays.asList(dataAntiga, salvo.getData())); // a data pode ter mudado
+            if (statusAnterior != StatusPedido.CANCELADO && salvo.getStatus() == StatusPedido.CANCELADO) {
+                devolverEstoque(List.of(id));
+            }
+            sincronizacaoService.notificar(SincronizacaoService.PEDIDOS, salvo.getIdPedido(), Operacao.ATUALIZADO);
             registrarLog("Pedido Editado", "Pedido #" + id + " status: " + statusAntigo + " -> " + pedidos.getStatus());
             
             return pedidosRepository.findById(salvo.getIdPedido()).orElse(salvo);
@@ -92,15 +314,129 @@ public class PedidosService {
         return null;
     }
 
+    // PATCH: só os campos enviados, com If-Match (ex.: mudar só o status). Devolve a nova ETag.
+    @Transactional
+    public String atualizarParcial(int id, Map<String, Object> campos, String ifMatch) {
+        Resultado resultado = atualizacaoParcialService.aplicar(ALVO_PATCH, id, campos, ifMatch, "data", "status");
+        receitaService.recalcularDias(Arrays.asList((LocalDate) resultado.antes().get("data"), (LocalDate) resultado.depois().get("data")));
+        if (resultado.mudou("status") && resultado.depois().get("status") == StatusPedido.CANCELADO) {
+            devolverEstoque(List.of(id));
+        }
+        sincronizacaoService.notificar(SincronizacaoService.PEDIDOS, id, Operacao.ATUALIZADO);
+        registrarLog("Pedido Editado", "Pedido #" + id + " status: " + resultado.antes().get("status") + " -> " + resultado.depois().get("status"));
+        return resultado.etag();
+    }
+
+    // Vários pedidos para o mesmo status (ex.: PAGO -> PRODUCAO), validado por StatusPedido.podeMudarPara
+    @Transactional
+    public List<ResultadoTransicaoDTO> alterarStatusEmLote(TransicaoLoteDTO dto) {
+        List<ResultadoTransicaoDTO> resultados = transicaoLoteService.aplicar("PedidosEntity", "idPedido", "status",
+                StatusPedido.class, dto.getIds(), dto.getDestino(), StatusPedido::podeMudarPara);
+        List<Integer> alterados = resultados.stream()
+                .filter(r -> ResultadoTransicaoDTO.ALTERADO.equals(r.getResultado()))
+                .map(ResultadoTransicaoDTO::getId)
+                .toList();
+        if (!alterados.isEmpty()) {
+            receitaService.recalcularDias(pedidosRepository.buscarDatas(alterados)); // cancelado sai da receita
+            if (StatusPedido.CANCELADO.name().equals(dto.getDestino())) {
+                devolverEstoque(alterados);
+            }
+            alterados.forEach(id -> sincronizacaoService.notificar(SincronizacaoService.PEDIDOS, id, Operacao.ATUALIZADO));
+        }
+        registrarLog("Status em Lote", "Pedidos -> " + dto.getDestino() + ". "
+                + TransicaoLoteService.resumir(resultados));
+        return resultados;
+    }
+
+    // Mesma regra do PATCH e do lote; manter o status não é transição
+    private static void validarTransicao(StatusPedido origem, StatusPedido destino) {
+        if (origem != destino && (origem == null || destino == null || !origem.podeMudarPara(destino))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Transição inválida: " + origem + " -> " + destino);
+        }
+    }
+
+    // Pedido cancelado devolve os itens: movimento CANCELAMENTO no razão (nesta transação) e,
+    // depois do commit, o saldo volta para as reservas, que gravam a projeção no próximo lote.
+    // A quantidade vem do razão (VENDA menos o que já voltou), não dos itens: pedido criado sem
+    // baixa de estoque não tem o que devolver
+    private void devolverEstoque(List<Integer> idsPedidos) {
+        List<SaidaPedido> saidas = movimentoEstoqueService.saidasEmAberto(idsPedidos);
+        for (SaidaPedido saida : saidas) {
+            movimentoEstoqueService.registrar(saida.getIdProduto(), TipoMovimento.CANCELAMENTO, saida.getQuantidade(),
+                    saida.getIdPedido());
+        }
+        if (saidas.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (SaidaPedido saida : saidas) {
+                    reservaEstoqueService.liberar(saida.getIdProduto(), saida.getQuantidade());
+                }
+            }
+        });
+    }
+
     public List<PedidosEntity> listarTodos() {
         return this.pedidosRepository.findAll();
     }
 
+    // Sem @Transactional: quem consome o Stream abre a transação (ver FluxoJsonService)
+    public Stream<PedidosEntity> listarTodosEmFluxo() {
+        return pedidosRepository.buscarTodosEmFluxo();
+    }
+
+    // --- LISTAGEM PAGINADA (KEYSET) ---
+    // Uma consulta para a página (projeção) + uma consulta para os itens dessa página.
+    public PaginaCursorDTO<PedidoResumoDTO> listarPagina(StatusPedido status, LocalDate de, LocalDate ate,
+            Integer idCliente, String cursor, Integer limite) {
+        int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        LocalDate cursorData = null;
+        Integer cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] partes = cursor.split("_");
+                cursorData = LocalDate.parse(partes[0]);
+                cursorId = Integer.valueOf(partes[1]);
+            } catch (ArrayIndexOutOfBoundsException | DateTimeParseException | NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido: " + cursor);
+            }
+        }
+
+        // Pede um a mais só para saber se existe próxima página
+        List<PedidoResumoDTO> linhas = pedidosRepository.buscarPagina(status, de, ate, idCliente,
+                cursorData, cursorId, PageRequest.of(0, tamanho + 1));
+
+        boolean temMais = linhas.size() > tamanho;
+        if (temMais) {
+            linhas = linhas.subList(0, tamanho);
+        }
+
+        if (!linhas.isEmpty()) {
+            Map<Integer, PedidoResumoDTO> porId = new LinkedHashMap<>();
+            for (PedidoResumoDTO linha : linhas) {
+                porId.put(linha.getIdPedido(), linha);
+            }
+            for (PedidoResumoDTO.ItemResumoDTO item : itemRepository.buscarResumoPorPedidos(porId.keySet())) {
+                porId.get(item.getIdPedido()).getItens().add(item);
+            }
+        }
+
+        String proximoCursor = null;
+        if (temMais) {
+            PedidoResumoDTO ultimo = linhas.get(linhas.size() - 1);
+            proximoCursor = ultimo.getData() + "_" + ultimo.getIdPedido();
+        }
+        return new PaginaCursorDTO<>(linhas, proximoCursor, temMais);
+    }
+
     // --- EXCLUSÃO BLINDADA ---
     @Transactional
     public void excluir(Integer id) {
         // 1. Verificação de Permissão (ADMIN ou GERENTE)
-        UsuarioEntity usuarioLogado = getUsuarioReal();
+        UsuarioEntity usuarioLogado = getUsuarioLogado();
         if (usuarioLogado != null) {
              NivelAcesso nivel = usuarioLogado.getNivelAcesso();
              boolean podeExcluir = nivel == NivelAcesso.ADMINISTRADOR || nivel == NivelAcesso.GERENTE;
@@ -124,6 +460,8 @@ public class PedidosService {
 
                 pedidosRepository.delete(pedido);
                 pedidosRepository.flush(); // Força o banco a confirmar a exclusão agora
+                receitaService.recalcularDias(Arrays.asList(pedido.getData()));
+                sincronizacaoService.registrarExclusao(SincronizacaoService.PEDIDOS, id);
 
                 registrarLog("Pedido Excluído", "Pedido #" + id + " removido permanentemente.");
             
@@ -140,12 +478,12 @@ public class PedidosService {
     }
 
     // --- MÉTODOS AUXILIARES ---
-    private UsuarioEntity getUsuarioReal() {
+    // O principal já é o usuário carregado pelo SecurityFilter; não precisa buscar de novo por email
+    private UsuarioEntity getUsuarioLogado() {
         try {
             var auth = SecurityContextHolder.getContext().getAuthentication();
             if (auth != null && auth.getPrincipal() instanceof UsuarioEntity) {
-                UsuarioEntity userMemoria = (UsuarioEntity) auth.getPrincipal();
-                return usuarioRepository.findByEmail(userMemoria.getEmail()).orElse(null);
+                return (UsuarioEntity) auth.getPrincipal();
             }
             return null;
         } catch (Exception e) { return null; }
@@ -157,12 +495,12 @@ public class PedidosService {
             log.setTitulo(titulo);
             log.setTipoDeAtividade(4);
             log.setAssunto("Gestão de Pedidos");
-            UsuarioEntity usuarioReal = getUsuarioReal();
-            String nomeUser = usuarioReal != null ? usuarioReal.getEmail() : "Sistema";
+            UsuarioEntity usuarioLogado = getUsuarioLogado();
+            String nomeUser = usuarioLogado != null ? usuarioLogado.getEmail() : "Sistema";
             log.setDescricao(descricao + " por " + nomeUser);
             log.setData(LocalDateTime.now());
-            log.setUsuario(usuarioReal);
-            logRepository.save(log);
+            log.setUsuario(usuarioLogado);
+            auditoriaService.registrar(log);
         } catch (Exception e) {
             System.err.println("Erro ao salvar log: " + e.getMessage());
         }
@@ -0,0 +1,183 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.dto.PaginaCursorDTO;
+import com.landryjoias.crm.entity.PerformanceCliente;
+import com.landryjoias.crm.repository.PerformanceClienteRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+// --- RELATÓRIO DE PERFORMANCE DE CLIENTES ---
+// vw_PerformanceClientes agrega todos os pedidos de todos os clientes, então não dá para rodar a
+// cada chamada (a rota é pública). A view é lida inteira de vez em quando e vira uma foto imutável,
+// já ordenada por cada critério; paginação e top-N são só recortes dessa foto.
+//
+// A recarga é "single-flight": só uma thread consulta a view por vez. Enquanto ela trabalha, quem
+// chega recebe a foto anterior (se existir) ou espera a mesma consulta terminar.
+@Service
+public class PerformanceClienteService {
+    private static final long VALIDADE_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final int LIMITE_PADRAO = 50;
+    private static final int LIMITE_MAXIMO = 500;
+
+    public enum Ordem {
+        TOTAL_GASTO(PerformanceCliente::getTotalGasto),
+        TICKET_MEDIO(PerformanceCliente::getTicketMedio),
+        ULTIMA_COMPRA(PerformanceCliente::getUltimaCompra);
+
+        private final Comparator<PerformanceCliente> crescente;
+
+        <C extends Comparable<? super C>> Ordem(Function<PerformanceCliente, C> chave) {
+            // Sem valor (cliente sem pedidos) conta como o menor; empate desempata pelo id
+            this.crescente = Comparator.comparing(chave, Comparator.nullsFirst(Comparator.<C>naturalOrder()))
+                    .thenComparing(PerformanceCliente::getClienteId, Comparator.nullsFirst(Comparator.naturalOrder()));
+        }
+
+        // Aceita "totalGasto", "total_gasto", "TotalGasto"...
+        public static Ordem de(String texto) {
+            if (texto == null || texto.isBlank()) {
+                return TOTAL_GASTO;
+            }
+            String chave = texto.replace("_", "").toLowerCase();
+            for (Ordem ordem : values()) {
+                if (ordem.name().replace("_", "").toLowerCase().equals(chave)) {
+                    return ordem;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Ordem inválida: use totalGasto, ticketMedio ou ultimaCompra");
+        }
+    }
+
+    // As listas guardam as mesmas entidades, só em ordens diferentes
+    public record Foto(Map<Ordem, List<PerformanceCliente>> decrescente,
+            Map<Ordem, List<PerformanceCliente>> crescente, Instant geradaEm) {
+        boolean vencida() {
+            return geradaEm.toEpochMilli() + VALIDADE_MS < System.currentTimeMillis();
+        }
+
+        List<PerformanceCliente> ordenada(Ordem ordem, boolean crescente) {
+            return (crescente ? this.crescente : decrescente).get(ordem);
+        }
+    }
+
+    private final PerformanceClienteRepository repository;
+
+    private volatile Foto foto;
+    private final AtomicReference<CompletableFuture<Foto>> recarga = new AtomicReference<>();
+
+    public PerformanceClienteService(PerformanceClienteRepository repository) {
+        this.repository = repository;
+    }
+
+    // --- CONSULTAS ---
+
+    // Paginação por deslocamento dentro da foto: o cursor é a posição do próximo item
+    public PaginaCursorDTO<PerformanceCliente> listarPagina(Foto foto, Ordem ordem, boolean crescente,
+            String cursor, Integer limite) {
+        List<PerformanceCliente> linhas = foto.ordenada(ordem, crescente);
+        int inicio = lerCursor(cursor);
+        int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        int fim = Math.min(linhas.size(), inicio + tamanho);
+        boolean temMais = fim < linhas.size();
+        List<PerformanceCliente> itens = inicio >= fim ? List.of() : linhas.subList(inicio, fim);
+        return new PaginaCursorDTO<>(itens, temMais ? String.valueOf(fim) : null, temMais);
+    }
+
+    public List<PerformanceCliente> top(Ordem ordem, int quantos) {
+        return top(getFoto(), ordem, quantos);
+    }
+
+    public List<PerformanceCliente> top(Foto foto, Ordem ordem, int quantos) {
+        List<PerformanceCliente> linhas = foto.ordenada(ordem, false);
+        int n = Math.max(1, Math.min(quantos, LIMITE_MAXIMO));
+        return linhas.subList(0, Math.min(n, linhas.size()));
+    }
+
+    // --- FOTO ---
+
+    public Foto getFoto() {
+        Foto atual = foto;
+        if (atual != null && !atual.vencida()) {
+            return atual;
+        }
+
+        CompletableFuture<Foto> minha = new CompletableFuture<>();
+        CompletableFuture<Foto> emAndamento = recarga.compareAndExchange(null, minha);
+        if (emAndamento == null) {
+            return recarregar(minha, atual);
+        }
+        if (atual != null) {
+            return atual; // alguém já está relendo a view; a foto anterior serve até lá
+        }
+        try {
+            return emAndamento.join();
+        } catch (CompletionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Relatório de performance indisponível no momento", e.getCause());
+        }
+    }
+
+    private Foto recarregar(CompletableFuture<Foto> minha, Foto anterior) {
+        try {
+            // Outra thread pode ter terminado a recarga entre a leitura de "foto" e a reserva
+            Foto recente = foto;
+            Foto nova = recente != anterior && !recente.vencida() ? recente : carregar();
+            foto = nova;
+            minha.complete(nova);
+            return nova;
+        } catch (RuntimeException e) {
+            minha.completeExceptionally(e);
+            if (anterior == null) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Relatório de performance indisponível no momento", e);
+            }
+            System.err.println("Falha ao recarregar vw_PerformanceClientes, mantendo a foto anterior: " + e.getMessage());
+            return anterior;
+        } finally {
+            recarga.set(null);
+        }
+    }
+
+    private Foto carregar() {
+        List<PerformanceCliente> linhas = repository.findAll();
+        Map<Ordem, List<PerformanceCliente>> decrescente = new EnumMap<>(Ordem.class);
+        Map<Ordem, List<PerformanceCliente>> crescente = new EnumMap<>(Ordem.class);
+        for (Ordem ordem : Ordem.values()) {
+            List<PerformanceCliente> ordenada = new ArrayList<>(linhas);
+            ordenada.sort(ordem.crescente);
+            crescente.put(ordem, Collections.unmodifiableList(new ArrayList<>(ordenada)));
+            Collections.reverse(ordenada);
+            decrescente.put(ordem, Collections.unmodifiableList(ordenada));
+        }
+        return new Foto(decrescente, crescente, Instant.now());
+    }
+
+    private static int lerCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int posicao = Integer.parseInt(cursor);
+            if (posicao >= 0) {
+                return posicao;
+            }
+        } catch (NumberFormatException e) {
+            // cai no erro abaixo
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+    }
+}
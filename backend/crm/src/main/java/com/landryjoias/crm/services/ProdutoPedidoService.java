@@ -3,10 +3,13 @@ package com.landryjoias.crm.services;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.landryjoias.crm.entity.ProdutoPedidoId;
 import com.landryjoias.crm.entity.ProdutoPedidoEntity;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
 import com.landryjoias.crm.repository.Produto_pedidoRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -15,12 +18,20 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ProdutoPedidoService {
     private final Produto_pedidoRepository produto_pedidoRepository;
+    private final SincronizacaoService sincronizacaoService;
+    private final JdbcTemplate jdbcTemplate;
 
+    // Mudar um item muda o pedido: quem acompanha PEDIDOS (recomendações, feed) relê a cesta.
+    // O /sync acha o pedido pela versão do item incluído ou alterado; na exclusão não sobra item,
+    // então é a versão do próprio pedido que sobe
+    @Transactional
     public ProdutoPedidoEntity incluir(ProdutoPedidoEntity produto_pedido) {
-
-        return produto_pedidoRepository.save(produto_pedido);
+        ProdutoPedidoEntity salvo = produto_pedidoRepository.save(produto_pedido);
+        notificarPedido(salvo.getId());
+        return salvo;
     }
 
+    @Transactional
     public ProdutoPedidoEntity editar(ProdutoPedidoId id, ProdutoPedidoEntity produto_pedido) {
         // Verifique se a produto_pedido existe
         Optional<ProdutoPedidoEntity> produto_pedidoExistente = produto_pedidoRepository.findById(id);
@@ -33,7 +44,9 @@ public class ProdutoPedidoService {
             produto_pedidoAtualizada.setValor(produto_pedido.getValor());
             produto_pedidoAtualizada.setTamanho(produto_pedido.getTamanho());
             // Atualiza os campos necessários
-            return produto_pedidoRepository.save(produto_pedidoAtualizada); // Salva a produto_pedido atualizada
+            ProdutoPedidoEntity salvo = produto_pedidoRepository.save(produto_pedidoAtualizada); // Salva a produto_pedido atualizada
+            notificarPedido(id);
+            return salvo;
         } else {
             // Caso a produto_pedido não exista, retorna null
             return null;
@@ -44,7 +57,18 @@ public class ProdutoPedidoService {
         return produto_pedidoRepository.findAll();
     }
 
+    @Transactional
     public void excluir(ProdutoPedidoId id) {
         produto_pedidoRepository.deleteById(id);
+        if (id != null && id.getIdPedido() != null) {
+            jdbcTemplate.update("UPDATE Pedidos SET valor_total = valor_total WHERE id_pedido = ?", id.getIdPedido());
+        }
+        notificarPedido(id);
+    }
+
+    private void notificarPedido(ProdutoPedidoId id) {
+        if (id != null && id.getIdPedido() != null) {
+            sincronizacaoService.notificar(SincronizacaoService.PEDIDOS, id.getIdPedido(), Operacao.ATUALIZADO);
+        }
     }
 }
\ No newline at end of file
@@ -1,18 +1,32 @@
 package com.landryjoias.crm.services;
 
+import com.landryjoias.crm.cache.IndiceCatalogo;
+import com.landryjoias.crm.cache.ProdutoCache;
+import com.landryjoias.crm.dto.PaginaCursorDTO;
 import com.landryjoias.crm.entity.LogEntity;
+import com.landryjoias.crm.entity.Material;
+import com.landryjoias.crm.entity.MovimentoEstoqueEntity;
 import com.landryjoias.crm.entity.ProdutosEntity;
+import com.landryjoias.crm.entity.Tamanho;
+import com.landryjoias.crm.entity.TipoMovimento;
+import com.landryjoias.crm.entity.TipoPedra;
 import com.landryjoias.crm.entity.UsuarioEntity;
-import com.landryjoias.crm.repository.LogRepository;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
 import com.landryjoias.crm.repository.ProdutosRepository;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Alvo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Campo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Resultado;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal; // <--- Faltava este import
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;       // <--- Faltava este import
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,10 +34,35 @@ import java.util.Optional;
 public class ProdutosService {
     
     private final ProdutosRepository produtosRepository;
-    private final LogRepository logRepository;
+    private final AuditoriaService auditoriaService;
+    private final SincronizacaoService sincronizacaoService;
+    private final CatalogoService catalogoService;
+    private final ProdutoCache produtoCache;
+    private final ReservaEstoqueService reservaEstoqueService;
+    private final MovimentoEstoqueService movimentoEstoqueService;
+    private final AtualizacaoParcialService atualizacaoParcialService;
 
+    // Campos aceitos no PATCH. Todo PATCH também incrementa a versão JPA, para um PUT com
+    // formulário antigo (versao) ser recusado da mesma forma.
+    private static final Alvo ALVO_PATCH = new Alvo("ProdutosEntity", "idProduto", Map.ofEntries(
+            Map.entry("nome", Campo.texto("nome")),
+            Map.entry("descricao", Campo.texto("descricao")),
+            Map.entry("tipo", Campo.texto("tipo")),
+            Map.entry("tamanho", Campo.enumeracao("tamanho", Tamanho.class)),
+            Map.entry("tamanhoPersonalizado", Campo.texto("tamanhoPersonalizado")),
+            Map.entry("valor", Campo.decimal("valor")),
+            Map.entry("quantidadeEstoque", Campo.inteiro("quantidadeEstoque")),
+            Map.entry("material", Campo.enumeracao("material", Material.class)),
+            Map.entry("tipoPedra", Campo.enumeracao("tipoPedra", TipoPedra.class)),
+            Map.entry("corPedra", Campo.texto("corPedra"))), "e.versao = e.versao + 1");
+
+    // Produto e movimento de entrada na mesma transação
+    @Transactional
     public ProdutosEntity incluir(ProdutosEntity produto) {
         ProdutosEntity salvo = produtosRepository.save(produto);
+        movimentoEstoqueService.registrar(salvo.getIdProduto(), TipoMovimento.ENTRADA, salvo.getQuantidadeEstoque(), null);
+        sincronizacaoService.notificar(SincronizacaoService.PRODUTOS, salvo.getIdProduto(), Operacao.CRIADO);
+        catalogoService.atualizar(salvo);
         
         registrarLog("Produto Criado", 
             "O produto '" + salvo.getNome() + "' foi criado por " + getUsuarioLogadoEmail());
@@ -31,12 +70,22 @@ public class ProdutosService {
         return salvo;
     }
 
+    // O estoque é gravado por cima (valor absoluto do formulário); o razão recebe a diferença
+    // como AJUSTE na mesma transação, então os dois nunca divergem
+    @Transactional
     public ProdutosEntity editar(int id, ProdutosEntity novosDados) {
         Optional<ProdutosEntity> existente = produtosRepository.findById(id);
         
         if (existente.isPresent()) {
             ProdutosEntity produto = existente.get();
             String nomeAntigo = produto.getNome(); 
+            int estoqueAntigo = produto.getQuantidadeEstoque();
+
+            // Formulário aberto antes de outra alteração (ou de reservas gravadas): não sobrescreve
+            if (novosDados.getVersao() != null && !novosDados.getVersao().equals(produto.getVersao())) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "O produto foi alterado por outra operação. Recarregue e tente de novo.");
+            }
 
             produto.setNome(novosDados.getNome());
             produto.setDescricao(novosDados.getDescricao());
@@ -50,7 +99,20 @@ public class ProdutosService {
             produto.setCorPedra(novosDados.getCorPedra());
             produto.setTamanhoPersonalizado(novosDados.getTamanhoPersonalizado());
 
-            ProdutosEntity salvo = produtosRepository.save(produto);
+            ProdutosEntity salvo;
+            try {
+                // flush aqui: o conflito de versão aparece dentro do try, e não só no commit
+                salvo = produtosRepository.saveAndFlush(produto);
+            } catch (OptimisticLockingFailureException e) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "O estoque do produto mudou durante a edição. Recarregue e tente de novo.");
+            }
+            int diferenca = salvo.getQuantidadeEstoque() - estoqueAntigo;
+            movimentoEstoqueService.registrar(id, TipoMovimento.AJUSTE, diferenca, null);
+            reservaEstoqueService.ajustar(id, diferenca);
+            sincronizacaoService.notificar(SincronizacaoService.PRODUTOS, salvo.getIdProduto(), Operacao.ATUALIZADO);
+            catalogoService.atualizar(salvo);
+            produtoCache.invalidar(id);
 
             registrarLog("Produto Editado", 
                 "O produto '" + nomeAntigo + "' foi alterado por " + getUsuarioLogadoEmail());
@@ -61,26 +123,59 @@ public class ProdutosService {
         }
     }
 
+    // PATCH: só os campos enviados, com If-Match. Devolve a nova ETag.
+    @Transactional
+    public String atualizarParcial(int id, Map<String, Object> campos, String ifMatch) {
+        Resultado resultado = atualizacaoParcialService.aplicar(ALVO_PATCH, id, campos, ifMatch, "quantidadeEstoque");
+        if (resultado.mudou("quantidadeEstoque")) {
+            int diferenca = (Integer) resultado.depois().get("quantidadeEstoque") - (Integer) resultado.antes().get("quantidadeEstoque");
+            movimentoEstoqueService.registrar(id, TipoMovimento.AJUSTE, diferenca, null);
+            reservaEstoqueService.ajustar(id, diferenca);
+        }
+        sincronizacaoService.notificar(SincronizacaoService.PRODUTOS, id, Operacao.ATUALIZADO);
+        catalogoService.recarregar(id);
+        produtoCache.invalidar(id);
+        registrarLog("Produto Editado", "Campos " + campos.keySet() + " do produto #" + id + " alterados por " + getUsuarioLogadoEmail());
+        return resultado.etag();
+    }
+
+    @Transactional
     public void excluir(Integer id) {
         Optional<ProdutosEntity> produto = produtosRepository.findById(id);
         
         if (produto.isPresent()) {
             String nome = produto.get().getNome();
             produtosRepository.deleteById(id);
+            sincronizacaoService.registrarExclusao(SincronizacaoService.PRODUTOS, id);
+            catalogoService.remover(id);
+            reservaEstoqueService.esquecer(id);
+            produtoCache.invalidar(id);
             
             registrarLog("Produto Excluído", 
                 "O produto '" + nome + "' foi excluído por " + getUsuarioLogadoEmail());
         }
     }
 
+    // Sai do catálogo em memória (mantido pelas gravações acima)
     public List<ProdutosEntity> listarTodos() {
-        return produtosRepository.findAll();
+        return catalogoService.listarTodos();
+    }
+
+    // Busca no catálogo em memória (não consulta o banco)
+    public IndiceCatalogo.Resultado buscar(IndiceCatalogo.Filtro filtro, int pagina, int limite) {
+        return catalogoService.buscar(filtro, pagina, limite);
+    }
+
+    // Saldo pelo razão (snapshot + movimentos); com "em", o saldo naquele instante
+    public Integer saldoEstoque(Integer id, LocalDateTime em) {
+        if (!produtosRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Produto não encontrado ID: " + id);
+        }
+        return em == null ? movimentoEstoqueService.saldoAtual(id) : movimentoEstoqueService.saldoEm(id, em);
     }
 
-    // --- AQUI ESTAVA FALTANDO: Integração com a FUNCTION do SQL ---
-    public List<Map<String, Object>> buscarAvancadaPorPreco(BigDecimal min, BigDecimal max) {
-        // Chama a FUNCTION que criamos no Banco de Dados
-        return produtosRepository.buscarPorFaixaDePreco(min, max);
+    public PaginaCursorDTO<MovimentoEstoqueEntity> movimentos(Integer id, String cursor, int limite) {
+        return movimentoEstoqueService.historico(id, cursor, limite);
     }
 
     // --- MÉTODOS AUXILIARES (IGUAIS AO QUE VOCÊ JÁ TINHA) ---
@@ -119,7 +214,7 @@ public class ProdutosService {
             log.setData(LocalDateTime.now());
             log.setUsuario(getUsuarioLogado()); 
             
-            logRepository.save(log);
+            auditoriaService.registrar(log);
         } catch (Exception e) {
             System.err.println("Erro ao salvar log: " + e.getMessage());
         }
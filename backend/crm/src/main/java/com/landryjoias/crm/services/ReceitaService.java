@@ -0,0 +1,151 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.dto.PontoReceitaDTO;
+import com.landryjoias.crm.entity.ReceitaDiariaEntity;
+import com.landryjoias.crm.repository.ReceitaDiariaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// --- SÉRIE DE RECEITA (ROLLUP DIÁRIO) ---
+// Receita_Diaria guarda um total por dia. Sempre que um pedido é criado, editado ou excluído,
+// os dias afetados são recalculados a partir de Pedidos com "WHERE data = ?" (usa o índice
+// de data e lê só os pedidos daquele dia). A série lê só a faixa pedida da tabela de rollup.
+@Service
+@RequiredArgsConstructor
+public class ReceitaService {
+    private static final long DIAS_MAXIMOS = 3 * 366;
+
+    // Recalcula um dia inteiro: idempotente, então repetir ou chegar fora de ordem não estraga o total
+    private static final String SQL_RECALCULAR_DIA =
+            "MERGE Receita_Diaria WITH (HOLDLOCK) AS r " +
+            "USING (SELECT CAST(? AS DATE) AS dia, " +
+            "       COALESCE(SUM(CASE WHEN status <> 'CANCELADO' THEN CAST(valor_total AS BIGINT) END), 0) AS valor, " +
+            "       COUNT(CASE WHEN status <> 'CANCELADO' THEN 1 END) AS pedidos " +
+            "       FROM Pedidos WHERE data = ?) AS s " +
+            "ON r.dia = s.dia " +
+            "WHEN MATCHED THEN UPDATE SET valor = s.valor, pedidos = s.pedidos " +
+            "WHEN NOT MATCHED THEN INSERT (dia, valor, pedidos) VALUES (s.dia, s.valor, s.pedidos);";
+
+    // Carga inicial (tabela nova): uma passada agrupada por dia
+    private static final String SQL_CARGA_INICIAL =
+            "INSERT INTO Receita_Diaria (dia, valor, pedidos) " +
+            "SELECT data, COALESCE(SUM(CASE WHEN status <> 'CANCELADO' THEN CAST(valor_total AS BIGINT) END), 0), " +
+            "       COUNT(CASE WHEN status <> 'CANCELADO' THEN 1 END) " +
+            "FROM Pedidos p WHERE data IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM Receita_Diaria r WHERE r.dia = p.data) " +
+            "GROUP BY data";
+
+    public enum Granularidade {
+        DIA,
+        SEMANA,
+        MES
+    }
+
+    private final ReceitaDiariaRepository receitaDiariaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargaInicial() {
+        try {
+            if (receitaDiariaRepository.count() == 0) {
+                jdbcTemplate.update(SQL_CARGA_INICIAL);
+            }
+        } catch (Exception e) {
+            System.err.println("Erro na carga inicial de Receita_Diaria: " + e.getMessage());
+        }
+    }
+
+    // Chamado pelos services dentro da transação que alterou os pedidos
+    public void recalcularDias(Collection<LocalDate> dias) {
+        List<LocalDate> distintos = dias.stream().filter(Objects::nonNull).distinct().toList();
+        if (distintos.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_RECALCULAR_DIA, distintos, distintos.size(), (ps, dia) -> {
+            ps.setDate(1, Date.valueOf(dia));
+            ps.setDate(2, Date.valueOf(dia));
+        });
+    }
+
+    // Para alterações feitas fora do Java (procedure): descobre o dia do pedido e recalcula
+    public void recalcularDiaDoPedido(Integer idPedido) {
+        recalcularDias(jdbcTemplate.queryForList("SELECT data FROM Pedidos WHERE id_pedido = ?", LocalDate.class, idPedido));
+    }
+
+    // --- CONSULTA ---
+    // Baldes vazios saem com zero, para o gráfico não "pular" períodos sem venda
+    public List<PontoReceitaDTO> serie(LocalDate de, LocalDate ate, Granularidade granularidade) {
+        if (ate == null) {
+            ate = LocalDate.now();
+        }
+        if (de == null) {
+            de = ate.minusMonths(12).withDayOfMonth(1);
+        }
+        if (de.isAfter(ate)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'de' deve ser anterior a 'ate'.");
+        }
+        if (ChronoUnit.DAYS.between(de, ate) > DIAS_MAXIMOS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Intervalo máximo é de 3 anos.");
+        }
+
+        Map<LocalDate, PontoReceitaDTO> baldes = new LinkedHashMap<>();
+        for (LocalDate inicio = inicioDoBalde(de, granularidade); !inicio.isAfter(ate); inicio = proximo(inicio, granularidade)) {
+            baldes.put(inicio, new PontoReceitaDTO(inicio, 0, 0));
+        }
+        for (ReceitaDiariaEntity dia : receitaDiariaRepository.findByDiaBetweenOrderByDiaAsc(de, ate)) {
+            PontoReceitaDTO balde = baldes.get(inicioDoBalde(dia.getDia(), granularidade));
+            balde.setValor(balde.getValor() + dia.getValor());
+            balde.setPedidos(balde.getPedidos() + dia.getPedidos());
+        }
+        return new ArrayList<>(baldes.values());
+    }
+
+    // Toda a história, mês a mês (o antigo /dashboard/grafico)
+    public List<PontoReceitaDTO> seriePorMesCompleta() {
+        LocalDate primeiro = receitaDiariaRepository.primeiroDia();
+        if (primeiro == null) {
+            return List.of();
+        }
+        LocalDate hoje = LocalDate.now();
+        List<PontoReceitaDTO> meses = new ArrayList<>();
+        // Em blocos de até 3 anos, respeitando o limite da consulta
+        for (LocalDate de = primeiro.withDayOfMonth(1); !de.isAfter(hoje); de = de.plusYears(3)) {
+            LocalDate ate = de.plusYears(3).minusDays(1);
+            meses.addAll(serie(de, ate.isAfter(hoje) ? hoje : ate, Granularidade.MES));
+        }
+        return meses;
+    }
+
+    private static LocalDate inicioDoBalde(LocalDate dia, Granularidade granularidade) {
+        return switch (granularidade) {
+            case DIA -> dia;
+            case SEMANA -> dia.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> dia.withDayOfMonth(1);
+        };
+    }
+
+    private static LocalDate proximo(LocalDate inicio, Granularidade granularidade) {
+        return switch (granularidade) {
+            case DIA -> inicio.plusDays(1);
+            case SEMANA -> inicio.plusWeeks(1);
+            case MES -> inicio.plusMonths(1);
+        };
+    }
+}
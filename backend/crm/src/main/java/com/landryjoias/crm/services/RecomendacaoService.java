@@ -0,0 +1,210 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.cache.ProdutoCache;
+import com.landryjoias.crm.dto.ProdutoRecomendadoDTO;
+import com.landryjoias.crm.entity.ProdutosEntity;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent;
+import com.landryjoias.crm.recomendacao.MatrizCoocorrencia;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// --- RECOMENDAÇÕES "QUEM COMPROU, TAMBÉM COMPROU" ---
+// Matriz de coocorrência em memória montada a partir de Produtos_Pedidos (pedidos cancelados não
+// contam). Na subida, uma passada ordenada por pedido; depois, cada pedido criado ou alterado
+// (PedidosService.incluir, itens pela procedure ou por /produtopedido, mudança de status) tem a cesta relida depois do
+// commit e recolocada, e o excluído sai. A consulta só percorre a linha do produto na matriz.
+//
+// Carga e releituras rodam numa thread própria, uma de cada vez e na ordem em que chegaram (como
+// na BuscaGlobalService): quem gravou não espera a consulta das cestas.
+@Service
+public class RecomendacaoService {
+    private static final int QUANTOS_PADRAO = 10;
+    private static final int QUANTOS_MAXIMO = 50;
+    private static final int MINIMO_JUNTOS = 2;
+
+    private static final String SQL_ITENS =
+            "SELECT i.id_pedido, i.id_produto FROM Produtos_Pedidos i " +
+            "JOIN Pedidos p ON p.id_pedido = i.id_pedido " +
+            "WHERE p.status <> 'CANCELADO' ORDER BY i.id_pedido";
+
+    private static final String SQL_ITENS_DOS_PEDIDOS =
+            "SELECT i.id_pedido, i.id_produto FROM Produtos_Pedidos i " +
+            "JOIN Pedidos p ON p.id_pedido = i.id_pedido " +
+            "WHERE p.status <> 'CANCELADO' AND i.id_pedido IN (%s)";
+    private static final int LOTE_RELEITURA = 1_000; // abaixo do limite de 2100 parâmetros do SQL Server
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProdutoCache produtoCache;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final MatrizCoocorrencia matriz = new MatrizCoocorrencia(); // protegida pela trava
+    private final ExecutorService atualizacao = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "recomendacoes");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Set<Integer> pendentes = new LinkedHashSet<>(); // pedidos a reler, protegido por si mesmo
+
+    public RecomendacaoService(JdbcTemplate jdbcTemplate, ProdutoCache produtoCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.produtoCache = produtoCache;
+    }
+
+    // --- CARGA ---
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        enfileirar(this::carregar);
+    }
+
+    // Monta com a trava de escrita: quem consulta espera a matriz pronta, e os eventos que
+    // chegarem no meio esperam na fila e entram depois
+    private void carregar() {
+        trava.writeLock().lock();
+        try {
+            Cesta atual = new Cesta();
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SQL_ITENS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(1_000);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                int idPedido = rs.getInt(1);
+                if (idPedido != atual.idPedido) {
+                    atual.fechar(matriz);
+                    atual.idPedido = idPedido;
+                }
+                atual.adicionar(rs.getInt(2));
+            });
+            atual.fechar(matriz);
+        } catch (Exception e) {
+            System.err.println("Erro ao montar recomendações: " + e.getMessage());
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // --- ATUALIZAÇÃO INCREMENTAL ---
+    // O pedido entra na lista de pendentes e a releitura vai para a fila só se ainda não havia uma
+    // esperando: uma transição em lote de 1000 pedidos vira uma consulta, não 1000. Pedido excluído
+    // ou cancelado volta sem itens e sai da matriz.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterar(EntidadeAlteradaEvent alteracao) {
+        if (!SincronizacaoService.PEDIDOS.equals(alteracao.entidade())) {
+            return;
+        }
+        synchronized (pendentes) {
+            if (pendentes.add(alteracao.id()) && pendentes.size() == 1) {
+                enfileirar(this::reler);
+            }
+        }
+    }
+
+    private void enfileirar(Runnable tarefa) {
+        try {
+            atualizacao.execute(tarefa);
+        } catch (RejectedExecutionException e) {
+            // desligando
+        }
+    }
+
+    @PreDestroy
+    void desligar() {
+        atualizacao.shutdownNow();
+    }
+
+    private void reler() {
+        List<Integer> ids;
+        synchronized (pendentes) {
+            ids = new ArrayList<>(pendentes);
+            pendentes.clear();
+        }
+        for (int inicio = 0; inicio < ids.size(); inicio += LOTE_RELEITURA) {
+            List<Integer> lote = ids.subList(inicio, Math.min(inicio + LOTE_RELEITURA, ids.size()));
+            try {
+                Map<Integer, Cesta> cestas = new HashMap<>();
+                jdbcTemplate.query(String.format(SQL_ITENS_DOS_PEDIDOS, String.join(",", Collections.nCopies(lote.size(), "?"))),
+                        (RowCallbackHandler) rs -> cestas.computeIfAbsent(rs.getInt(1), id -> new Cesta()).adicionar(rs.getInt(2)),
+                        lote.toArray());
+                trava.writeLock().lock();
+                try {
+                    for (Integer idPedido : lote) {
+                        Cesta cesta = cestas.get(idPedido);
+                        matriz.colocarPedido(idPedido, cesta == null ? new int[0] : Arrays.copyOf(cesta.produtos, cesta.tamanho));
+                    }
+                } finally {
+                    trava.writeLock().unlock();
+                }
+            } catch (Exception e) {
+                System.err.println("Erro ao atualizar recomendações dos pedidos " + lote + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // --- CONSULTA ---
+    public List<ProdutoRecomendadoDTO> recomendados(Integer idProduto, Integer quantos) {
+        int k = quantos == null ? QUANTOS_PADRAO : Math.max(1, Math.min(quantos, QUANTOS_MAXIMO));
+        List<MatrizCoocorrencia.Recomendacao> encontrados;
+        trava.readLock().lock();
+        try {
+            encontrados = matriz.recomendados(idProduto, k, MINIMO_JUNTOS);
+        } finally {
+            trava.readLock().unlock();
+        }
+        if (encontrados.isEmpty()) {
+            return List.of();
+        }
+
+        // Nomes pelo cache de produtos; produto que não existe mais fica de fora
+        Map<Integer, ProdutosEntity> produtos = produtoCache.buscarVarios(
+                encontrados.stream().map(MatrizCoocorrencia.Recomendacao::idProduto).toList());
+        List<ProdutoRecomendadoDTO> resultado = new ArrayList<>(encontrados.size());
+        for (MatrizCoocorrencia.Recomendacao r : encontrados) {
+            ProdutosEntity produto = produtos.get(r.idProduto());
+            if (produto != null) {
+                resultado.add(new ProdutoRecomendadoDTO(r.idProduto(), produto.getNome(), r.lift(), r.pedidosJuntos(),
+                        r.confianca()));
+            }
+        }
+        return resultado;
+    }
+
+    // Itens de um pedido (na carga, as linhas chegam ordenadas por pedido)
+    private static final class Cesta {
+        int idPedido;
+        int[] produtos = new int[16];
+        int tamanho;
+
+        void adicionar(int idProduto) {
+            if (tamanho == produtos.length) {
+                produtos = Arrays.copyOf(produtos, tamanho * 2);
+            }
+            produtos[tamanho++] = idProduto;
+        }
+
+        void fechar(MatrizCoocorrencia matriz) {
+            if (tamanho > 0) {
+                matriz.colocarPedido(idPedido, Arrays.copyOf(produtos, tamanho));
+                tamanho = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.cache.ProdutoCache;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// --- RESERVA DE ESTOQUE EM MEMÓRIA ---
+// Cada produto tem um contador atômico de "disponível", carregado do banco no primeiro uso.
+// Reservar é um compareAndSet que só desconta se houver saldo: nenhuma trava de linha no
+// SQL Server e nunca fica negativo. O que foi reservado/liberado acumula em "pendente" e é
+// gravado em lote (UPDATE relativo, que também incrementa a versão do produto).
+//
+// Invariante: estoque no banco + pendente = disponível. Alterações feitas fora daqui
+// (editar produto, procedure) entram por ajustar(), que só mexe no disponível.
+@Service
+public class ReservaEstoqueService {
+    private static final int TAMANHO_LOTE = 200;
+
+    private static final String SQL_ESTOQUE = "SELECT quantidade_estoque FROM Produtos WHERE id_produto = ?";
+    // A condição final é a última defesa: o banco nunca aceita estoque negativo
+    private static final String SQL_GRAVAR =
+            "UPDATE Produtos SET quantidade_estoque = quantidade_estoque + ?, versao = versao + 1 " +
+            "WHERE id_produto = ? AND quantidade_estoque + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SincronizacaoService sincronizacaoService;
+    private final ProdutoCache produtoCache;
+    private final CatalogoService catalogoService;
+
+    private final Map<Integer, Saldo> saldos = new ConcurrentHashMap<>();
+
+    private final Counter reservas;
+    private final Counter recusadas;
+    private final Counter conflitos;
+
+    public ReservaEstoqueService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            SincronizacaoService sincronizacaoService, ProdutoCache produtoCache, CatalogoService catalogoService,
+            MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sincronizacaoService = sincronizacaoService;
+        this.produtoCache = produtoCache;
+        this.catalogoService = catalogoService;
+        this.reservas = registry.counter("crm.estoque.reservas");
+        this.recusadas = registry.counter("crm.estoque.recusadas");
+        this.conflitos = registry.counter("crm.estoque.conflitos");
+    }
+
+    // true = reservado; false = estoque insuficiente (ou produto inexistente)
+    public boolean reservar(Integer idProduto, int quantidade) {
+        if (quantidade <= 0) {
+            throw new IllegalArgumentException("Quantidade deve ser positiva.");
+        }
+        Saldo saldo = saldo(idProduto);
+        if (saldo == null) {
+            recusadas.increment();
+            return false;
+        }
+        while (true) {
+            int atual = saldo.disponivel.get();
+            if (atual < quantidade) {
+                recusadas.increment();
+                return false;
+            }
+            if (saldo.disponivel.compareAndSet(atual, atual - quantidade)) {
+                saldo.pendente.addAndGet(-quantidade);
+                reservas.increment();
+                return true;
+            }
+        }
+    }
+
+    // Devolve uma reserva (pedido cancelado ou transação desfeita)
+    public void liberar(Integer idProduto, int quantidade) {
+        Saldo saldo = saldo(idProduto);
+        if (saldo != null) {
+            saldo.disponivel.addAndGet(quantidade);
+            saldo.pendente.addAndGet(quantidade);
+        }
+    }
+
+    // O banco já mudou por outro caminho: só acompanha no disponível. Dentro de uma transação,
+    // espera o commit (se ela for desfeita, o banco não mudou e o disponível também não)
+    public void ajustar(Integer idProduto, int diferenca) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ajustarAgora(idProduto, diferenca);
+                }
+            });
+        } else {
+            ajustarAgora(idProduto, diferenca);
+        }
+    }
+
+    private void ajustarAgora(Integer idProduto, int diferenca) {
+        Saldo saldo = saldos.get(idProduto);
+        if (saldo != null) {
+            saldo.disponivel.addAndGet(diferenca);
+        }
+    }
+
+    // Produto excluído
+    public void esquecer(Integer idProduto) {
+        saldos.remove(idProduto);
+    }
+
+    public Integer disponivel(Integer idProduto) {
+        Saldo saldo = saldo(idProduto);
+        return saldo != null ? saldo.disponivel.get() : null;
+    }
+
+    private Saldo saldo(Integer idProduto) {
+        Saldo saldo = saldos.get(idProduto);
+        if (saldo != null) {
+            return saldo;
+        }
+        try {
+            return saldos.computeIfAbsent(idProduto,
+                    id -> new Saldo(jdbcTemplate.queryForObject(SQL_ESTOQUE, Integer.class, id)));
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    // --- GRAVAÇÃO EM LOTE ---
+    @Scheduled(fixedDelay = 1_000)
+    public void gravarPendentes() {
+        List<Object[]> lote = new ArrayList<>();
+        List<Saldo> origem = new ArrayList<>();
+        saldos.forEach((id, saldo) -> {
+            int delta = saldo.pendente.getAndSet(0);
+            if (delta != 0) {
+                lote.add(new Object[] { delta, id, delta });
+                origem.add(saldo);
+            }
+        });
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        int[][] resultado;
+        try {
+            // Tudo ou nada, para poder devolver os deltas sem gravar duas vezes
+            resultado = transactionTemplate.execute(status ->
+                    jdbcTemplate.batchUpdate(SQL_GRAVAR, lote, TAMANHO_LOTE, (ps, linha) -> {
+                        ps.setInt(1, (Integer) linha[0]);
+                        ps.setInt(2, (Integer) linha[1]);
+                        ps.setInt(3, (Integer) linha[0]);
+                    }));
+        } catch (Exception e) {
+            // Banco fora: devolve para o próximo ciclo
+            for (int i = 0; i < lote.size(); i++) {
+                origem.get(i).pendente.addAndGet((Integer) lote.get(i)[0]);
+            }
+            System.err.println("Erro ao gravar estoque reservado, nova tentativa em 1s: " + e.getMessage());
+            return;
+        }
+
+        int i = 0;
+        for (int[] bloco : resultado) {
+            for (int linhas : bloco) {
+                Integer idProduto = (Integer) lote.get(i)[1];
+                if (linhas == 0) {
+                    conflitos.increment();
+                    resolverConflito(idProduto, origem.get(i), (Integer) lote.get(i)[0]);
+                }
+                produtoCache.invalidar(idProduto);
+                catalogoService.recarregar(idProduto);
+                sincronizacaoService.notificar(SincronizacaoService.PRODUTOS, idProduto, Operacao.ATUALIZADO);
+                i++;
+            }
+        }
+    }
+
+    // O UPDATE não achou saldo: alguém baixou o estoque direto no banco (ou apagou o produto).
+    // As reservas já foram concedidas, então o delta não pode ser descartado: volta para o
+    // pendente e é tentado de novo a cada ciclo. O disponível é recalculado pelo banco
+    // (banco + pendente); se ficar negativo, é o que foi reservado além do estoque real, e novas
+    // reservas ficam recusadas até entrar estoque (ajustar) e o delta finalmente passar.
+    private void resolverConflito(Integer idProduto, Saldo saldo, int delta) {
+        saldo.pendente.addAndGet(delta);
+        Integer noBanco;
+        try {
+            noBanco = jdbcTemplate.queryForObject(SQL_ESTOQUE, Integer.class, idProduto);
+        } catch (EmptyResultDataAccessException e) {
+            // Produto excluído: não há mais onde gravar
+            saldos.remove(idProduto, saldo);
+            System.err.println("Produto #" + idProduto + " não existe mais; delta de estoque " + delta + " descartado");
+            return;
+        }
+        int esperado = (noBanco != null ? noBanco : 0) + saldo.pendente.get();
+        saldo.disponivel.set(esperado);
+        System.err.println("Conflito de estoque no produto #" + idProduto + " (delta " + delta
+                + "), disponível recalculado para " + esperado + "; nova tentativa em 1s");
+    }
+
+    @PreDestroy
+    void desligar() {
+        gravarPendentes();
+    }
+
+    private static final class Saldo {
+        final AtomicInteger disponivel;
+        final AtomicInteger pendente = new AtomicInteger(); // ainda não gravado no banco
+
+        Saldo(Integer inicial) {
+            this.disponivel = new AtomicInteger(inicial != null ? inicial : 0);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.entity.EstagioFunil;
+import com.landryjoias.crm.entity.StatusPedido;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
+import com.landryjoias.crm.repository.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// --- RESUMO DO DASHBOARD EM MEMÓRIA ---
+// Em vez de rodar vw_dashboard_resumo a cada visita, o resumo é montado uma vez e depois
+// ajustado pelos eventos de alteração (só depois do commit). Para cada registro guardamos
+// quanto ele contribui para o resumo; quando ele muda, relemos só aquela linha e somamos a
+// diferença. A leitura é só pegar a referência atual (imutável), sem trava.
+//
+// As regras abaixo imitam a view. Como a definição da view mora no banco, a reconciliação
+// periódica compara com ela, conta a divergência e recalibra: o resumo volta a ser o da view
+// e os eventos seguintes continuam somando diferenças a partir dali.
+@Service
+public class ResumoDashboardService {
+    static final int LIMITE_ESTOQUE_BAIXO = 5;
+    private static final long RECONCILIAR_MS = 5 * 60 * 1000L;
+
+    private final DashboardRepository dashboardRepository;
+    private final ClienteRepository clienteRepository;
+    private final PedidosRepository pedidosRepository;
+    private final ProdutosRepository produtosRepository;
+    private final OportunidadesRepository oportunidadesRepository;
+
+    private final Counter reconciliacoes;
+    private final Counter divergencias;
+
+    // Estado por registro; a referência e o conteúdo são protegidos por "this"
+    private Estado estado = new Estado();
+
+    // Alterações que chegaram enquanto a reconciliação relia o banco fora da trava (null = nenhuma em curso)
+    private List<EntidadeAlteradaEvent> duranteRecarga;
+
+    // Diferença entre a view e as regras daqui, medida na última reconciliação
+    private Resumo ajuste = Resumo.ZERO;
+
+    private volatile Resumo atual;
+
+    public ResumoDashboardService(DashboardRepository dashboardRepository, ClienteRepository clienteRepository,
+            PedidosRepository pedidosRepository, ProdutosRepository produtosRepository,
+            OportunidadesRepository oportunidadesRepository, MeterRegistry registry) {
+        this.dashboardRepository = dashboardRepository;
+        this.clienteRepository = clienteRepository;
+        this.pedidosRepository = pedidosRepository;
+        this.produtosRepository = produtosRepository;
+        this.oportunidadesRepository = oportunidadesRepository;
+        this.reconciliacoes = registry.counter("crm.dashboard.reconciliacoes");
+        this.divergencias = registry.counter("crm.dashboard.divergencias");
+    }
+
+    // null enquanto o resumo ainda não pôde ser montado (banco fora na subida)
+    public DashboardSummary getResumo() {
+        return atual;
+    }
+
+    // --- MONTAGEM E RECONCILIAÇÃO ---
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reconciliar();
+    }
+
+    // A view e as tabelas são lidas num Estado novo, fora da trava, para não segurar os eventos
+    // de quem grava. As alterações que chegam nesse meio continuam indo para o estado atual e
+    // ficam anotadas; na troca (já com a trava) elas são reaplicadas no novo, que pode ter lido
+    // a linha antes do commit delas.
+    @Scheduled(initialDelay = RECONCILIAR_MS, fixedDelay = RECONCILIAR_MS)
+    public void reconciliar() {
+        synchronized (this) {
+            if (duranteRecarga != null) {
+                return; // outra reconciliação em curso
+            }
+            duranteRecarga = new ArrayList<>();
+        }
+        try {
+            DashboardSummary view = dashboardRepository.getResumo();
+            Estado novo = recarregarTudo();
+
+            synchronized (this) {
+                Resumo calculado = novo.calculado();
+                Resumo daView = view != null ? Resumo.de(view) : calculado;
+                if (atual != null && !atual.equals(daView)) {
+                    divergencias.increment();
+                    System.err.println("Resumo do dashboard divergiu da view: memória=" + atual + " view=" + daView);
+                }
+                ajuste = daView.menos(calculado);
+                estado = novo;
+                for (EntidadeAlteradaEvent alteracao : duranteRecarga) {
+                    aplicar(alteracao);
+                }
+                publicar();
+                reconciliacoes.increment();
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao reconciliar resumo do dashboard: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                duranteRecarga = null;
+            }
+        }
+    }
+
+    private Estado recarregarTudo() {
+        Estado novo = new Estado();
+        novo.clientes.addAll(clienteRepository.buscarIds());
+        for (PedidosRepository.ParcelaResumo p : pedidosRepository.buscarParcelasResumo(null)) {
+            novo.aplicarPedido(p.getIdPedido(), ParcelaPedido.de(p));
+        }
+        for (ProdutosRepository.ParcelaResumo p : produtosRepository.buscarParcelasResumo(null)) {
+            novo.aplicarProduto(p.getIdProduto(), p);
+        }
+        for (OportunidadesRepository.ParcelaResumo o : oportunidadesRepository.buscarParcelasResumo(null)) {
+            novo.aplicarOportunidade(o.getIdOportunidade(), o);
+        }
+        return novo;
+    }
+
+    // --- ATUALIZAÇÃO INCREMENTAL ---
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterar(EntidadeAlteradaEvent alteracao) {
+        try {
+            synchronized (this) {
+                if (duranteRecarga != null) {
+                    duranteRecarga.add(alteracao);
+                }
+                if (atual == null) {
+                    return; // ainda não montado; a reconciliação em curso (ou a próxima) pega tudo
+                }
+                if (aplicar(alteracao)) {
+                    publicar();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao atualizar resumo do dashboard (" + alteracao.entidade() + " #" + alteracao.id()
+                    + "): " + e.getMessage());
+        }
+    }
+
+    // Relê a linha alterada e aplica no estado atual; false se a entidade não entra no resumo
+    private boolean aplicar(EntidadeAlteradaEvent alteracao) {
+        Integer id = alteracao.id();
+        boolean excluido = alteracao.operacao() == Operacao.EXCLUIDO;
+        switch (alteracao.entidade()) {
+            case SincronizacaoService.CLIENTES -> {
+                if (excluido) estado.clientes.remove(id); else estado.clientes.add(id);
+            }
+            case SincronizacaoService.PEDIDOS -> estado.aplicarPedido(id, excluido ? null
+                    : primeiro(pedidosRepository.buscarParcelasResumo(id), ParcelaPedido::de));
+            case SincronizacaoService.PRODUTOS -> estado.aplicarProduto(id, excluido ? null
+                    : primeiro(produtosRepository.buscarParcelasResumo(id), p -> p));
+            case SincronizacaoService.OPORTUNIDADES -> estado.aplicarOportunidade(id, excluido ? null
+                    : primeiro(oportunidadesRepository.buscarParcelasResumo(id), o -> o));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void publicar() {
+        Resumo c = estado.calculado();
+        atual = new Resumo(c.getTotalClientes() + ajuste.getTotalClientes(),
+                c.getReceitaTotal() + ajuste.getReceitaTotal(),
+                c.getPedidosPendentes() + ajuste.getPedidosPendentes(),
+                c.getOportunidadesAbertas() + ajuste.getOportunidadesAbertas(),
+                c.getEstoqueBaixo() + ajuste.getEstoqueBaixo());
+    }
+
+    private static <T, R> R primeiro(List<T> linhas, Function<T, R> mapear) {
+        return linhas.isEmpty() ? null : mapear.apply(linhas.get(0));
+    }
+
+    // Quanto cada registro contribui para o resumo
+    private static final class Estado {
+        final Set<Integer> clientes = new HashSet<>();
+        final Map<Integer, ParcelaPedido> pedidos = new HashMap<>();
+        final Set<Integer> produtosEstoqueBaixo = new HashSet<>();
+        final Set<Integer> oportunidadesAbertas = new HashSet<>();
+        double receita;
+        long pendentes;
+
+        // Tira a contribuição antiga do pedido e põe a nova (null = pedido não existe mais)
+        void aplicarPedido(Integer id, ParcelaPedido nova) {
+            ParcelaPedido antiga = nova != null ? pedidos.put(id, nova) : pedidos.remove(id);
+            if (antiga != null) {
+                receita -= antiga.receita();
+                pendentes -= antiga.pendente() ? 1 : 0;
+            }
+            if (nova != null) {
+                receita += nova.receita();
+                pendentes += nova.pendente() ? 1 : 0;
+            }
+        }
+
+        void aplicarProduto(Integer id, ProdutosRepository.ParcelaResumo produto) {
+            if (produto != null && produto.getQuantidadeEstoque() <= LIMITE_ESTOQUE_BAIXO) {
+                produtosEstoqueBaixo.add(id);
+            } else {
+                produtosEstoqueBaixo.remove(id);
+            }
+        }
+
+        void aplicarOportunidade(Integer id, OportunidadesRepository.ParcelaResumo oportunidade) {
+            EstagioFunil estagio = oportunidade != null ? oportunidade.getEstagioFunil() : null;
+            if (oportunidade != null && estagio != EstagioFunil.FECHADA && estagio != EstagioFunil.PERDIDA) {
+                oportunidadesAbertas.add(id);
+            } else {
+                oportunidadesAbertas.remove(id);
+            }
+        }
+
+        Resumo calculado() {
+            return new Resumo(clientes.size(), receita, pendentes, oportunidadesAbertas.size(), produtosEstoqueBaixo.size());
+        }
+    }
+
+    // Contribuição de um pedido: pedidos cancelados não entram na receita
+    private record ParcelaPedido(double receita, boolean pendente) {
+        static ParcelaPedido de(PedidosRepository.ParcelaResumo p) {
+            double valor = p.getValorTotal() != null ? p.getValorTotal() : 0;
+            return new ParcelaPedido(p.getStatus() == StatusPedido.CANCELADO ? 0 : valor,
+                    p.getStatus() == StatusPedido.PENDENTE);
+        }
+    }
+
+    // Fotografia imutável entregue ao controller
+    static final class Resumo implements DashboardSummary {
+        static final Resumo ZERO = new Resumo(0, 0, 0, 0, 0);
+
+        private final long totalClientes;
+        private final double receitaTotal;
+        private final long pedidosPendentes;
+        private final long oportunidadesAbertas;
+        private final long estoqueBaixo;
+
+        Resumo(long totalClientes, double receitaTotal, long pedidosPendentes, long oportunidadesAbertas, long estoqueBaixo) {
+            this.totalClientes = totalClientes;
+            this.receitaTotal = receitaTotal;
+            this.pedidosPendentes = pedidosPendentes;
+            this.oportunidadesAbertas = oportunidadesAbertas;
+            this.estoqueBaixo = estoqueBaixo;
+        }
+
+        static Resumo de(DashboardSummary s) {
+            return new Resumo(s.getTotalClientes(), s.getReceitaTotal(), s.getPedidosPendentes(),
+                    s.getOportunidadesAbertas(), s.getEstoqueBaixo());
+        }
+
+        Resumo menos(Resumo outro) {
+            return new Resumo(totalClientes - outro.totalClientes, receitaTotal - outro.receitaTotal,
+                    pedidosPendentes - outro.pedidosPendentes, oportunidadesAbertas - outro.oportunidadesAbertas,
+                    estoqueBaixo - outro.estoqueBaixo);
+        }
+
+        @Override public long getTotalClientes() { return totalClientes; }
+        @Override public double getReceitaTotal() { return receitaTotal; }
+        @Override public long getPedidosPendentes() { return pedidosPendentes; }
+        @Override public long getOportunidadesAbertas() { return oportunidadesAbertas; }
+        @Override public long getEstoqueBaixo() { return estoqueBaixo; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Resumo r)) return false;
+            return totalClientes == r.totalClientes && Math.abs(receitaTotal - r.receitaTotal) < 0.005
+                    && pedidosPendentes == r.pedidosPendentes && oportunidadesAbertas == r.oportunidadesAbertas
+                    && estoqueBaixo == r.estoqueBaixo;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(totalClientes + 31 * pedidosPendentes + 961 * oportunidadesAbertas + 29791 * estoqueBaixo);
+        }
+
+        @Override
+        public String toString() {
+            return "{clientes=" + totalClientes + ", receita=" + receitaTotal + ", pendentes=" + pedidosPendentes
+                    + ", oportunidades=" + oportunidadesAbertas + ", estoqueBaixo=" + estoqueBaixo + "}";
+        }
+    }
+}
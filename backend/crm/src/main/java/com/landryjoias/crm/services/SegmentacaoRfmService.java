@@ -0,0 +1,439 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.dto.PaginaCursorDTO;
+import com.landryjoias.crm.entity.ExclusaoEntity;
+import com.landryjoias.crm.entity.SegmentoClienteEntity;
+import com.landryjoias.crm.entity.SegmentoRfm;
+import com.landryjoias.crm.repository.ExclusaoRepository;
+import com.landryjoias.crm.repository.SegmentoClienteRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// --- SEGMENTAÇÃO RFM (RECÊNCIA, FREQUÊNCIA, VALOR) ---
+// Cálculo completo: uma passada só pelos pedidos não cancelados (JDBC em fluxo, sem entidades),
+// somando em vetores primitivos indexados pela posição do cliente na lista ordenada de ids. Cada
+// métrica é então ordenada e a nota (1 a 5) é o quintil em que o valor do cliente cai; a pontuação
+// é dividida em faixas de clientes no ForkJoinPool. Segmentos_Clientes é trocada inteira numa
+// transação só, então quem lê nunca vê a tabela pela metade.
+//
+// Incremental: a cada minuto pega os pedidos e oportunidades alterados desde a última versão
+// (rowversion) e as lápides de pedidos, descobre os clientes afetados (inclusive o dono anterior,
+// quando a oportunidade troca de cliente) e recalcula só eles, contra os quintis do último cálculo
+// completo. Clientes criados ou alterados no período também entram (um cliente novo, ainda sem
+// pedidos, aparece como SEM_COMPRAS no minuto seguinte). Os quintis só andam no cálculo completo
+// da madrugada.
+@Service
+public class SegmentacaoRfmService {
+    private static final int FAIXAS = 5;
+    private static final int CLIENTES_POR_TAREFA = 4_096;
+    private static final int LOTE = 1_000;
+    private static final long INCREMENTAL_MS = 60_000;
+    private static final int LIMITE_PADRAO = 50;
+    private static final int LIMITE_MAXIMO = 500;
+
+    private static final String SQL_CLIENTES = "SELECT id_cliente FROM Clientes ORDER BY id_cliente";
+
+    // Mesmo critério da receita: pedido cancelado não conta
+    private static final String SQL_PEDIDOS =
+            "SELECT p.id_pedido, o.id_cliente, p.data, p.valor_total FROM Pedidos p " +
+            "JOIN Oportunidades o ON o.id_oportunidade = p.id_oportunidade " +
+            "WHERE p.status <> 'CANCELADO' AND p.data IS NOT NULL";
+
+    private static final String SQL_ALTERADOS =
+            "SELECT p.id_pedido, o.id_cliente FROM Pedidos p " +
+            "LEFT JOIN Oportunidades o ON o.id_oportunidade = p.id_oportunidade " +
+            "WHERE (p.versao_linha > CAST(? AS BINARY(8)) AND p.versao_linha < CAST(? AS BINARY(8))) " +
+            "OR (o.versao_linha > CAST(? AS BINARY(8)) AND o.versao_linha < CAST(? AS BINARY(8)))";
+
+    private static final String SQL_CLIENTES_ALTERADOS =
+            "SELECT id_cliente FROM Clientes " +
+            "WHERE versao_linha > CAST(? AS BINARY(8)) AND versao_linha < CAST(? AS BINARY(8))";
+
+    private static final String COLUNAS = "id_cliente, ultima_compra, recencia_dias, frequencia, monetario, " +
+            "nota_recencia, nota_frequencia, nota_monetario, segmento, calculado_em";
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO Segmentos_Clientes (" + COLUNAS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_GRAVAR =
+            "MERGE Segmentos_Clientes WITH (HOLDLOCK) AS s " +
+            "USING (SELECT ? AS id_cliente, ? AS ultima_compra, ? AS recencia_dias, ? AS frequencia, ? AS monetario, " +
+            "       ? AS nota_recencia, ? AS nota_frequencia, ? AS nota_monetario, ? AS segmento, ? AS calculado_em) AS n " +
+            "ON s.id_cliente = n.id_cliente " +
+            "WHEN MATCHED THEN UPDATE SET ultima_compra = n.ultima_compra, recencia_dias = n.recencia_dias, " +
+            "     frequencia = n.frequencia, monetario = n.monetario, nota_recencia = n.nota_recencia, " +
+            "     nota_frequencia = n.nota_frequencia, nota_monetario = n.nota_monetario, segmento = n.segmento, " +
+            "     calculado_em = n.calculado_em " +
+            "WHEN NOT MATCHED THEN INSERT (" + COLUNAS + ") VALUES (n.id_cliente, n.ultima_compra, n.recencia_dias, " +
+            "     n.frequencia, n.monetario, n.nota_recencia, n.nota_frequencia, n.nota_monetario, n.segmento, " +
+            "     n.calculado_em);";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExclusaoRepository exclusaoRepository;
+    private final SegmentoClienteRepository segmentoClienteRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Estado do último cálculo (protegido por "this"). cortes == null: ainda não houve cálculo completo
+    private Cortes cortes;
+    private final Map<Integer, Integer> clientePorPedido = new HashMap<>(); // só os pedidos que contam
+    private long versao;
+
+    public SegmentacaoRfmService(JdbcTemplate jdbcTemplate, ExclusaoRepository exclusaoRepository,
+            SegmentoClienteRepository segmentoClienteRepository, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exclusaoRepository = exclusaoRepository;
+        this.segmentoClienteRepository = segmentoClienteRepository;
+        this.transactionManager = transactionManager;
+    }
+
+    // --- CONSULTAS ---
+
+    public PaginaCursorDTO<SegmentoClienteEntity> listarPagina(String segmento, String cursor, Integer limite) {
+        int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        Integer depoisDe = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                depoisDe = Integer.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+            }
+        }
+        // Pede um a mais só para saber se há próxima página
+        List<SegmentoClienteEntity> itens = new ArrayList<>(segmentoClienteRepository.buscarPagina(
+                lerSegmento(segmento), depoisDe, PageRequest.of(0, tamanho + 1)));
+        boolean temMais = itens.size() > tamanho;
+        if (temMais) {
+            itens = itens.subList(0, tamanho);
+        }
+        String proximo = temMais ? String.valueOf(itens.get(itens.size() - 1).getIdCliente()) : null;
+        return new PaginaCursorDTO<>(itens, proximo, temMais);
+    }
+
+    // Quantos clientes em cada segmento (todos aparecem, mesmo com zero)
+    public Map<SegmentoRfm, Long> resumo() {
+        Map<SegmentoRfm, Long> resumo = new LinkedHashMap<>();
+        for (SegmentoRfm segmento : SegmentoRfm.values()) {
+            resumo.put(segmento, 0L);
+        }
+        for (SegmentoClienteRepository.ContagemSegmento c : segmentoClienteRepository.contarPorSegmento()) {
+            resumo.put(c.getSegmento(), c.getTotal());
+        }
+        return resumo;
+    }
+
+    private static SegmentoRfm lerSegmento(String segmento) {
+        if (segmento == null || segmento.isBlank()) {
+            return null;
+        }
+        try {
+            return SegmentoRfm.valueOf(segmento.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Segmento inválido: " + segmento);
+        }
+    }
+
+    // --- CÁLCULO COMPLETO ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        recalcularCompletoAgendado();
+    }
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void recalcularCompletoAgendado() {
+        try {
+            recalcularCompleto();
+        } catch (Exception e) {
+            System.err.println("Erro no cálculo completo dos segmentos RFM: " + e.getMessage());
+        }
+    }
+
+    // Devolve quantos clientes foram pontuados
+    public synchronized int recalcularCompleto() {
+        // Lida antes da passada: o que mudar durante ela é repetido no incremental (que é idempotente)
+        long limite = exclusaoRepository.versaoEstavel();
+
+        int[] ids = jdbcTemplate.queryForList(SQL_CLIENTES, Integer.class).stream().mapToInt(Integer::intValue).toArray();
+        Agregado agregado = new Agregado(ids);
+        Map<Integer, Integer> pedidos = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_PEDIDOS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(LOTE);
+            return ps;
+        }, (RowCallbackHandler) rs -> somar(rs, agregado, pedidos));
+
+        Cortes novos = agregado.cortes();
+        Linha[] linhas = new Linha[ids.length];
+        ForkJoinPool.commonPool().invoke(
+                new Pontuacao(agregado, novos, LocalDate.now().toEpochDay(), linhas, 0, ids.length));
+
+        LocalDateTime agora = LocalDateTime.now();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM Segmentos_Clientes");
+            gravar(SQL_INSERIR, Arrays.asList(linhas), agora);
+        });
+
+        cortes = novos;
+        clientePorPedido.clear();
+        clientePorPedido.putAll(pedidos);
+        versao = limite - 1;
+        return ids.length;
+    }
+
+    // --- INCREMENTAL ---
+
+    @Scheduled(initialDelay = INCREMENTAL_MS, fixedDelay = INCREMENTAL_MS)
+    public void recalcularIncrementalAgendado() {
+        try {
+            recalcularIncremental();
+        } catch (Exception e) {
+            System.err.println("Erro no cálculo incremental dos segmentos RFM: " + e.getMessage());
+        }
+    }
+
+    // Devolve quantos clientes foram recalculados ou removidos
+    public synchronized int recalcularIncremental() {
+        if (cortes == null) {
+            return 0;
+        }
+        long desde = versao;
+        long limite = exclusaoRepository.versaoEstavel();
+        Set<Integer> afetados = new HashSet<>();
+        Set<Integer> removidos = new HashSet<>();
+
+        // Dono anterior (do mapa) e dono atual (do banco) de cada pedido alterado
+        jdbcTemplate.query(SQL_ALTERADOS, (RowCallbackHandler) rs -> {
+            Integer anterior = clientePorPedido.remove(rs.getInt(1));
+            if (anterior != null) {
+                afetados.add(anterior);
+            }
+            int atual = rs.getInt(2);
+            if (!rs.wasNull()) {
+                afetados.add(atual);
+            }
+        }, desde, limite, desde, limite);
+        afetados.addAll(jdbcTemplate.queryForList(SQL_CLIENTES_ALTERADOS, Integer.class, desde, limite));
+
+        for (ExclusaoEntity exclusao : exclusaoRepository.buscarDesde(desde, limite)) {
+            if (SincronizacaoService.PEDIDOS.equals(exclusao.getEntidade())) {
+                Integer anterior = clientePorPedido.remove(exclusao.getIdRegistro());
+                if (anterior != null) {
+                    afetados.add(anterior);
+                }
+            } else if (SincronizacaoService.CLIENTES.equals(exclusao.getEntidade())) {
+                removidos.add(exclusao.getIdRegistro());
+            }
+        }
+        afetados.removeAll(removidos);
+
+        if (!afetados.isEmpty()) {
+            int[] ids = afetados.stream().mapToInt(Integer::intValue).sorted().toArray();
+            Agregado agregado = new Agregado(ids);
+            for (int de = 0; de < ids.length; de += LOTE) {
+                Object[] lote = Arrays.stream(ids, de, Math.min(ids.length, de + LOTE)).boxed().toArray();
+                String sql = SQL_PEDIDOS + " AND o.id_cliente IN (" + "?,".repeat(lote.length - 1) + "?)";
+                jdbcTemplate.query(sql, (RowCallbackHandler) rs -> somar(rs, agregado, clientePorPedido), lote);
+            }
+            long hoje = LocalDate.now().toEpochDay();
+            List<Linha> linhas = new ArrayList<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                linhas.add(Pontuacao.linha(agregado, i, cortes, hoje));
+            }
+            gravar(SQL_GRAVAR, linhas, LocalDateTime.now());
+        }
+        if (!removidos.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM Segmentos_Clientes WHERE id_cliente = ?", new ArrayList<>(removidos),
+                    LOTE, (ps, id) -> ps.setInt(1, id));
+        }
+
+        versao = limite - 1;
+        return afetados.size() + removidos.size();
+    }
+
+    // --- AGREGAÇÃO E NOTAS ---
+
+    private static void somar(ResultSet rs, Agregado agregado, Map<Integer, Integer> pedidos) throws SQLException {
+        int idCliente = rs.getInt(2);
+        int posicao = rs.wasNull() ? -1 : Arrays.binarySearch(agregado.ids, idCliente);
+        if (posicao < 0) {
+            return; // cliente criado depois da lista de ids: entra no próximo incremental
+        }
+        agregado.somar(posicao, rs.getDate(3).toLocalDate().toEpochDay(), rs.getLong(4));
+        pedidos.put(rs.getInt(1), idCliente);
+    }
+
+    private void gravar(String sql, List<Linha> linhas, LocalDateTime agora) {
+        Timestamp calculadoEm = Timestamp.valueOf(agora);
+        jdbcTemplate.batchUpdate(sql, linhas, LOTE, (ps, l) -> {
+            ps.setInt(1, l.idCliente());
+            if (l.ultimaCompra() == null) {
+                ps.setNull(2, Types.DATE);
+                ps.setNull(3, Types.INTEGER);
+            } else {
+                ps.setDate(2, Date.valueOf(l.ultimaCompra()));
+                ps.setInt(3, l.recenciaDias());
+            }
+            ps.setInt(4, l.frequencia());
+            ps.setLong(5, l.monetario());
+            ps.setInt(6, l.notaRecencia());
+            ps.setInt(7, l.notaFrequencia());
+            ps.setInt(8, l.notaMonetario());
+            ps.setString(9, l.segmento().name());
+            ps.setTimestamp(10, calculadoEm);
+        });
+    }
+
+    // Métricas por cliente, na posição dele em "ids" (ordenado). Última compra em epochDay;
+    // Long.MIN_VALUE = nunca comprou.
+    private static final class Agregado {
+        final int[] ids;
+        final long[] ultimaCompra;
+        final long[] frequencia;
+        final long[] monetario;
+
+        Agregado(int[] ids) {
+            this.ids = ids;
+            this.ultimaCompra = new long[ids.length];
+            this.frequencia = new long[ids.length];
+            this.monetario = new long[ids.length];
+            Arrays.fill(ultimaCompra, Long.MIN_VALUE);
+        }
+
+        void somar(int posicao, long dia, long valor) {
+            ultimaCompra[posicao] = Math.max(ultimaCompra[posicao], dia);
+            frequencia[posicao]++;
+            monetario[posicao] += valor;
+        }
+
+        // Valores ordenados de quem comprou ao menos uma vez: a base dos quintis
+        Cortes cortes() {
+            int compradores = 0;
+            for (long f : frequencia) {
+                if (f > 0) {
+                    compradores++;
+                }
+            }
+            long[] r = new long[compradores];
+            long[] f = new long[compradores];
+            long[] m = new long[compradores];
+            for (int i = 0, j = 0; i < ids.length; i++) {
+                if (frequencia[i] > 0) {
+                    r[j] = ultimaCompra[i];
+                    f[j] = frequencia[i];
+                    m[j++] = monetario[i];
+                }
+            }
+            Arrays.parallelSort(r);
+            Arrays.parallelSort(f);
+            Arrays.parallelSort(m);
+            return new Cortes(r, f, m);
+        }
+    }
+
+    // Nas três métricas, maior é melhor (recência vai em data da última compra, não em dias)
+    private record Cortes(long[] recencia, long[] frequencia, long[] monetario) {
+    }
+
+    private record Linha(int idCliente, LocalDate ultimaCompra, Integer recenciaDias, int frequencia, long monetario,
+            int notaRecencia, int notaFrequencia, int notaMonetario, SegmentoRfm segmento) {
+    }
+
+    // Pontua as posições [de, ate) dividindo ao meio até ficar pequeno o bastante
+    private static final class Pontuacao extends RecursiveAction {
+        private final Agregado agregado;
+        private final Cortes cortes;
+        private final long hoje;
+        private final Linha[] saida;
+        private final int de;
+        private final int ate;
+
+        Pontuacao(Agregado agregado, Cortes cortes, long hoje, Linha[] saida, int de, int ate) {
+            this.agregado = agregado;
+            this.cortes = cortes;
+            this.hoje = hoje;
+            this.saida = saida;
+            this.de = de;
+            this.ate = ate;
+        }
+
+        @Override
+        protected void compute() {
+            if (ate - de <= CLIENTES_POR_TAREFA) {
+                for (int i = de; i < ate; i++) {
+                    saida[i] = linha(agregado, i, cortes, hoje);
+                }
+                return;
+            }
+            int meio = (de + ate) >>> 1;
+            invokeAll(new Pontuacao(agregado, cortes, hoje, saida, de, meio),
+                    new Pontuacao(agregado, cortes, hoje, saida, meio, ate));
+        }
+
+        static Linha linha(Agregado a, int i, Cortes cortes, long hoje) {
+            if (a.frequencia[i] == 0) {
+                return new Linha(a.ids[i], null, null, 0, 0, 0, 0, 0, SegmentoRfm.SEM_COMPRAS);
+            }
+            int r = nota(cortes.recencia(), a.ultimaCompra[i]);
+            int f = nota(cortes.frequencia(), a.frequencia[i]);
+            int m = nota(cortes.monetario(), a.monetario[i]);
+            return new Linha(a.ids[i], LocalDate.ofEpochDay(a.ultimaCompra[i]), (int) (hoje - a.ultimaCompra[i]),
+                    (int) a.frequencia[i], a.monetario[i], r, f, m, SegmentoRfm.de(r, f, m));
+        }
+    }
+
+    // Quintil do valor entre os ordenados. Empates ficam todos na posição média deles, senão
+    // "1 pedido" (a maioria) cairia inteiro na nota 1 ou espalhado em notas diferentes.
+    static int nota(long[] ordenados, long valor) {
+        if (ordenados.length == 0) {
+            return 1;
+        }
+        int primeiro = primeiraPosicao(ordenados, valor, false);
+        int depois = primeiraPosicao(ordenados, valor, true);
+        double posicao = Math.max(0, (primeiro + depois - 1) / 2.0);
+        return 1 + Math.min(FAIXAS - 1, (int) (posicao * FAIXAS / ordenados.length));
+    }
+
+    // Primeira posição com valor >= alvo (ou > alvo, se "estrito")
+    private static int primeiraPosicao(long[] ordenados, long alvo, boolean estrito) {
+        int baixo = 0;
+        int alto = ordenados.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (ordenados[meio] < alvo || (estrito && ordenados[meio] == alvo)) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+}
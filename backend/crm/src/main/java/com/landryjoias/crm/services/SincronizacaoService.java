@@ -0,0 +1,67 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.dto.SincronizacaoDTO;
+import com.landryjoias.crm.entity.ExclusaoEntity;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent;
+import com.landryjoias.crm.eventos.EntidadeAlteradaEvent.Operacao;
+import com.landryjoias.crm.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// --- SINCRONIZAÇÃO INCREMENTAL ---
+// Cada tabela tem uma coluna rowversion (versao_linha) que o SQL Server incrementa a cada
+// INSERT/UPDATE; exclusões viram linhas em Exclusoes. O corte é feito em MIN_ACTIVE_ROWVERSION(),
+// então uma transação ainda aberta com versão menor nunca é "pulada" pelo cliente.
+@Service
+@RequiredArgsConstructor
+public class SincronizacaoService {
+    public static final String CLIENTES = "clientes";
+    public static final String PRODUTOS = "produtos";
+    public static final String PEDIDOS = "pedidos";
+    public static final String OPORTUNIDADES = "oportunidades";
+    public static final String FUNCIONARIOS = "funcionarios";
+    public static final String LOGS = "logs";
+
+    private final ClienteRepository clienteRepository;
+    private final ProdutosRepository produtosRepository;
+    private final PedidosRepository pedidosRepository;
+    private final OportunidadesRepository oportunidadesRepository;
+    private final FuncionarioRepository funcionarioRepository;
+    private final LogRepository logRepository;
+    private final ExclusaoRepository exclusaoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public SincronizacaoDTO alteracoesDesde(long desde) {
+        long limite = exclusaoRepository.versaoEstavel();
+
+        List<SincronizacaoDTO.ExclusaoDTO> exclusoes = exclusaoRepository.buscarDesde(desde, limite).stream()
+                .map(e -> new SincronizacaoDTO.ExclusaoDTO(e.getEntidade(), e.getIdRegistro()))
+                .toList();
+
+        return new SincronizacaoDTO(
+                limite - 1, // tudo abaixo de "limite" já foi entregue
+                clienteRepository.buscarAlteradosDesde(desde, limite),
+                produtosRepository.buscarAlteradosDesde(desde, limite),
+                pedidosRepository.buscarAlteradosDesde(desde, limite),
+                oportunidadesRepository.buscarAlteradosDesde(desde, limite),
+                funcionarioRepository.buscarAlteradosDesde(desde, limite),
+                logRepository.buscarAlteradosDesde(desde, limite),
+                exclusoes);
+    }
+
+    // Chamado pelos services no excluir, dentro da mesma transação do DELETE
+    public void registrarExclusao(String entidade, Integer id) {
+        exclusaoRepository.save(new ExclusaoEntity(entidade, id));
+        notificar(entidade, id, Operacao.EXCLUIDO);
+    }
+
+    // Avisa os ouvintes (feed SSE em /eventos/stream). Eles só recebem depois do commit.
+    public void notificar(String entidade, Integer id, Operacao operacao) {
+        eventPublisher.publishEvent(new EntidadeAlteradaEvent(entidade, id, operacao));
+    }
+}
@@ -0,0 +1,142 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.dto.ResultadoTransicaoDTO;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+
+// --- MUDANÇA DE ESTADO EM LOTE ---
+// Lê o estado atual de todos os ids numa consulta, separa os que a máquina de estados aceita
+// e aplica um UPDATE por estado de origem ("... WHERE id IN (...) AND estado = :origem").
+// A condição no estado de origem impede sobrescrever quem mudou o registro no meio do caminho:
+// esses ids voltam como "conflito", mesmo que já estejam no destino. Deve rodar dentro da
+// transação do service que chamou.
+@Service
+@RequiredArgsConstructor
+public class TransicaoLoteService {
+    static final int MAXIMO_IDS = 1000; // abaixo do limite de 2100 parâmetros do SQL Server
+
+    private final EntityManager entityManager;
+
+    public <E extends Enum<E>> List<ResultadoTransicaoDTO> aplicar(String entidade, String atributoId, String atributoEstado,
+            Class<E> tipo, List<Integer> idsInformados, String destinoTexto, BiPredicate<E, E> permitido) {
+        if (idsInformados == null || idsInformados.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe ao menos um id.");
+        }
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(idsInformados.stream().filter(Objects::nonNull).toList()));
+        if (ids.isEmpty() || ids.size() > MAXIMO_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe entre 1 e " + MAXIMO_IDS + " ids.");
+        }
+        E destino;
+        try {
+            destino = Enum.valueOf(tipo, destinoTexto);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Destino inválido: " + destinoTexto);
+        }
+
+        Map<Integer, E> atuais = lerEstados(entidade, atributoId, atributoEstado, ids);
+
+        Map<Integer, ResultadoTransicaoDTO> resultados = new HashMap<>();
+        Map<E, List<Integer>> porOrigem = new EnumMap<>(tipo);
+        for (Integer id : ids) {
+            if (!atuais.containsKey(id)) {
+                resultados.put(id, resultado(id, ResultadoTransicaoDTO.NAO_ENCONTRADO, null, destino));
+                continue;
+            }
+            E origem = atuais.get(id);
+            if (origem == destino) {
+                resultados.put(id, resultado(id, ResultadoTransicaoDTO.INALTERADO, origem, destino));
+            } else if (origem == null || !permitido.test(origem, destino)) {
+                resultados.put(id, resultado(id, ResultadoTransicaoDTO.TRANSICAO_INVALIDA, origem, destino));
+            } else {
+                porOrigem.computeIfAbsent(origem, o -> new ArrayList<>()).add(id);
+            }
+        }
+
+        // O OUTPUT devolve só as linhas que este UPDATE mudou: se outra transação levou o registro
+        // ao destino primeiro, ele fica de fora e vira conflito aqui, em vez de ser contado duas vezes
+        Tabela tabela = tabela(entidade, atributoId, atributoEstado);
+        String sql = "UPDATE " + tabela.nome() + " SET " + tabela.estado() + " = :destino OUTPUT inserted." + tabela.id()
+                + " WHERE " + tabela.id() + " IN :ids AND " + tabela.estado() + " = :origem";
+        for (Map.Entry<E, List<Integer>> grupo : porOrigem.entrySet()) {
+            Set<Integer> mudaram = new HashSet<>();
+            for (Object id : entityManager.createNativeQuery(sql)
+                    .setParameter("destino", destino.name())
+                    .setParameter("ids", grupo.getValue())
+                    .setParameter("origem", grupo.getKey().name())
+                    .getResultList()) {
+                mudaram.add(((Number) id).intValue());
+            }
+            for (Integer id : grupo.getValue()) {
+                resultados.put(id, resultado(id, mudaram.contains(id) ? ResultadoTransicaoDTO.ALTERADO
+                        : ResultadoTransicaoDTO.CONFLITO, grupo.getKey(), destino));
+            }
+        }
+        return ids.stream().map(resultados::get).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Enum<E>> Map<Integer, E> lerEstados(String entidade, String atributoId, String atributoEstado,
+            List<Integer> ids) {
+        List<Object[]> linhas = entityManager.createQuery("SELECT e." + atributoId + ", e." + atributoEstado
+                        + " FROM " + entidade + " e WHERE e." + atributoId + " IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Integer, E> estados = new HashMap<>();
+        for (Object[] linha : linhas) {
+            estados.put((Integer) linha[0], (E) linha[1]);
+        }
+        return estados;
+    }
+
+    // Nomes físicos da entidade, tirados do mapeamento do Hibernate (o estado é gravado como texto)
+    private record Tabela(String nome, String id, String estado) {}
+
+    private Tabela tabela(String entidade, String atributoId, String atributoEstado) {
+        Class<?> classe = entityManager.getMetamodel().getEntities().stream()
+                .filter(e -> e.getName().equals(entidade))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Entidade desconhecida: " + entidade))
+                .getJavaType();
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class).getMappingMetamodel().getEntityDescriptor(classe);
+        return new Tabela(persister.getTableName(), persister.getPropertyColumnNames(atributoId)[0],
+                persister.getPropertyColumnNames(atributoEstado)[0]);
+    }
+
+    private static ResultadoTransicaoDTO resultado(Integer id, String resultado, Enum<?> de, Enum<?> para) {
+        return new ResultadoTransicaoDTO(id, resultado, de != null ? de.name() : null, para.name());
+    }
+
+    // Descrição curta para o log de auditoria (uma entrada por chamada)
+    public static String resumir(List<ResultadoTransicaoDTO> resultados) {
+        Map<String, List<Integer>> porResultado = new TreeMap<>();
+        resultados.forEach(r -> porResultado.computeIfAbsent(r.getResultado(), k -> new ArrayList<>()).add(r.getId()));
+        StringBuilder texto = new StringBuilder();
+        porResultado.forEach((resultado, ids) -> {
+            if (!texto.isEmpty()) {
+                texto.append("; ");
+            }
+            texto.append(resultado).append(": ").append(ids.size());
+            List<Integer> amostra = ids.size() > 50 ? ids.subList(0, 50) : ids;
+            texto.append(" ").append(amostra).append(ids.size() > 50 ? "..." : "");
+        });
+        return texto.toString();
+    }
+}
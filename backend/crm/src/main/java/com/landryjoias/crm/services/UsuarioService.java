@@ -2,8 +2,8 @@ package com.landryjoias.crm.services;
 
 import com.landryjoias.crm.entity.LogEntity;
 import com.landryjoias.crm.entity.UsuarioEntity;
-import com.landryjoias.crm.repository.LogRepository;
 import com.landryjoias.crm.repository.UsuarioRepository;
+import com.landryjoias.crm.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -16,8 +16,9 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class UsuarioService {
     private final UsuarioRepository usuarioRepository;
-    private final LogRepository logRepository;
+    private final AuditoriaService auditoriaService;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     public UsuarioEntity incluir(UsuarioEntity usuario) {
     usuario.setSenha(passwordEncoder.encode(usuario.getSenha())); // <-- Encripta ANTES
@@ -40,6 +41,7 @@ public class UsuarioService {
             usuarioAtualizado.setNivelAcesso(usuario.getNivelAcesso());
             
             UsuarioEntity salvo = usuarioRepository.save(usuarioAtualizado);
+            principalCache.invalidar(id); // email/nível novos valem já na próxima requisição
             registrarLog("Usuário Alterado", "Credenciais de " + salvo.getEmail() + " alteradas por " + getUsuarioLogadoEmail());
             return salvo;
         }
@@ -55,6 +57,7 @@ public class UsuarioService {
         if (user.isPresent()) {
             String email = user.get().getEmail();
             usuarioRepository.deleteById(id);
+            principalCache.invalidar(id);
             registrarLog("Usuário Excluído", "Login " + email + " revogado por " + getUsuarioLogadoEmail());
         }
     }
@@ -89,7 +92,7 @@ public class UsuarioService {
             log.setDescricao(descricao);
             log.setData(LocalDateTime.now());
             log.setUsuario(getUsuarioLogado());
-            logRepository.save(log);
+            auditoriaService.registrar(log);
         } catch (Exception e) {}
     }
 }
\ No newline at end of file
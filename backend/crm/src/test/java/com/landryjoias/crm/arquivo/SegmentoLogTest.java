@@ -0,0 +1,87 @@
+package com.landryjoias.crm.arquivo;
+
+import com.landryjoias.crm.arquivo.SegmentoLog.RegistroLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentoLogTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123_000_000);
+
+    @TempDir
+    Path diretorio;
+
+    // Um registro por minuto; alguns sem usuário, sem textos ou com descrição acima de 64 KB
+    static List<RegistroLog> registros(int primeiroId, int quantos) {
+        List<RegistroLog> registros = new ArrayList<>(quantos);
+        for (int i = 0; i < quantos; i++) {
+            int id = primeiroId + i;
+            boolean semUsuario = id % 7 == 0;
+            registros.add(new RegistroLog(id, INICIO.plusMinutes(id), id % 5, semUsuario ? null : id % 3 + 1,
+                    semUsuario ? null : "usuario" + (id % 3 + 1) + "@landry.com",
+                    id % 11 == 0 ? null : "Pedido #" + id + " alterado", "Pedidos",
+                    id == primeiroId + 1 ? "ç".repeat(40_000) : "Descrição " + id));
+        }
+        return registros;
+    }
+
+    @Test
+    void escreveEReleTudoNaMesmaOrdem() throws IOException {
+        // Mais de um bloco, com o último pela metade
+        List<RegistroLog> gravados = registros(1, SegmentoLog.REGISTROS_POR_BLOCO * 2 + 17);
+
+        Path arquivo = SegmentoLog.escrever(diretorio, gravados);
+        SegmentoLog segmento = SegmentoLog.abrir(arquivo);
+
+        assertTrue(arquivo.getFileName().toString().matches("logs-\\d{19}-\\d{10}\\.seg"));
+        try (var arquivos = Files.list(diretorio)) {
+            assertEquals(List.of(arquivo), arquivos.toList()); // o temporário foi renomeado
+        }
+        assertEquals(gravados.size(), segmento.getTotalRegistros());
+        assertEquals(gravados.get(0).data().withNano(0), segmento.getPrimeiraData());
+        assertEquals(gravados.get(gravados.size() - 1).data().withNano(0).plusSeconds(1), segmento.getUltimaData());
+
+        List<RegistroLog> lidos = new ArrayList<>();
+        segmento.percorrer(lidos::add);
+        assertEquals(gravados, lidos);
+    }
+
+    @Test
+    void percorreDeTrasParaFrenteSoNoIntervaloEParaQuandoPedido() throws IOException {
+        List<RegistroLog> gravados = registros(1, SegmentoLog.REGISTROS_POR_BLOCO * 3);
+        SegmentoLog segmento = SegmentoLog.abrir(SegmentoLog.escrever(diretorio, gravados));
+
+        // Intervalo dentro do bloco do meio: os blocos 0 e 2 nem são descomprimidos, mas o filtro
+        // exato por data é de quem chama (aqui, só conferimos a ordem e a parada)
+        LocalDateTime de = INICIO.plusMinutes(300);
+        LocalDateTime ate = INICIO.plusMinutes(310);
+        List<Integer> ids = new ArrayList<>();
+        segmento.percorrerDecrescente(de, ate, r -> {
+            ids.add(r.idLog());
+            return r.idLog() > 305;
+        });
+
+        assertEquals(SegmentoLog.REGISTROS_POR_BLOCO * 2, ids.get(0)); // último do bloco do meio
+        assertEquals(305, ids.get(ids.size() - 1));
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(ids.get(i - 1) - 1, ids.get(i));
+        }
+    }
+
+    @Test
+    void recusaArquivoQueNaoESegmento() throws IOException {
+        Path lixo = Files.write(diretorio.resolve("logs-lixo.seg"), new byte[64]);
+        assertThrows(IOException.class, () -> SegmentoLog.abrir(lixo));
+    }
+}
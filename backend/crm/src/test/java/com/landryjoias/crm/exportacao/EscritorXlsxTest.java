@@ -0,0 +1,95 @@
+package com.landryjoias.crm.exportacao;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Abre o .xlsx gerado como um leitor faria: zip, partes obrigatórias e XML da planilha
+class EscritorXlsxTest {
+
+    @Test
+    void planilhaGeradaAbreEGuardaAsLinhas() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (EscritorXlsx escritor = new EscritorXlsx(saida)) {
+            escritor.cabecalho(List.of("idPedido", "cliente", "data", "valor", "obs"));
+            escritor.linha(new Object[] { 42, "Joias & Cia <Centro>", Timestamp.valueOf(LocalDateTime.of(2025, 3, 1, 14, 30)),
+                    1500.5, null });
+            escritor.linha(new Object[] { 43, "Ctrl\u0001 removido", null, 0, "linha\ncom quebra" });
+        }
+
+        Map<String, byte[]> partes = abrirZip(saida.toByteArray());
+        assertTrue(partes.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/worksheets/sheet1.xml")), partes.keySet().toString());
+
+        Document workbook = xml(partes.get("xl/workbook.xml"));
+        NodeList abas = workbook.getElementsByTagName("sheet");
+        assertEquals(1, abas.getLength());
+        assertEquals("Dados", ((Element) abas.item(0)).getAttribute("name"));
+
+        NodeList linhas = xml(partes.get("xl/worksheets/sheet1.xml")).getElementsByTagName("row");
+        assertEquals(3, linhas.getLength());
+        assertEquals(List.of("idPedido", "cliente", "data", "valor", "obs"), celulas((Element) linhas.item(0)));
+
+        Element primeira = (Element) linhas.item(1);
+        assertEquals("2", primeira.getAttribute("r"));
+        assertEquals(List.of("42", "Joias & Cia <Centro>", "2025-03-01T14:30", "1500.5", ""), celulas(primeira));
+        // Número vai como valor, texto como inlineStr
+        NodeList celulas = primeira.getElementsByTagName("c");
+        assertEquals("", ((Element) celulas.item(0)).getAttribute("t"));
+        assertEquals("inlineStr", ((Element) celulas.item(1)).getAttribute("t"));
+
+        assertEquals(List.of("43", "Ctrl removido", "", "0", "linha\ncom quebra"), celulas((Element) linhas.item(2)));
+    }
+
+    @Test
+    void exportacaoVaziaAindaEUmaPlanilhaValida() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        new EscritorXlsx(saida).close();
+
+        Map<String, byte[]> partes = abrirZip(saida.toByteArray());
+        NodeList linhas = xml(partes.get("xl/worksheets/sheet1.xml")).getElementsByTagName("row");
+        assertEquals(1, linhas.getLength());
+        assertEquals(List.of(), celulas((Element) linhas.item(0)));
+    }
+
+    private static Map<String, byte[]> abrirZip(byte[] bytes) throws Exception {
+        Map<String, byte[]> partes = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            for (ZipEntry entrada; (entrada = zip.getNextEntry()) != null; ) {
+                partes.put(entrada.getName(), zip.readAllBytes());
+            }
+        }
+        return partes;
+    }
+
+    private static Document xml(byte[] bytes) throws Exception {
+        DocumentBuilderFactory fabrica = DocumentBuilderFactory.newInstance();
+        fabrica.setNamespaceAware(true);
+        return fabrica.newDocumentBuilder().parse(new ByteArrayInputStream(bytes));
+    }
+
+    // Texto de cada célula da linha ("" para célula vazia)
+    private static List<String> celulas(Element linha) {
+        NodeList celulas = linha.getElementsByTagName("c");
+        String[] textos = new String[celulas.getLength()];
+        for (int i = 0; i < textos.length; i++) {
+            textos[i] = celulas.item(i).getTextContent();
+        }
+        return List.of(textos);
+    }
+}
@@ -0,0 +1,97 @@
+package com.landryjoias.crm.recomendacao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MapaIntIntTest {
+
+    @Test
+    void colocaBuscaSomaERemove() {
+        MapaIntInt mapa = new MapaIntInt();
+        mapa.colocar(7, 70);
+        mapa.colocar(7, 71);
+        assertEquals(71, mapa.buscar(7, -1));
+        assertEquals(-1, mapa.buscar(8, -1));
+
+        assertEquals(3, mapa.somar(8, 3));
+        assertEquals(5, mapa.somar(8, 2));
+        assertEquals(0, mapa.somar(8, -5)); // chegou a zero: sai do mapa
+        assertEquals(-1, mapa.buscar(8, -1));
+        assertEquals(0, mapa.somar(9, 0));  // delta zero em chave ausente não cria entrada
+        assertEquals(1, mapa.tamanho());
+
+        assertTrue(mapa.remover(7));
+        assertFalse(mapa.remover(7));
+        assertEquals(0, mapa.tamanho());
+        assertThrows(IllegalArgumentException.class, () -> mapa.colocar(0, 1));
+    }
+
+    // Três chaves com a mesma posição ideal no fim da tabela: a segunda e a terceira dão a volta
+    // para o início. Tirar a primeira tem que puxar as outras de volta, atravessando a virada.
+    @Test
+    void colisaoQueDaAVoltaNaTabelaSobreviveARemocao() {
+        MapaIntInt mapa = new MapaIntInt(1);
+        assertEquals(8, mapa.capacidade());
+        int[] noFim = new int[3];
+        for (int chave = 1, n = 0; n < noFim.length; chave++) {
+            if (ideal(chave, 8) == 7) {
+                noFim[n++] = chave;
+            }
+        }
+        for (int chave : noFim) {
+            mapa.colocar(chave, chave * 10);
+        }
+        assertEquals(noFim[1], mapa.chaveEm(0));
+        assertEquals(noFim[2], mapa.chaveEm(1));
+
+        assertTrue(mapa.remover(noFim[0]));
+
+        assertEquals(noFim[1], mapa.chaveEm(7));
+        assertEquals(noFim[2], mapa.chaveEm(0));
+        assertEquals(0, mapa.chaveEm(1));
+        assertEquals(noFim[1] * 10, mapa.buscar(noFim[1], -1));
+        assertEquals(noFim[2] * 10, mapa.buscar(noFim[2], -1));
+        assertEquals(2, mapa.tamanho());
+    }
+
+    @Test
+    void mesmoResultadoQueHashMapComMuitasInsercoesERemocoes() {
+        MapaIntInt mapa = new MapaIntInt();
+        Map<Integer, Integer> esperado = new HashMap<>();
+        Random random = new Random(42);
+        for (int n = 0; n < 50_000; n++) {
+            int chave = 1 + random.nextInt(500);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    mapa.colocar(chave, n);
+                    esperado.put(chave, n);
+                }
+                case 1 -> assertEquals(esperado.remove(chave) != null, mapa.remover(chave));
+                default -> {
+                    int delta = random.nextInt(5) - 2;
+                    int valor = esperado.getOrDefault(chave, 0) + delta;
+                    if (valor == 0) esperado.remove(chave); else esperado.put(chave, valor);
+                    assertEquals(valor, mapa.somar(chave, delta));
+                }
+            }
+        }
+        assertEquals(esperado.size(), mapa.tamanho());
+        for (int chave = 1; chave <= 500; chave++) {
+            assertEquals(esperado.getOrDefault(chave, -1).intValue(), mapa.buscar(chave, -1));
+        }
+    }
+
+    // Mesma dispersão de MapaIntInt.ideal
+    private static int ideal(int chave, int capacidade) {
+        int h = chave * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (capacidade - 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.landryjoias.crm.recomendacao;
+
+import com.landryjoias.crm.recomendacao.MatrizCoocorrencia.Recomendacao;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatrizCoocorrenciaTest {
+
+    // Pedidos: {10, 20}, {10, 20}, {10, 30}, {40}
+    private static MatrizCoocorrencia exemplo() {
+        MatrizCoocorrencia matriz = new MatrizCoocorrencia();
+        matriz.colocarPedido(1, new int[] { 10, 20 });
+        matriz.colocarPedido(2, new int[] { 20, 10, 10 }); // repetido conta uma vez
+        matriz.colocarPedido(3, new int[] { 10, 30 });
+        matriz.colocarPedido(4, new int[] { 40 });
+        return matriz;
+    }
+
+    @Test
+    void liftEConfiancaComMinimoDePedidosJuntos() {
+        MatrizCoocorrencia matriz = exemplo();
+        assertEquals(4, matriz.pedidos());
+        assertEquals(4, matriz.produtos());
+
+        List<Recomendacao> comDez = matriz.recomendados(10, 5, 2);
+        assertEquals(1, comDez.size()); // 30 saiu junto só uma vez
+        Recomendacao vinte = comDez.get(0);
+        assertEquals(20, vinte.idProduto());
+        assertEquals(2, vinte.pedidosJuntos());
+        assertEquals(2.0 * 4 / (3 * 2), vinte.lift(), 1e-9);
+        assertEquals(2.0 / 3, vinte.confianca(), 1e-9);
+
+        List<Recomendacao> todos = matriz.recomendados(10, 5, 1);
+        assertEquals(List.of(20, 30), todos.stream().map(Recomendacao::idProduto).toList());
+        assertTrue(matriz.recomendados(40, 5, 1).isEmpty());
+        assertTrue(matriz.recomendados(99, 5, 1).isEmpty());
+    }
+
+    @Test
+    void limitaAosMelhoresPorLift() {
+        MatrizCoocorrencia matriz = new MatrizCoocorrencia();
+        matriz.colocarPedido(1, new int[] { 1, 2 });
+        matriz.colocarPedido(2, new int[] { 1, 2 });
+        matriz.colocarPedido(3, new int[] { 1, 3 });
+        matriz.colocarPedido(4, new int[] { 3, 5 });
+        matriz.colocarPedido(5, new int[] { 3, 6 });
+
+        // lift(1,2) = 2*5/(3*2) > lift(1,3) = 1*5/(3*3)
+        List<Recomendacao> melhor = matriz.recomendados(1, 1, 1);
+        assertEquals(1, melhor.size());
+        assertEquals(2, melhor.get(0).idProduto());
+    }
+
+    @Test
+    void recolocarOuTirarPedidoDesfazOQueEleSomou() {
+        MatrizCoocorrencia matriz = exemplo();
+
+        matriz.colocarPedido(2, new int[] { 10, 30 }); // pedido 2 trocou 20 por 30
+        assertEquals(4, matriz.pedidos());
+        List<Recomendacao> comDez = matriz.recomendados(10, 5, 2);
+        assertEquals(1, comDez.size());
+        assertEquals(30, comDez.get(0).idProduto());
+        assertEquals(2, comDez.get(0).pedidosJuntos());
+
+        matriz.colocarPedido(3, new int[0]); // cesta vazia = sai
+        matriz.removerPedido(1);
+        matriz.removerPedido(1); // já saiu: nada muda
+        assertEquals(2, matriz.pedidos());
+        assertEquals(1, matriz.recomendados(10, 5, 1).get(0).pedidosJuntos());
+
+        matriz.removerPedido(2);
+        matriz.removerPedido(4);
+        assertEquals(0, matriz.pedidos());
+        assertTrue(matriz.recomendados(10, 5, 1).isEmpty());
+    }
+}
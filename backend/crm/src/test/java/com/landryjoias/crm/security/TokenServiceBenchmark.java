@@ -0,0 +1,70 @@
+package com.landryjoias.crm.security;
+
+import com.landryjoias.crm.entity.NivelAcesso;
+import com.landryjoias.crm.entity.UsuarioEntity;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+// Custo de autenticar uma requisição com o mesmo token:
+//  - antesParseDuplo: como o SecurityFilter fazia (novo parser em isTokenValido + novo parser em getUsuarioId)
+//  - parseUnico: um parser reutilizado, um parse só
+//  - comCache: token repetido, só a digest SHA-256 + lookup
+//
+// Rodar: mvn test-compile e depois executar o main desta classe pela IDE
+// (ou java -cp "target/test-classes:target/classes:<classpath de teste>" org.openjdk.jmh.Main TokenServiceBenchmark)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private static final Key CHAVE = Keys.hmacShaKeyFor(
+            "UmaSenhaMuitoSeguraParaOProjetoLandryJoias2025CRM".getBytes(StandardCharsets.UTF_8));
+
+    private TokenService tokenService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService(new SimpleMeterRegistry());
+        UsuarioEntity usuario = new UsuarioEntity();
+        usuario.setIdUsuario(42);
+        usuario.setEmail("vendas@landryjoias.com");
+        usuario.setNivelAcesso(NivelAcesso.GERENTE);
+        token = tokenService.gerarToken(usuario);
+        tokenService.verificar(token); // aquece o cache
+    }
+
+    @Benchmark
+    public Integer antesParseDuplo() {
+        Jwts.parserBuilder().setSigningKey(CHAVE).build().parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder().setSigningKey(CHAVE).build().parseClaimsJws(token).getBody();
+        return Integer.parseInt(claims.getSubject());
+    }
+
+    @Benchmark
+    public TokenVerificado parseUnico() {
+        return tokenService.verificarAssinatura(token);
+    }
+
+    @Benchmark
+    public Object comCache() {
+        return tokenService.verificar(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.arquivo.SegmentoLog;
+import com.landryjoias.crm.arquivo.SegmentoLog.RegistroLog;
+import com.landryjoias.crm.entity.LogEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+// Segmentos gravados em disco, relidos pela subida e consultados juntos. O segundo segmento
+// repete parte do primeiro, como quando o processo cai entre gravar o arquivo e apagar as linhas.
+class ArquivoLogServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    Path diretorio;
+
+    private static List<RegistroLog> registros(int de, int ate) {
+        List<RegistroLog> registros = new ArrayList<>();
+        for (int id = de; id <= ate; id++) {
+            registros.add(new RegistroLog(id, INICIO.plusMinutes(id), 1, id % 2 == 0 ? 2 : null,
+                    id % 2 == 0 ? "vendas@landry.com" : null, "Log " + id, id % 3 == 0 ? "Pedidos" : "Clientes",
+                    "Descrição " + id));
+        }
+        return registros;
+    }
+
+    private ArquivoLogService servicoCom(List<List<RegistroLog>> segmentos) throws IOException {
+        for (List<RegistroLog> segmento : segmentos) {
+            SegmentoLog.escrever(diretorio, segmento);
+        }
+        ArquivoLogService service = new ArquivoLogService(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+                diretorio.toString());
+        service.carregar();
+        return service;
+    }
+
+    private static ArquivoLogService.Filtro filtro(String assunto, LocalDateTime cursorData, Integer cursorId) {
+        return new ArquivoLogService.Filtro(null, null, null, assunto, null, null, cursorData, cursorId);
+    }
+
+    @Test
+    void juntaOsSegmentosDoMaisNovoParaOMaisAntigoSemRepetir() throws IOException {
+        ArquivoLogService service = servicoCom(List.of(registros(1, 600), registros(500, 900)));
+
+        assertEquals(2, service.getSegmentos().size());
+        assertEquals(INICIO.plusMinutes(900).plusSeconds(1), service.getMaisRecente()); // fim exclusivo, no segundo
+
+        List<LogEntity> pagina = service.buscar(filtro(null, null, null), 1_000);
+        assertEquals(900, pagina.size());
+        assertEquals(IntStream.rangeClosed(1, 900).map(i -> 901 - i).boxed().toList(),
+                pagina.stream().map(LogEntity::getIdLog).toList());
+
+        assertEquals("vendas@landry.com", pagina.get(0).getUsuario().getEmail());
+        LogEntity impar = pagina.get(1);
+        assertEquals("Log 899", impar.getTitulo());
+        assertNull(impar.getUsuario());
+    }
+
+    @Test
+    void paginaComFiltroECursorAtravessandoOsDoisSegmentos() throws IOException {
+        ArquivoLogService service = servicoCom(List.of(registros(1, 600), registros(500, 900)));
+
+        // Depois do 610 (exclusivo), só "Pedidos" (múltiplos de 3): 609, 606, ..., 591 — 500 a 600
+        // estão nos dois arquivos e aparecem uma vez só
+        List<LogEntity> pagina = service.buscar(filtro("pedidos", INICIO.plusMinutes(610), 610), 7);
+        assertEquals(List.of(609, 606, 603, 600, 597, 594, 591), pagina.stream().map(LogEntity::getIdLog).toList());
+
+        List<Integer> porIds = service.buscarPorIds(List.of(550, 5, 880), null, null).stream()
+                .map(LogEntity::getIdLog).sorted().toList();
+        assertEquals(List.of(5, 550, 880), porIds);
+    }
+}
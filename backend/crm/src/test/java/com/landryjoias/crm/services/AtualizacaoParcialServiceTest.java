@@ -0,0 +1,131 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.entity.StatusPedido;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Alvo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Campo;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Resultado;
+import com.landryjoias.crm.services.AtualizacaoParcialService.Transicao;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// PATCH com If-Match sobre um EntityManager falso: a leitura devolve a versão e os campos antigos,
+// o UPDATE devolve quantas linhas casaram com "id + versaoLinha".
+class AtualizacaoParcialServiceTest {
+
+    private static final Alvo PEDIDO = new Alvo("PedidosEntity", "idPedido", Map.of(
+            "data", Campo.data("data"),
+            "status", Campo.enumeracao("status", StatusPedido.class)), null,
+            Transicao.de("status", StatusPedido.class, StatusPedido::podeMudarPara));
+
+    private static final byte[] VERSAO = { 0, 0, 0, 0, 0, 0, 0x1F, 0x40 };
+    private static final byte[] NOVA_VERSAO = { 0, 0, 0, 0, 0, 0, 0x1F, 0x41 };
+
+    private EntityManager entityManager;
+    private Query select;
+    private Query update;
+    private AtualizacaoParcialService service;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        select = mock(Query.class);
+        update = mock(Query.class);
+        when(entityManager.createQuery(startsWith("SELECT"))).thenReturn(select);
+        when(entityManager.createQuery(startsWith("UPDATE"))).thenReturn(update);
+        when(select.setParameter(anyString(), any())).thenReturn(select);
+        when(update.setParameter(anyString(), any())).thenReturn(update);
+        service = new AtualizacaoParcialService(entityManager);
+    }
+
+    @Test
+    void semIfMatchResponde428SemTocarNoBanco() {
+        ResponseStatusException erro = assertThrows(ResponseStatusException.class,
+                () -> service.aplicar(PEDIDO, 7, Map.of("status", "PAGO"), null, "status"));
+
+        assertEquals(HttpStatus.PRECONDITION_REQUIRED, erro.getStatusCode());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void etagVelhaResponde412SemUpdate() {
+        linhaAtual(StatusPedido.PENDENTE);
+
+        ResponseStatusException erro = assertThrows(ResponseStatusException.class,
+                () -> service.aplicar(PEDIDO, 7, Map.of("status", "PAGO"), "\"0000000000001f3f\"", "status"));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, erro.getStatusCode());
+        verify(update, never()).executeUpdate();
+    }
+
+    @Test
+    void updateQueNaoCasaComAVersaoResponde412() {
+        // Outra gravação entre a leitura e o UPDATE: a condição de versão não casa com nenhuma linha
+        linhaAtual(StatusPedido.PENDENTE);
+        when(update.executeUpdate()).thenReturn(0);
+
+        ResponseStatusException erro = assertThrows(ResponseStatusException.class,
+                () -> service.aplicar(PEDIDO, 7, Map.of("status", "PAGO"), AtualizacaoParcialService.etag(VERSAO), "status"));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, erro.getStatusCode());
+    }
+
+    @Test
+    void updateExigeAVersaoLidaEDevolveANovaEtag() {
+        linhaAtual(StatusPedido.PENDENTE);
+        when(update.executeUpdate()).thenReturn(1);
+
+        Resultado resultado = service.aplicar(PEDIDO, 7, Map.of("status", "PAGO"), AtualizacaoParcialService.etag(VERSAO), "status");
+
+        verify(entityManager).createQuery(argThat((String jpql) -> jpql.startsWith("UPDATE PedidosEntity e SET e.status = :p0")
+                && jpql.endsWith("WHERE e.idPedido = :id AND e.versaoLinha = :versao")));
+        verify(update).setParameter("versao", VERSAO);
+        verify(update).setParameter("p0", StatusPedido.PAGO);
+        assertEquals(AtualizacaoParcialService.etag(NOVA_VERSAO), resultado.etag());
+        assertEquals(StatusPedido.PENDENTE, resultado.antes().get("status"));
+        assertEquals(StatusPedido.PAGO, resultado.depois().get("status"));
+        assertTrue(resultado.mudou("status"));
+    }
+
+    @Test
+    void transicaoForaDaRegraResponde409SemUpdate() {
+        linhaAtual(StatusPedido.ENTREGUE);
+
+        ResponseStatusException erro = assertThrows(ResponseStatusException.class,
+                () -> service.aplicar(PEDIDO, 7, Map.of("status", "PENDENTE"), AtualizacaoParcialService.etag(VERSAO), "status"));
+
+        assertEquals(HttpStatus.CONFLICT, erro.getStatusCode());
+        verify(update, never()).executeUpdate();
+    }
+
+    @Test
+    void manterOStatusNaoETransicao() {
+        linhaAtual(StatusPedido.ENTREGUE);
+        when(update.executeUpdate()).thenReturn(1);
+
+        Resultado resultado = service.aplicar(PEDIDO, 7, Map.of("status", "ENTREGUE", "data", "2024-05-02"),
+                AtualizacaoParcialService.etag(VERSAO), "status");
+
+        assertEquals(StatusPedido.ENTREGUE, resultado.depois().get("status"));
+        verify(update).executeUpdate();
+    }
+
+    // 1ª leitura: versão + "status" (devolver) + "status" (origem da transição); 2ª: só a nova versão
+    private void linhaAtual(StatusPedido status) {
+        when(select.getResultList()).thenReturn(
+                List.of((Object) new Object[] { VERSAO, status, status }),
+                List.<Object>of(NOVA_VERSAO));
+    }
+}
@@ -0,0 +1,128 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.cache.ProdutoCache;
+import com.landryjoias.crm.dto.PedidoDTO;
+import com.landryjoias.crm.entity.PedidosEntity;
+import com.landryjoias.crm.entity.ProdutosEntity;
+import com.landryjoias.crm.entity.StatusPedido;
+import com.landryjoias.crm.repository.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Conta as idas ao banco da criação de pedidos (cada chamada de repositório / batch = 1 round trip).
+// Antes: 40 itens = 1 oportunidade + 1 cabeçalho + 40 findById + 40 save (merge: SELECT + INSERT) + 1 releitura.
+class PedidosServiceTest {
+
+    private PedidosRepository pedidosRepository;
+    private Produto_pedidoRepository itemRepository;
+    private ProdutosRepository produtosRepository;
+    private OportunidadesRepository oportunidadesRepository;
+    private JdbcTemplate jdbcTemplate;
+    private PedidosService service;
+
+    private final AtomicInteger sequencia = new AtomicInteger(100);
+
+    @BeforeEach
+    void setUp() {
+        pedidosRepository = mock(PedidosRepository.class);
+        itemRepository = mock(Produto_pedidoRepository.class);
+        produtosRepository = mock(ProdutosRepository.class);
+        oportunidadesRepository = mock(OportunidadesRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        service = new PedidosService(pedidosRepository, itemRepository, new ProdutoCache(produtosRepository, new SimpleMeterRegistry()),
+                oportunidadesRepository, mock(AuditoriaService.class), mock(SincronizacaoService.class),
+                mock(ReceitaService.class), mock(ReservaEstoqueService.class),
+                mock(MovimentoEstoqueService.class), mock(AtualizacaoParcialService.class),
+                mock(TransicaoLoteService.class), mock(CatalogoService.class), jdbcTemplate, mock(EntityManager.class));
+
+        when(pedidosRepository.save(any(PedidosEntity.class))).thenAnswer(inv -> {
+            PedidosEntity p = inv.getArgument(0);
+            p.setIdPedido(sequencia.incrementAndGet());
+            return p;
+        });
+        when(produtosRepository.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<ProdutosEntity> encontrados = new ArrayList<>();
+            for (Object id : (Iterable<?>) inv.getArgument(0)) {
+                ProdutosEntity produto = new ProdutosEntity();
+                produto.setIdProduto((Integer) id);
+                encontrados.add(produto);
+            }
+            return encontrados;
+        });
+    }
+
+    @Test
+    void pedidoDeAtacadoUsaUmaConsultaDeProdutosEUmBatch() {
+        PedidosEntity salvo = service.incluir(pedido(40));
+
+        assertEquals(40, salvo.getItens().size());
+        verify(produtosRepository, times(1)).findAllById(anyIterable());
+        verify(produtosRepository, never()).findById(any());
+        verify(itemRepository, never()).save(any());
+        verify(pedidosRepository, never()).findById(any());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((Collection<?> c) -> c.size() == 40),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void loteGravaTodosOsItensNumBatchSo() {
+        List<PedidosEntity> salvos = service.incluirLote(List.of(pedido(10), pedido(20), pedido(5)));
+
+        assertEquals(3, salvos.size());
+        verify(pedidosRepository, times(3)).save(any(PedidosEntity.class));
+        verify(produtosRepository, times(1)).findAllById(anyIterable());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((Collection<?> c) -> c.size() == 35),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void produtosEmCacheNaoVoltamAoBanco() {
+        service.incluir(pedido(20));
+        service.incluir(pedido(20));
+
+        verify(produtosRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void produtoInexistenteFalhaAntesDeGravar() {
+        when(produtosRepository.findAllById(anyIterable())).thenReturn(List.of());
+
+        assertThrows(RuntimeException.class, () -> service.incluir(pedido(3)));
+        verify(pedidosRepository, never()).save(any());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private PedidoDTO pedido(int quantidadeItens) {
+        PedidoDTO dto = new PedidoDTO();
+        dto.setData(LocalDate.now());
+        dto.setValorTotal(1000.0);
+        dto.setStatus(StatusPedido.PENDENTE);
+        List<PedidoDTO.ItemPedidoDTO> itens = new ArrayList<>();
+        for (int i = 1; i <= quantidadeItens; i++) {
+            PedidoDTO.ItemPedidoDTO item = new PedidoDTO.ItemPedidoDTO();
+            item.setIdProduto(i);
+            item.setQuantidade(2);
+            item.setValor(25.0);
+            item.setTamanho("ARO_16");
+            itens.add(item);
+        }
+        dto.setItens(itens);
+        return dto;
+    }
+}
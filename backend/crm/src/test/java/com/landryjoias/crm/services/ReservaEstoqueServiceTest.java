@@ -0,0 +1,174 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.cache.ProdutoCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Vários vendedores disputando o mesmo anel: o total reservado nunca passa do estoque
+// e o que vai para o banco é exatamente o líquido das reservas.
+class ReservaEstoqueServiceTest {
+    private static final int PRODUTO = 7;
+    private static final int ESTOQUE_INICIAL = 500;
+
+    private JdbcTemplate jdbcTemplate;
+    private ReservaEstoqueService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(PRODUTO))).thenReturn(ESTOQUE_INICIAL);
+        service = new ReservaEstoqueService(jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(SincronizacaoService.class), mock(ProdutoCache.class), mock(CatalogoService.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void nuncaVendeMaisQueOEstoque() throws Exception {
+        int threads = 32;
+        int tentativasPorThread = 2_000;
+        AtomicInteger reservado = new AtomicInteger();
+        AtomicInteger liberado = new AtomicInteger();
+        AtomicInteger menorSaldoVisto = new AtomicInteger(Integer.MAX_VALUE);
+        List<Object[]> gravados = capturarGravacoes();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < tentativasPorThread; i++) {
+                    int quantidade = 1 + random.nextInt(3);
+                    if (service.reservar(PRODUTO, quantidade)) {
+                        reservado.addAndGet(quantidade);
+                        // Alguns pedidos são cancelados e devolvem o estoque
+                        if (random.nextInt(10) == 0) {
+                            service.liberar(PRODUTO, quantidade);
+                            liberado.addAndGet(quantidade);
+                        }
+                    }
+                    menorSaldoVisto.accumulateAndGet(service.disponivel(PRODUTO), Math::min);
+                    if (i % 500 == 0) {
+                        service.gravarPendentes(); // gravação em lote concorrendo com as reservas
+                    }
+                }
+            });
+        }
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        service.gravarPendentes();
+
+        int liquido = reservado.get() - liberado.get();
+        assertTrue(liquido <= ESTOQUE_INICIAL, "vendeu " + liquido + " de " + ESTOQUE_INICIAL);
+        assertTrue(menorSaldoVisto.get() >= 0, "saldo ficou negativo: " + menorSaldoVisto.get());
+        assertEquals(ESTOQUE_INICIAL - liquido, service.disponivel(PRODUTO));
+        // A demanda (32 x 2000) é muito maior que o estoque: em algum momento esgotou
+        assertTrue(menorSaldoVisto.get() < 3);
+
+        int gravadoNoBanco = gravados.stream().mapToInt(linha -> (Integer) linha[0]).sum();
+        assertEquals(-liquido, gravadoNoBanco);
+    }
+
+    @Test
+    void recusaQuandoNaoHaSaldo() {
+        assertTrue(service.reservar(PRODUTO, ESTOQUE_INICIAL));
+        assertFalse(service.reservar(PRODUTO, 1));
+        service.liberar(PRODUTO, 1);
+        assertTrue(service.reservar(PRODUTO, 1));
+    }
+
+    @Test
+    void ajusteExternoNaoVaiParaOBanco() {
+        List<Object[]> gravados = capturarGravacoes();
+        service.reservar(PRODUTO, 10);
+        service.ajustar(PRODUTO, -5); // procedure baixou 5 direto no banco
+
+        service.gravarPendentes();
+
+        assertEquals(ESTOQUE_INICIAL - 15, service.disponivel(PRODUTO));
+        assertEquals(1, gravados.size());
+        assertEquals(-10, gravados.get(0)[0]);
+    }
+
+    @Test
+    void conflitoNoBancoMantemODeltaAteConseguirGravar() {
+        // Depois da carga, alguém baixou o estoque direto no banco para 3
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(PRODUTO))).thenReturn(ESTOQUE_INICIAL, 3);
+        List<Object[]> aceitos = new ArrayList<>();
+        AtomicInteger tentativas = new AtomicInteger();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> {
+                    Collection<Object[]> lote = inv.getArgument(1);
+                    // 1ª tentativa: 0 linhas (sem saldo no banco); depois o estoque foi reposto
+                    int afetadas = tentativas.getAndIncrement() == 0 ? 0 : 1;
+                    if (afetadas == 1) {
+                        aceitos.addAll(lote);
+                    }
+                    int[] linhas = new int[lote.size()];
+                    Arrays.fill(linhas, afetadas);
+                    return new int[][] { linhas };
+                });
+
+        assertTrue(service.reservar(PRODUTO, 10));
+        service.gravarPendentes();
+
+        // Reservou 10 com 3 no banco: faltam 7, e nada mais é reservado até repor
+        assertEquals(-7, service.disponivel(PRODUTO));
+        assertFalse(service.reservar(PRODUTO, 1));
+        assertTrue(aceitos.isEmpty());
+
+        service.ajustar(PRODUTO, 20); // reposição gravada por outro caminho
+        service.gravarPendentes();
+
+        assertEquals(13, service.disponivel(PRODUTO));
+        assertEquals(1, aceitos.size());
+        assertEquals(-10, aceitos.get(0)[0]);
+
+        service.gravarPendentes(); // nada pendente: não grava de novo
+        assertEquals(2, tentativas.get());
+    }
+
+    // Guarda as linhas enviadas ao UPDATE em lote e responde "1 linha afetada" para cada uma
+    @SuppressWarnings("unchecked")
+    private List<Object[]> capturarGravacoes() {
+        List<Object[]> gravados = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> {
+                    Collection<Object[]> lote = inv.getArgument(1);
+                    synchronized (gravados) {
+                        gravados.addAll(lote);
+                    }
+                    int[] linhas = new int[lote.size()];
+                    Arrays.fill(linhas, 1);
+                    return new int[][] { linhas };
+                });
+        return gravados;
+    }
+}
@@ -0,0 +1,197 @@
+package com.landryjoias.crm.services;
+
+import com.landryjoias.crm.entity.ExclusaoEntity;
+import com.landryjoias.crm.repository.ExclusaoRepository;
+import com.landryjoias.crm.repository.SegmentoClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// O banco é uma lista de pedidos em memória atrás do JdbcTemplate: o cálculo completo parte dela,
+// cada teste muda alguns pedidos e o incremental tem que regravar os clientes certos.
+class SegmentacaoRfmServiceTest {
+    private static final LocalDate DIA = LocalDate.now().minusDays(10);
+
+    // idPedido, idCliente (null = sem oportunidade), data, valor, cancelado
+    private static final class Pedido {
+        final int id;
+        Integer cliente;
+        final LocalDate data;
+        final long valor;
+        boolean cancelado;
+
+        Pedido(int id, Integer cliente, LocalDate data, long valor) {
+            this.id = id;
+            this.cliente = cliente;
+            this.data = data;
+            this.valor = valor;
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate;
+    private ExclusaoRepository exclusaoRepository;
+    private SegmentacaoRfmService service;
+
+    private final Map<Integer, Pedido> pedidos = new TreeMap<>();
+    private final List<Pedido> alterados = new ArrayList<>();
+    private final Map<Integer, Map<Integer, Object>> gravados = new TreeMap<>(); // idCliente -> coluna -> valor
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        exclusaoRepository = mock(ExclusaoRepository.class);
+        service = new SegmentacaoRfmService(jdbcTemplate, exclusaoRepository, mock(SegmentoClienteRepository.class),
+                mock(PlatformTransactionManager.class));
+
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class))).thenReturn(List.of(1, 2, 3));
+        doAnswer(inv -> {
+            for (Pedido p : pedidos.values()) {
+                if (!p.cancelado) {
+                    inv.<RowCallbackHandler>getArgument(1).processRow(linha(p.id, p.cliente, p.data, p.valor));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        doAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            RowCallbackHandler linhas = inv.getArgument(1);
+            if (sql.contains("versao_linha")) {
+                for (Pedido p : alterados) {
+                    linhas.processRow(linha(p.id, p.cliente, null, 0));
+                }
+            } else {
+                List<Object> clientes = Arrays.asList((Object[]) inv.getRawArguments()[2]);
+                for (Pedido p : pedidos.values()) {
+                    if (!p.cancelado && clientes.contains(p.cliente)) {
+                        linhas.processRow(linha(p.id, p.cliente, p.data, p.valor));
+                    }
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        doAnswer(inv -> {
+            ParameterizedPreparedStatementSetter<Object> setter = inv.getArgument(3);
+            for (Object linha : inv.<Collection<?>>getArgument(1)) {
+                Map<Integer, Object> colunas = new HashMap<>();
+                setter.setValues(mock(PreparedStatement.class, c -> {
+                    if (c.getArguments().length == 2 && c.getArgument(0) instanceof Integer coluna) {
+                        colunas.put(coluna, c.getArgument(1));
+                    }
+                    return null;
+                }), linha);
+                gravados.put((Integer) colunas.get(1), colunas);
+            }
+            return null;
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+
+        pedidos.put(10, new Pedido(10, 1, DIA, 100));
+        pedidos.put(11, new Pedido(11, 1, DIA.plusDays(1), 200));
+        pedidos.put(12, new Pedido(12, 2, DIA.plusDays(2), 300));
+        pedidos.put(13, new Pedido(13, 3, DIA.plusDays(3), 50));
+        when(exclusaoRepository.versaoEstavel()).thenReturn(100L, 200L);
+        assertEquals(3, service.recalcularCompleto());
+        gravados.clear();
+    }
+
+    // Só as colunas 1 (cliente), 4 (frequência) e 5 (monetário)
+    private List<Object> gravado(int idCliente) {
+        Map<Integer, Object> c = gravados.get(idCliente);
+        return List.of(c.get(1), c.get(4), c.get(5));
+    }
+
+    private String segmento(int idCliente) {
+        return (String) gravados.get(idCliente).get(9);
+    }
+
+    private static ResultSet linha(int idPedido, Integer idCliente, LocalDate data, long valor) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(idPedido);
+        when(rs.getInt(2)).thenReturn(idCliente != null ? idCliente : 0);
+        when(rs.wasNull()).thenReturn(idCliente == null);
+        when(rs.getDate(3)).thenReturn(data != null ? Date.valueOf(data) : null);
+        when(rs.getLong(4)).thenReturn(valor);
+        return rs;
+    }
+
+    @Test
+    void notaPorQuintilComEmpatesNaPosicaoMedia() {
+        long[] distintos = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        for (int valor = 1; valor <= 10; valor++) {
+            assertEquals((valor + 1) / 2, SegmentacaoRfmService.nota(distintos, valor));
+        }
+
+        // Seis clientes com 1 pedido: todos na posição média (2,5), nota 2, nenhum na 1 nem na 3
+        long[] comEmpate = { 1, 1, 1, 1, 1, 1, 2, 3, 4, 5 };
+        assertEquals(2, SegmentacaoRfmService.nota(comEmpate, 1));
+        assertEquals(4, SegmentacaoRfmService.nota(comEmpate, 2));
+        assertEquals(5, SegmentacaoRfmService.nota(comEmpate, 5));
+        assertEquals(1, SegmentacaoRfmService.nota(comEmpate, 0)); // abaixo de todos
+        assertEquals(5, SegmentacaoRfmService.nota(comEmpate, 9)); // acima de todos
+    }
+
+    @Test
+    void notaSemNinguemParaCompararEUm() {
+        assertEquals(1, SegmentacaoRfmService.nota(new long[0], 42));
+    }
+
+    @Test
+    void pedidoQueMudaDeClienteRecalculaODonoAnteriorEONovo() {
+        pedidos.get(11).cliente = 2;
+        alterados.add(pedidos.get(11));
+
+        assertEquals(2, service.recalcularIncremental());
+
+        assertEquals(List.of(1, 1, 100L), gravado(1));
+        assertEquals(List.of(2, 2, 500L), gravado(2));
+        assertEquals(List.of(1, 2), List.copyOf(gravados.keySet())); // o cliente 3 não foi tocado
+        verify(exclusaoRepository).buscarDesde(99L, 200L);
+    }
+
+    @Test
+    void pedidoCanceladoSaiDaSomaDoCliente() {
+        pedidos.get(12).cancelado = true;
+        alterados.add(pedidos.get(12));
+
+        assertEquals(1, service.recalcularIncremental());
+
+        assertEquals(List.of(2, 0, 0L), gravado(2));
+        assertEquals("SEM_COMPRAS", segmento(2));
+    }
+
+    @Test
+    void pedidoExcluidoSaiPelaLapideDoClienteQueEraDono() {
+        pedidos.remove(13);
+        when(exclusaoRepository.buscarDesde(99L, 200L))
+                .thenReturn(List.of(new ExclusaoEntity(SincronizacaoService.PEDIDOS, 13)));
+
+        assertEquals(1, service.recalcularIncremental());
+
+        assertEquals(List.of(3, 0, 0L), gravado(3));
+        assertEquals("SEM_COMPRAS", segmento(3));
+        // Já saiu do mapa: a mesma lápide num próximo ciclo não recalcula ninguém
+        when(exclusaoRepository.versaoEstavel()).thenReturn(300L);
+        when(exclusaoRepository.buscarDesde(199L, 300L))
+                .thenReturn(List.of(new ExclusaoEntity(SincronizacaoService.PEDIDOS, 13)));
+        assertEquals(0, service.recalcularIncremental());
+    }
+}
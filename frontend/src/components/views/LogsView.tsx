@@ -1,9 +1,11 @@
-import { useState, useMemo } from 'react';
+import { useState, useMemo, useEffect } from 'react';
 import { Card, CardContent } from '@/components/ui/card';
 import { Badge } from '@/components/ui/badge';
 import { Input } from '@/components/ui/input';
 import { Avatar, AvatarFallback } from '@/components/ui/avatar';
 import { useApp } from '@/contexts/AppContext';
+import { logApi } from '@/services/api';
+import type { Log } from '@/types/api';
 import { Search, Clock, Activity, Phone, Mail, Calendar, AlertCircle } from 'lucide-react';
 
 // Definição local para garantir que não quebre a importação
@@ -26,6 +28,23 @@ const activityIcons: Record<number, React.ElementType> = {
 export const LogsView = () => {
   const { logs } = useApp();
   const [searchTerm, setSearchTerm] = useState('');
+  // Resultado da busca no servidor (todos os logs, inclusive os antigos); null = filtro local
+  const [encontrados, setEncontrados] = useState<Log[] | null>(null);
+
+  useEffect(() => {
+    const termo = searchTerm.trim();
+    if (termo.length < 3) {
+      setEncontrados(null);
+      return;
+    }
+    let cancelado = false;
+    const espera = setTimeout(() => {
+      logApi.busca(termo, 50)
+        .then(p => { if (!cancelado) setEncontrados(p.itens.map(i => i.log)); })
+        .catch(() => { if (!cancelado) setEncontrados(null); });
+    }, 300);
+    return () => { cancelado = true; clearTimeout(espera); };
+  }, [searchTerm]);
 
   // Debug: Verifique no console do navegador se os logs estão chegando
   // console.log("Logs carregados:", logs);
@@ -47,12 +66,13 @@ export const LogsView = () => {
 
   // Ordenar logs por data (mais recente primeiro) com proteção de data inválida
   const sortedLogs = useMemo(() => {
+    if (encontrados) return encontrados; // já vem por relevância
     return [...filteredLogs].sort((a, b) => {
       const dateA = new Date(a.data).getTime() || 0;
       const dateB = new Date(b.data).getTime() || 0;
       return dateB - dateA;
     });
-  }, [filteredLogs]);
+  }, [filteredLogs, encontrados]);
 
   const getInitials = (nome: string) => {
     return nome ? nome.split(' ').map(n => n[0]).join('').substring(0, 2).toUpperCase() : '??';
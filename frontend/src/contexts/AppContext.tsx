@@ -174,8 +174,9 @@ export const AppProvider = ({ children }: { children: ReactNode }) => {
   const updatePedido = async (id: number, pedido: Partial<Pedido>) => { try { if (pedidoApi.update) await pedidoApi.update(id, pedido); await refreshData(); } catch (e) { throw e; } };
   const deletePedido = async (id: number) => { try { if (pedidoApi.delete) await pedidoApi.delete(id); await refreshData(); } catch (e) { throw e; } };
 
-  const updatePedidoStatus = async (id: number, status: string) => { try { const pedidoAtual = pedidos.find(p => p.idPedido === id); if (pedidoAtual) { await pedidoApi.update(id, { ...pedidoAtual, status: status as any }); await refreshData(); } } catch (e) { console.error(e); } };
-  const updateOportunidadeStatus = async (id: number, status: string) => { try { const opAtual = oportunidades.find(o => o.idOportunidade === id); if(opAtual) { await oportunidadeApi.update(id, { ...opAtual, estagioFunil: status as any }); await refreshData(); } } catch (e) { console.error(e); } };
+  // Só o campo alterado vai para o servidor (PATCH), com a etag lida para não sobrescrever outra edição
+  const updatePedidoStatus = async (id: number, status: string) => { try { const pedidoAtual = pedidos.find(p => p.idPedido === id); if (pedidoAtual) { await pedidoApi.patch(id, { status: status as any }, pedidoAtual.etag); await refreshData(); } } catch (e) { console.error(e); await refreshData(); } };
+  const updateOportunidadeStatus = async (id: number, status: string) => { try { const opAtual = oportunidades.find(o => o.idOportunidade === id); if(opAtual) { await oportunidadeApi.patch(id, { estagioFunil: status as any }, opAtual.etag); await refreshData(); } } catch (e) { console.error(e); await refreshData(); } };
 
   const updateOportunidade = async (id: number, op: Partial<Oportunidade>) => {
     try {
@@ -1,7 +1,7 @@
 import { API_BASE_URL } from '@/types/api';
 import type { 
   Cliente, Funcionario, Log, Oportunidade, Pedido, Produto, Usuario, 
-  LoginDTO, LoginResponse 
+  LoginDTO, LoginResponse, ResultadoTransicao, PaginaCursor, FiltroLogs, LogEncontrado, ResultadoBusca, ProdutoRecomendado 
 } from '@/types/api';
 
 // Mapeamento das rotas
@@ -17,6 +17,7 @@ export const API_ENDPOINTS = {
   usuarios: `${API_BASE_URL}/usuarios`,
   contatos: `${API_BASE_URL}/Contatos`,
   oportunidades: `${API_BASE_URL}/oportunidades`,
+  busca: `${API_BASE_URL}/busca`,
 };
 
 // --- FUNÇÃO CORE DE FETCH ---
@@ -53,6 +54,19 @@ async function fetchApi<T>(url: string, options?: RequestInit): Promise<T> {
   }
 }
 
+// PATCH parcial com pré-condição: 412 = outra pessoa alterou o registro antes.
+// Sem a ETag da leitura não dá para garantir que a edição parte da versão atual: falha em vez de mandar '*'.
+async function patchApi(url: string, campos: Record<string, unknown>, etag?: string) {
+  if (!etag) {
+    throw new Error('Registro sem versão carregada. Recarregue os dados e tente de novo.');
+  }
+  return fetchApi<void>(url, {
+    method: 'PATCH',
+    headers: { 'If-Match': `"${etag}"` },
+    body: JSON.stringify(campos),
+  });
+}
+
 // --- IMPLEMENTAÇÃO DAS APIS REAIS ---
 
 export const authApi = {
@@ -73,12 +87,16 @@ export const produtoApi = {
   create: (p: Partial<Produto>) => fetchApi<Produto>(API_ENDPOINTS.produtos, { method: 'POST', body: JSON.stringify(p) }),
   update: (id: number, p: Partial<Produto>) => fetchApi<Produto>(`${API_ENDPOINTS.produtos}/${id}`, { method: 'PUT', body: JSON.stringify(p) }),
   delete: (id: number) => fetchApi<void>(`${API_ENDPOINTS.produtos}/${id}`, { method: 'DELETE' }),
+  recomendados: (id: number, quantos = 10) =>
+    fetchApi<ProdutoRecomendado[]>(`${API_ENDPOINTS.produtos}/${id}/recomendados?quantos=${quantos}`),
 };
 
 export const pedidoApi = {
   getAll: () => fetchApi<Pedido[]>(API_ENDPOINTS.pedidos),
   create: (p: Partial<Pedido>) => fetchApi<Pedido>(API_ENDPOINTS.pedidos, { method: 'POST', body: JSON.stringify(p) }),
   update: (id: number, p: Partial<Pedido>) => fetchApi<Pedido>(`${API_ENDPOINTS.pedidos}/${id}`, { method: 'PUT', body: JSON.stringify(p) }),
+  patch: (id: number, campos: Partial<Pedido>, etag?: string) => patchApi(`${API_ENDPOINTS.pedidos}/${id}`, campos, etag),
+  updateStatusEmLote: (ids: number[], destino: string) => fetchApi<ResultadoTransicao[]>(`${API_ENDPOINTS.pedidos}/status`, { method: 'PATCH', body: JSON.stringify({ ids, destino }) }),
   delete: (id: number) => fetchApi<void>(`${API_ENDPOINTS.pedidos}/${id}`, { method: 'DELETE' }),
 };
 
@@ -86,6 +104,8 @@ export const oportunidadeApi = {
   getAll: () => fetchApi<Oportunidade[]>(API_ENDPOINTS.oportunidades),
   create: (op: Partial<Oportunidade>) => fetchApi<Oportunidade>(API_ENDPOINTS.oportunidades, { method: 'POST', body: JSON.stringify(op) }),
   update: (id: number, op: Partial<Oportunidade>) => fetchApi<Oportunidade>(`${API_ENDPOINTS.oportunidades}/${id}`, { method: 'PUT', body: JSON.stringify(op) }),
+  patch: (id: number, campos: Partial<Oportunidade>, etag?: string) => patchApi(`${API_ENDPOINTS.oportunidades}/${id}`, campos, etag),
+  updateEstagioEmLote: (ids: number[], destino: string) => fetchApi<ResultadoTransicao[]>(`${API_ENDPOINTS.oportunidades}/estagio`, { method: 'PATCH', body: JSON.stringify({ ids, destino }) }),
   delete: (id: number) => fetchApi<void>(`${API_ENDPOINTS.oportunidades}/${id}`, { method: 'DELETE' }),
 };
 
@@ -97,10 +117,29 @@ export const funcionarioApi = {
 };
 
 export const logApi = {
-  getAll: () => fetchApi<Log[]>(API_ENDPOINTS.logs),
+  // GET /logs é paginado: a tela carrega só as entradas mais recentes
+  getAll: () => logApi.getPagina({ limite: 200 }).then(p => p.itens),
+  getPagina: (filtro: FiltroLogs = {}) => {
+    const params = new URLSearchParams();
+    Object.entries(filtro).forEach(([k, v]) => { if (v !== undefined && v !== '') params.set(k, String(v)); });
+    return fetchApi<PaginaCursor<Log>>(`${API_ENDPOINTS.logs}?${params}`);
+  },
+  busca: (q: string, limite = 20, cursor?: string) => {
+    const params = new URLSearchParams({ q, limite: String(limite) });
+    if (cursor) params.set('cursor', cursor);
+    return fetchApi<PaginaCursor<LogEncontrado>>(`${API_ENDPOINTS.logs}/busca?${params}`);
+  },
   create: (l: Partial<Log>) => fetchApi<Log>(API_ENDPOINTS.logs, { method: 'POST', body: JSON.stringify(l) }),
 };
 
+export const buscaApi = {
+  buscar: (q: string, tipos?: ResultadoBusca['tipo'][], limite = 10) => {
+    const params = new URLSearchParams({ q, limite: String(limite) });
+    if (tipos?.length) params.set('tipos', tipos.join(','));
+    return fetchApi<ResultadoBusca[]>(`${API_ENDPOINTS.busca}?${params}`);
+  },
+};
+
 export const usuarioApi = {
   getAll: () => fetchApi<Usuario[]>(API_ENDPOINTS.usuarios),
 };
\ No newline at end of file
@@ -57,6 +57,7 @@ export interface LoginResponse {
 
 export interface Cliente {
   idCliente?: number;
+  etag?: string; // versão da linha, enviada no If-Match do PATCH
   // Campos antigos (mantidos para compatibilidade durante migração)
   cnpj?: string; 
   nomeDoComercio?: string; 
@@ -71,6 +72,7 @@ export interface Cliente {
 
 export interface Funcionario {
   idFuncionario?: number;
+  etag?: string; // versão da linha, enviada no If-Match do PATCH
   nome: string;
   cpf: string;
   cargo: Cargo | string; 
@@ -81,6 +83,7 @@ export interface Funcionario {
 
 export interface Oportunidade {
   idOportunidade?: number;
+  etag?: string; // versão da linha, enviada no If-Match do PATCH
   nomeOportunidade: string;
   valorEstimado: number;
   estagioFunil: EstagioFunil;
@@ -90,6 +93,7 @@ export interface Oportunidade {
 
 export interface Produto {
   idProduto?: number;
+  etag?: string; // versão da linha, enviada no If-Match do PATCH
   nome: string;
   descricao: string;
   tipo: number | string; 
@@ -119,6 +123,7 @@ export interface ProdutoPedido {
 
 export interface Pedido {
   idPedido?: number;
+  etag?: string; // versão da linha, enviada no If-Match do PATCH
   data: string;
   valorTotal: number;
   status: StatusPedido;
@@ -126,6 +131,14 @@ export interface Pedido {
   itens?: ProdutoPedido[];
 }
 
+// Resultado por id das mudanças de status/estágio em lote
+export interface ResultadoTransicao {
+  id: number;
+  resultado: 'alterado' | 'inalterado' | 'nao_encontrado' | 'transicao_invalida' | 'conflito';
+  de?: string;
+  para: string;
+}
+
 export interface Log {
   idLog?: number;
   titulo: string;
@@ -136,6 +149,47 @@ export interface Log {
   usuario?: { email: string } | Usuario; 
 }
 
+// Página de uma listagem por cursor: devolva "proximoCursor" para pegar a próxima
+export interface PaginaCursor<T> {
+  itens: T[];
+  proximoCursor?: string | null;
+  temMais: boolean;
+}
+
+export interface LogEncontrado {
+  log: Log;
+  relevancia: number;
+}
+
+// Item da busca global (GET /busca)
+export interface ResultadoBusca {
+  tipo: 'clientes' | 'produtos' | 'pedidos' | 'funcionarios' | 'contatos';
+  id: number;
+  titulo: string;
+  detalhe?: string;
+  relevancia: number;
+}
+
+// Quem comprou o produto também comprou (GET /produtos/{id}/recomendados)
+export interface ProdutoRecomendado {
+  idProduto: number;
+  nome: string;
+  lift: number;
+  pedidosJuntos: number;
+  confianca: number;
+}
+
+export interface FiltroLogs {
+  de?: string;
+  ate?: string;
+  usuario?: number;
+  assunto?: string;
+  tipoDeAtividade?: number;
+  titulo?: string;
+  cursor?: string;
+  limite?: number;
+}
+
 // --- MAPAS DE TRADUÇÃO (Para mostrar bonito na tela) ---
 
 export const TAMANHO_LABELS: Record<string, string> = {